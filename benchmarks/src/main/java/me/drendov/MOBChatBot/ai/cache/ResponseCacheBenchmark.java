@@ -0,0 +1,84 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.providers.BedrockProvider;
+import me.drendov.MOBChatBot.benchmarks.BenchmarkConfig;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache key building and in-memory cache lookups, as done for every context-free question
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseCacheBenchmark {
+    
+    private static final int CACHED_QUESTIONS = 400;
+    
+    private ResponseCache cache;
+    private AIProvider provider;
+    private String[] cachedQuestions;
+    private String[] newQuestions;
+    private int next;
+    
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkConfig config = new BenchmarkConfig();
+        cache = new ResponseCache(BenchmarkConfig.logger(), Files.createTempDirectory("mobchat-cache").toFile(), config);
+        // Only the provider's name, model and system prompt go into the key
+        provider = new BedrockProvider(BenchmarkConfig.logger(), null, new MetricsRegistry(), "us-east-1", "",
+                "benchmark-access-key", "benchmark-secret-key", "claude-3-haiku", 1, 1, 1);
+        
+        cachedQuestions = new String[CACHED_QUESTIONS];
+        newQuestions = new String[CACHED_QUESTIONS];
+        for (int i = 0; i < CACHED_QUESTIONS; i++) {
+            cachedQuestions[i] = Samples.question(i) + " (#" + i + ")";
+            newQuestions[i] = Samples.question(i) + " (new #" + i + ")";
+            cache.put(CacheKey.of(provider, cachedQuestions[i]), Samples.text(400));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+    
+    @Benchmark
+    public String buildKey() {
+        return CacheKey.of(provider, cachedQuestions[nextIndex()]);
+    }
+    
+    @Benchmark
+    public String lookupHit() {
+        return cache.lookup(CacheKey.of(provider, cachedQuestions[nextIndex()])).join();
+    }
+    
+    @Benchmark
+    public String lookupMiss() {
+        return cache.lookup(CacheKey.of(provider, newQuestions[nextIndex()])).join();
+    }
+    
+    private int nextIndex() {
+        next = next + 1 == CACHED_QUESTIONS ? 0 : next + 1;
+        return next;
+    }
+}
@@ -0,0 +1,84 @@
+package me.drendov.MOBChatBot.ai.providers;
+
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.benchmarks.BenchmarkConfig;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import me.drendov.MOBChatBot.loadtest.MockBehavior;
+import me.drendov.MOBChatBot.loadtest.MockLLMServer;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenAIProvider.sendMessage against the local mock server, from request building to the parsed reply
+ * The mock's latency stands in for model time; with 0 ms the result is the plugin's own overhead per request.
+ * Run with -t to send from several threads at once.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    
+    /** Delay the mock server adds before each reply */
+    @Param({"0", "50"})
+    public int latencyMillis;
+    
+    @Param({"10"})
+    public int historyMessages;
+    
+    private MockLLMServer server;
+    private AIRequestExecutor executor;
+    private HttpClientManager httpClients;
+    private OpenAIProvider provider;
+    private List<ConversationMessage> history;
+    
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkConfig config = new BenchmarkConfig();
+        server = new MockLLMServer(MockBehavior.fixed(latencyMillis, 150));
+        executor = new AIRequestExecutor(BenchmarkConfig.logger(), config);
+        httpClients = new HttpClientManager(BenchmarkConfig.logger(), config);
+        provider = new OpenAIProvider(BenchmarkConfig.logger(), executor, httpClients, new MetricsRegistry(),
+                server.getOpenAIUrl(),
+                "benchmark-key", "gpt-3.5-turbo", 150, 256, 256, 5, 30, 60);
+        provider.initialize();
+        history = Samples.history(historyMessages);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        provider.shutdown();
+        httpClients.shutdown();
+        executor.shutdown();
+        server.close();
+    }
+    
+    @Benchmark
+    public AIResponse sendMessage() {
+        AIResponse response = provider.sendMessage(Samples.question(0), history).join();
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Request failed: " + response.getErrorMessage());
+        }
+        return response;
+    }
+}
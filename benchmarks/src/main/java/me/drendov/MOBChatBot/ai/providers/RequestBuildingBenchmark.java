@@ -0,0 +1,93 @@
+package me.drendov.MOBChatBot.ai.providers;
+
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.benchmarks.BenchmarkConfig;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body serialization for OpenAI and Bedrock with growing conversation history
+ * The OpenAI body is written into an Okio buffer, as it would be into the connection
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+    
+    @Param({"0", "10", "50"})
+    public int historyMessages;
+    
+    private List<ConversationMessage> history;
+    private String message;
+    private AIRequestExecutor executor;
+    private HttpClientManager httpClients;
+    private OpenAIProvider openAI;
+    private BedrockProvider bedrock;
+    
+    @Setup
+    public void setUp() {
+        BenchmarkConfig config = new BenchmarkConfig();
+        history = Samples.history(historyMessages);
+        message = Samples.question(historyMessages);
+        executor = new AIRequestExecutor(BenchmarkConfig.logger(), config);
+        httpClients = new HttpClientManager(BenchmarkConfig.logger(), config);
+        openAI = new OpenAIProvider(BenchmarkConfig.logger(), executor, httpClients, new MetricsRegistry(),
+                OpenAIProvider.DEFAULT_API_URL,
+                "benchmark-key", "gpt-3.5-turbo", 150, 64, 32, 5, 30, 60);
+        // Building a request does not need a Bedrock client
+        bedrock = new BedrockProvider(BenchmarkConfig.logger(), executor, new MetricsRegistry(), "us-east-1", "",
+                "benchmark-access-key", "benchmark-secret-key", "claude-3-haiku", 50, 10, 60);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        openAI.shutdown();
+        httpClients.shutdown();
+        executor.shutdown();
+    }
+    
+    @Benchmark
+    public long openAI() throws IOException {
+        Buffer sink = new Buffer();
+        openAI.buildRequestBody(message, history, false).writeTo(sink);
+        long size = sink.size();
+        sink.clear();
+        return size;
+    }
+    
+    @Benchmark
+    public long openAIStreaming() throws IOException {
+        Buffer sink = new Buffer();
+        openAI.buildRequestBody(message, history, true).writeTo(sink);
+        long size = sink.size();
+        sink.clear();
+        return size;
+    }
+    
+    @Benchmark
+    public int bedrock() {
+        return bedrock.buildClaudeRequest(message, history).asByteArrayUnsafe().length;
+    }
+}
@@ -0,0 +1,85 @@
+package me.drendov.MOBChatBot.ai.providers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming response parsing compared with the DOM parsing it replaced
+ * The DOM variants decode the body to a string and parse it into a tree, as the providers used to; the streaming
+ * variants run the providers' own extractors over the raw bytes. Run with -prof gc to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+    
+    /** Length of the reply text; 600 characters is about a 150-token reply */
+    @Param({"600", "2400", "9600"})
+    public int replyChars;
+    
+    private byte[] openAIResponse;
+    private byte[] bedrockResponse;
+    
+    @Setup
+    public void setUp() {
+        String reply = Samples.text(replyChars);
+        openAIResponse = Samples.openAIResponse(reply).getBytes(StandardCharsets.UTF_8);
+        bedrockResponse = Samples.bedrockResponse(reply).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public String openAIDom() {
+        JsonObject json = JsonParser.parseString(new String(openAIResponse, StandardCharsets.UTF_8)).getAsJsonObject();
+        String content = json.getAsJsonArray("choices")
+                .get(0).getAsJsonObject()
+                .getAsJsonObject("message")
+                .get("content").getAsString();
+        int tokens = json.getAsJsonObject("usage").get("total_tokens").getAsInt();
+        return tokens > 0 ? content : null;
+    }
+    
+    @Benchmark
+    public String openAIStreaming() throws IOException {
+        OpenAIProvider.Completion completion = OpenAIProvider.COMPLETION.read(
+                new ByteArrayInputStream(openAIResponse), new OpenAIProvider.Completion());
+        return completion.totalTokens > 0 ? completion.content : null;
+    }
+    
+    @Benchmark
+    public String bedrockDom() {
+        JsonObject json = JsonParser.parseString(new String(bedrockResponse, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray contentArray = json.getAsJsonArray("content");
+        String content = contentArray.get(0).getAsJsonObject().get("text").getAsString();
+        JsonObject usage = json.getAsJsonObject("usage");
+        int tokens = usage.get("input_tokens").getAsInt() + usage.get("output_tokens").getAsInt();
+        return tokens > 0 ? content : null;
+    }
+    
+    @Benchmark
+    public String bedrockStreaming() throws IOException {
+        BedrockProvider.Completion completion = BedrockProvider.COMPLETION.read(
+                new ByteArrayInputStream(bedrockResponse), new BedrockProvider.Completion());
+        return completion.inputTokens + completion.outputTokens > 0 ? completion.content : null;
+    }
+}
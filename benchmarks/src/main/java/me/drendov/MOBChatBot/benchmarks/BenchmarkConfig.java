@@ -0,0 +1,92 @@
+package me.drendov.MOBChatBot.benchmarks;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Configuration for benchmarks, fixed in code instead of loaded from config.yml
+ * Only the settings the benchmarked classes read are overridden; limits are set high enough
+ * that the plugin's own queues never turn a benchmark request away
+ */
+public class BenchmarkConfig extends ConfigManager {
+    
+    public BenchmarkConfig() {
+        super(null);
+    }
+    
+    /**
+     * Logger that only reports problems, so provider info messages do not mix with JMH output
+     */
+    public static Logger logger() {
+        Logger logger = Logger.getLogger("MOBChatBot-Benchmark");
+        logger.setLevel(Level.WARNING);
+        return logger;
+    }
+    
+    @Override
+    public int getWorkerThreads() {
+        return 8;
+    }
+    
+    @Override
+    public int getMaxQueuedRequests() {
+        return 10000;
+    }
+    
+    @Override
+    public int getMaxConcurrentRequests(String providerName) {
+        return 256;
+    }
+    
+    @Override
+    public int getShutdownTimeoutSeconds() {
+        return 5;
+    }
+    
+    @Override
+    public String getBusyMessage() {
+        return "busy";
+    }
+    
+    @Override
+    public int getHttpMaxIdleConnections() {
+        return 64;
+    }
+    
+    @Override
+    public int getHttpKeepAliveSeconds() {
+        return 300;
+    }
+    
+    @Override
+    public boolean isHttp2Enabled() {
+        return true;
+    }
+    
+    @Override
+    public boolean isHttpPrewarmEnabled() {
+        return false;
+    }
+    
+    @Override
+    public boolean isCacheEnabled() {
+        return true;
+    }
+    
+    @Override
+    public int getCacheMaxEntries() {
+        return 500;
+    }
+    
+    @Override
+    public int getCacheTtlMinutes() {
+        return 60;
+    }
+    
+    @Override
+    public boolean isCachePersistentEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package me.drendov.MOBChatBot.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversations and provider responses shaped like the real ones, for benchmarks
+ */
+public final class Samples {
+    
+    private static final String SENTENCE = "Creepers are \"quiet\" until they hiss, so keep a shield ready — "
+            + "and never mine straight down!\n";
+    
+    private static final String[] QUESTIONS = {
+        "How do I find diamonds faster?",
+        "What's the best food to carry into the Nether?",
+        "Can villagers breed without beds?",
+        "How far apart should two nether portals be?",
+        "Which enchantments go on a trident?"
+    };
+    
+    private Samples() {
+    }
+    
+    /**
+     * A player question
+     * @param index Any number; questions repeat
+     */
+    public static String question(int index) {
+        return QUESTIONS[Math.floorMod(index, QUESTIONS.length)];
+    }
+    
+    /**
+     * Conversation history of alternating questions and replies, oldest first
+     * @param messages Number of messages
+     */
+    public static List<ConversationMessage> history(int messages) {
+        List<ConversationMessage> history = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            history.add(i % 2 == 0
+                ? new ConversationMessage("user", question(i / 2))
+                : new ConversationMessage("assistant", text(400)));
+        }
+        return history;
+    }
+    
+    /**
+     * Reply text of a given length, with the quotes, newlines and non-ASCII characters a real reply has
+     */
+    public static String text(int length) {
+        StringBuilder text = new StringBuilder(length + SENTENCE.length());
+        while (text.length() < length) {
+            text.append(SENTENCE);
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+    
+    /**
+     * A Chat Completions response carrying the reply
+     */
+    public static String openAIResponse(String reply) {
+        return openAIResponse(reply, 412, reply.length() / 4);
+    }
+    
+    /**
+     * A Chat Completions response carrying the reply, with the given token usage
+     */
+    public static String openAIResponse(String reply, int promptTokens, int replyTokens) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", reply);
+        message.add("refusal", JsonNull.INSTANCE);
+        
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("message", message);
+        choice.add("logprobs", JsonNull.INSTANCE);
+        choice.addProperty("finish_reason", "stop");
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        
+        JsonObject promptDetails = new JsonObject();
+        promptDetails.addProperty("cached_tokens", 0);
+        JsonObject completionDetails = new JsonObject();
+        completionDetails.addProperty("reasoning_tokens", 0);
+        JsonObject usage = new JsonObject();
+        usage.addProperty("prompt_tokens", promptTokens);
+        usage.addProperty("completion_tokens", replyTokens);
+        usage.addProperty("total_tokens", promptTokens + replyTokens);
+        usage.add("prompt_tokens_details", promptDetails);
+        usage.add("completion_tokens_details", completionDetails);
+        
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "chatcmpl-9fQ2mJx1bWc3yLz7tYk4vR8sN0aPe");
+        json.addProperty("object", "chat.completion");
+        json.addProperty("created", 1719000000);
+        json.addProperty("model", "gpt-3.5-turbo-0125");
+        json.add("choices", choices);
+        json.add("usage", usage);
+        json.addProperty("system_fingerprint", "fp_b28b39ffa8");
+        return json.toString();
+    }
+    
+    /**
+     * A Claude Messages response from Bedrock carrying the reply
+     */
+    public static String bedrockResponse(String reply) {
+        return bedrockResponse(reply, 412, reply.length() / 4);
+    }
+    
+    /**
+     * A Claude Messages response from Bedrock carrying the reply, with the given token usage
+     */
+    public static String bedrockResponse(String reply, int promptTokens, int replyTokens) {
+        JsonObject text = new JsonObject();
+        text.addProperty("type", "text");
+        text.addProperty("text", reply);
+        JsonArray content = new JsonArray();
+        content.add(text);
+        
+        JsonObject usage = new JsonObject();
+        usage.addProperty("input_tokens", promptTokens);
+        usage.addProperty("output_tokens", replyTokens);
+        
+        JsonObject json = new JsonObject();
+        json.addProperty("id", "msg_bdrk_01XFDUDYJgAACzvnptvVoYEL");
+        json.addProperty("type", "message");
+        json.addProperty("role", "assistant");
+        json.addProperty("model", "claude-3-haiku-20240307");
+        json.add("content", content);
+        json.addProperty("stop_reason", "end_turn");
+        json.add("stop_sequence", JsonNull.INSTANCE);
+        json.add("usage", usage);
+        return json.toString();
+    }
+}
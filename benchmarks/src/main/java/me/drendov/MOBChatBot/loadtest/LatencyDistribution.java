@@ -0,0 +1,104 @@
+package me.drendov.MOBChatBot.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Random delay, in milliseconds, the mock server waits at some step of a reply
+ * Written as "name:arguments", e.g. "lognormal:800,0.5"; a bare number is a fixed delay.
+ * <ul>
+ *   <li>fixed:MS - always the same delay</li>
+ *   <li>uniform:MIN,MAX - any delay between the two, equally likely</li>
+ *   <li>exponential:MEAN - mostly short delays with an occasional long one</li>
+ *   <li>lognormal:MEDIAN,SIGMA - the long-tailed shape real model latency has; sigma 0.5 puts p99 near 3x the median</li>
+ * </ul>
+ */
+public final class LatencyDistribution {
+    
+    public static final LatencyDistribution ZERO = fixed(0);
+    
+    private final String spec;
+    private final LongSupplier sampler;
+    
+    private LatencyDistribution(String spec, LongSupplier sampler) {
+        this.spec = spec;
+        this.sampler = sampler;
+    }
+    
+    public static LatencyDistribution fixed(long millis) {
+        return new LatencyDistribution("fixed:" + millis, () -> millis);
+    }
+    
+    /**
+     * Parse a distribution
+     * @throws IllegalArgumentException If the text is not a known distribution or its arguments are invalid
+     */
+    public static LatencyDistribution parse(String spec) {
+        String text = spec.trim().toLowerCase(Locale.ROOT);
+        int colon = text.indexOf(':');
+        String name = colon < 0 ? "fixed" : text.substring(0, colon);
+        String[] args = (colon < 0 ? text : text.substring(colon + 1)).split(",");
+        
+        try {
+            switch (name) {
+                case "fixed": {
+                    expectArgs(spec, args, 1);
+                    return fixed(nonNegative(spec, Long.parseLong(args[0].trim())));
+                }
+                case "uniform": {
+                    expectArgs(spec, args, 2);
+                    long min = nonNegative(spec, Long.parseLong(args[0].trim()));
+                    long max = nonNegative(spec, Long.parseLong(args[1].trim()));
+                    if (max < min) {
+                        throw new IllegalArgumentException("Invalid latency " + spec + ": maximum is below minimum");
+                    }
+                    return new LatencyDistribution(text,
+                        () -> ThreadLocalRandom.current().nextLong(min, max + 1));
+                }
+                case "exponential": {
+                    expectArgs(spec, args, 1);
+                    double mean = nonNegative(spec, Double.parseDouble(args[0].trim()));
+                    return new LatencyDistribution(text,
+                        () -> Math.round(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble())));
+                }
+                case "lognormal": {
+                    expectArgs(spec, args, 2);
+                    double median = nonNegative(spec, Double.parseDouble(args[0].trim()));
+                    double sigma = nonNegative(spec, Double.parseDouble(args[1].trim()));
+                    return new LatencyDistribution(text,
+                        () -> Math.round(median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency " + spec + ": " + e.getMessage());
+        }
+    }
+    
+    private static void expectArgs(String spec, String[] args, int count) {
+        if (args.length != count) {
+            throw new IllegalArgumentException("Invalid latency " + spec + ": expected " + count + " argument(s)");
+        }
+    }
+    
+    private static <T extends Number> T nonNegative(String spec, T value) {
+        if (value.doubleValue() < 0) {
+            throw new IllegalArgumentException("Invalid latency " + spec + ": values cannot be negative");
+        }
+        return value;
+    }
+    
+    /**
+     * Draw one delay in milliseconds
+     */
+    public long sample() {
+        return sampler.getAsLong();
+    }
+    
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
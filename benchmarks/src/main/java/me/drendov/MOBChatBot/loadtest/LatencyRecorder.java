@@ -0,0 +1,44 @@
+package me.drendov.MOBChatBot.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Collects every latency of a load test run so exact percentiles can be reported at the end
+ * A run of a few minutes records at most a few hundred thousand samples, which fits easily in memory.
+ */
+final class LatencyRecorder {
+    
+    private long[] samples = new long[4096];
+    private int count;
+    
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+    
+    synchronized int count() {
+        return count;
+    }
+    
+    /**
+     * Summarize the recorded latencies in milliseconds
+     * @return "p50 ... p95 ... p99 ... max ...", or "no samples"
+     */
+    synchronized String summary() {
+        if (count == 0) {
+            return "no samples";
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT, "p50 %8.1f   p95 %8.1f   p99 %8.1f   max %8.1f",
+            millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99), sorted[count - 1] / 1e6);
+    }
+    
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,409 @@
+package me.drendov.MOBChatBot.loadtest;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIProviderFactory;
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.DrainableProvider;
+import me.drendov.MOBChatBot.ai.admission.AdmissionController;
+import me.drendov.MOBChatBot.ai.cache.RequestCoalescer;
+import me.drendov.MOBChatBot.ai.cache.ResponseCache;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.ai.resilience.CircuitBreakerRegistry;
+import me.drendov.MOBChatBot.ai.resilience.RetryBudget;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import me.drendov.MOBChatBot.config.ConfigManager;
+import me.drendov.MOBChatBot.metrics.LatencyHistogram;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import me.drendov.MOBChatBot.metrics.ProviderMetrics;
+import me.drendov.MOBChatBot.metrics.Stage;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives the plugin's full provider stack (admission control, circuit breakers, retries, hedging, coalescing,
+ * caching) with many simultaneous chats against {@link MockLLMServer}, and reports throughput and latency
+ * percentiles. Settings come from the plugin's default config.yml, or --config, with --set overrides, so thread
+ * pools, limits and caches can be sized without spending real provider credits.
+ * <p>
+ * By default each of --concurrency simulated players sends its next chat as soon as the previous one is answered.
+ * With --rate, chats start on a fixed schedule instead and latency is measured from the scheduled start, so a
+ * stalled plugin shows up as latency rather than as fewer requests.
+ */
+public final class LoadTest {
+    
+    private static final List<String> PROVIDERS = Arrays.asList("openai", "bedrock", "ollama");
+    private static final List<String> OPTIONS = Arrays.asList(
+        "help", "provider", "server", "config", "set", "concurrency", "rate", "duration", "warmup", "stream",
+        "history", "repeat-ratio", "think-time-ms", "log-level");
+    
+    private static final String USAGE = String.join("\n",
+        "Usage: java -cp benchmarks.jar me.drendov.MOBChatBot.loadtest.LoadTest [options]",
+        "",
+        "Load:",
+        "  --provider=openai         Providers to enable, comma separated (openai, bedrock, ollama)",
+        "  --concurrency=50          Simultaneous chats; with --rate, the most allowed in flight",
+        "  --rate=0                  Chats started per second on a fixed schedule; 0 sends back to back",
+        "  --duration=60             Seconds measured",
+        "  --warmup=10               Seconds run before measuring",
+        "  --stream=true             Stream replies, reporting the time to the first text as well",
+        "  --history=6               Earlier messages sent with every chat",
+        "  --repeat-ratio=0          Fraction of chats asking a common question (cache and coalescing hits",
+        "                            need --history=0)",
+        "  --think-time-ms=0         Pause between a player's chats",
+        "",
+        "Plugin:",
+        "  --config=FILE             config.yml to read instead of the plugin's default",
+        "  --set=PATH=VALUE          Override a setting, e.g. --set=execution.worker-threads=16; repeatable",
+        "  --log-level=WARNING       Plugin log level",
+        "",
+        "Mock server:",
+        "  --server=URL              Use a mock server that is already running instead of starting one",
+        "  --first-token=lognormal:600,0.5   Delay before the first token, in ms",
+        "  --token-interval=fixed:10 Delay between tokens, in ms",
+        "  --reply-tokens=60         Tokens in every reply",
+        "  --error-rate=0            Fraction of requests answered with a server error",
+        "  --throttle-rate=0         Fraction of requests answered with a rate limit error",
+        "  --retry-after-ms=1000     Wait suggested with rate limit errors",
+        "",
+        "Latency distributions: fixed:MS, uniform:MIN,MAX, exponential:MEAN, lognormal:MEDIAN,SIGMA");
+    
+    private final int concurrency;
+    private final double rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final boolean stream;
+    private final List<ConversationMessage> history;
+    private final double repeatRatio;
+    private final long thinkTimeMillis;
+    
+    // Requests started before measureFrom are warm-up and not recorded
+    private volatile long measureFrom;
+    private volatile long measureUntil;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LatencyRecorder latency = new LatencyRecorder();
+    private final LatencyRecorder firstText = new LatencyRecorder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final Map<AIResponse.ErrorType, LongAdder> failures = new EnumMap<>(AIResponse.ErrorType.class);
+    
+    private LoadTest(Options options) {
+        this.concurrency = options.getInt("concurrency", 50);
+        this.rate = options.getDouble("rate", 0);
+        this.durationSeconds = options.getInt("duration", 60);
+        this.warmupSeconds = options.getInt("warmup", 10);
+        this.stream = options.getBoolean("stream", true);
+        this.history = Samples.history(options.getInt("history", 6));
+        this.repeatRatio = options.getDouble("repeat-ratio", 0);
+        this.thinkTimeMillis = options.getInt("think-time-ms", 0);
+        if (concurrency < 1 || durationSeconds < 1 || warmupSeconds < 0 || rate < 0) {
+            throw new IllegalArgumentException("--concurrency and --duration must be positive, --warmup and --rate not negative");
+        }
+        for (AIResponse.ErrorType type : AIResponse.ErrorType.values()) {
+            failures.put(type, new LongAdder());
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Options options;
+        LoadTest test;
+        MockBehavior behavior;
+        try {
+            Set<String> known = new HashSet<>(OPTIONS);
+            known.addAll(MockBehavior.OPTIONS);
+            options = Options.parse(args, known);
+            if (options.has("help")) {
+                System.out.println(USAGE);
+                return;
+            }
+            test = new LoadTest(options);
+            behavior = MockBehavior.fromOptions(options);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        
+        Logger logger = Logger.getLogger("MOBChatBot-LoadTest");
+        logger.setLevel(Level.parse(options.get("log-level", "WARNING").toUpperCase(Locale.ROOT)));
+        
+        MockLLMServer server = options.has("server") ? null : new MockLLMServer(behavior);
+        String baseUrl = server != null ? server.getBaseUrl() : options.get("server", "").replaceAll("/+$", "");
+        try {
+            ConfigManager config = new ConfigManager(buildConfig(options, baseUrl), logger);
+            config.loadConfig();
+            test.run(config, logger, server);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+    
+    /**
+     * Read the plugin settings and point every enabled provider at the mock server
+     */
+    private static YamlConfiguration buildConfig(Options options, String baseUrl) throws IOException {
+        YamlConfiguration yaml;
+        if (options.has("config")) {
+            yaml = YamlConfiguration.loadConfiguration(new File(options.get("config", "")));
+        } else {
+            InputStream defaults = LoadTest.class.getResourceAsStream("/config.yml");
+            if (defaults == null) {
+                throw new IllegalStateException("The plugin's config.yml is not on the classpath; pass --config");
+            }
+            try (Reader reader = new InputStreamReader(defaults, StandardCharsets.UTF_8)) {
+                yaml = YamlConfiguration.loadConfiguration(reader);
+            }
+        }
+        
+        List<String> enabled = Arrays.asList(options.get("provider", "openai").toLowerCase(Locale.ROOT).split(","));
+        for (String name : enabled) {
+            if (!PROVIDERS.contains(name)) {
+                throw new IllegalArgumentException("Unknown provider: " + name);
+            }
+        }
+        for (String name : PROVIDERS) {
+            yaml.set("ai-providers." + name + ".enabled", enabled.contains(name));
+        }
+        yaml.set("ai-providers.openai.api-url", baseUrl + "/v1/chat/completions");
+        yaml.set("ai-providers.openai.api-key", "load-test");
+        yaml.set("ai-providers.bedrock.endpoint-url", baseUrl);
+        yaml.set("ai-providers.bedrock.access-key", "load-test");
+        yaml.set("ai-providers.bedrock.secret-key", "load-test");
+        yaml.set("ai-providers.ollama.base-url", baseUrl);
+        yaml.set("cache.persistent.enabled", false);
+        
+        for (String setting : options.getAll("set")) {
+            int equals = setting.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected --set=PATH=VALUE but got: " + setting);
+            }
+            yaml.set(setting.substring(0, equals), parseValue(setting.substring(equals + 1)));
+        }
+        return yaml;
+    }
+    
+    private static Object parseValue(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+            // Not a whole number
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ignored) {
+            return value;
+        }
+    }
+    
+    /**
+     * Start the plugin's services the way the plugin does, run the load, report, and shut everything down
+     */
+    private void run(ConfigManager config, Logger logger, MockLLMServer server) throws IOException, InterruptedException {
+        AIRequestExecutor requestExecutor = new AIRequestExecutor(logger, config);
+        ResponseCache responseCache = new ResponseCache(logger,
+            Files.createTempDirectory("mobchatbot-loadtest").toFile(), config);
+        AdmissionController admissionController = new AdmissionController(logger, config, requestExecutor.getScheduler());
+        RetryBudget retryBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMinPerSecond());
+        RetryBudget hedgeBudget = new RetryBudget(config.getHedgingMaxRatio(), 0);
+        HttpClientManager httpClients = new HttpClientManager(logger, config);
+        MetricsRegistry metrics = new MetricsRegistry();
+        AIProviderFactory factory = new AIProviderFactory(logger, config, requestExecutor, httpClients, responseCache,
+            new RequestCoalescer(), admissionController, retryBudget, hedgeBudget,
+            new CircuitBreakerRegistry(logger, config), metrics);
+        
+        DrainableProvider provider = factory.createProvider();
+        if (provider == null) {
+            admissionController.shutdown();
+            requestExecutor.shutdown();
+            httpClients.shutdown();
+            throw new IllegalStateException("No provider could be started; check --provider and --set");
+        }
+        
+        try {
+            System.out.printf(Locale.ROOT, "Load test: %s, %s, %s, %d s (+%d s warm-up)%n",
+                provider.getProviderName(), stream ? "streaming" : "not streaming",
+                rate > 0 ? String.format(Locale.ROOT, "%.1f chats/s (at most %d in flight)", rate, concurrency)
+                    : concurrency + " concurrent chats",
+                durationSeconds, warmupSeconds);
+            if (server != null) {
+                System.out.println("Mock server: " + server.getBehavior());
+            }
+            System.out.println("Running...");
+            
+            long start = System.nanoTime();
+            measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            if (rate > 0) {
+                runScheduled(provider);
+            } else {
+                runBackToBack(provider);
+            }
+            
+            report(server, requestExecutor, responseCache, metrics);
+        } finally {
+            admissionController.shutdown();
+            requestExecutor.shutdown();
+            provider.shutdown();
+            httpClients.shutdown();
+            responseCache.shutdown();
+        }
+    }
+    
+    /**
+     * Each simulated player sends a chat, waits for the answer, and sends the next
+     */
+    private void runBackToBack(AIProvider provider) {
+        try (ExecutorService players = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                players.submit(() -> {
+                    while (System.nanoTime() - measureUntil < 0) {
+                        send(provider, System.nanoTime()).join();
+                        if (thinkTimeMillis > 0) {
+                            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(thinkTimeMillis));
+                        }
+                    }
+                });
+            }
+        }
+    }
+    
+    /**
+     * Chats start at a fixed rate whether or not earlier ones have been answered
+     * A chat that cannot start because the in-flight limit is reached is counted as skipped
+     */
+    private void runScheduled(AIProvider provider) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long next = System.nanoTime();
+        while (next - measureUntil < 0) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.tryAcquire()) {
+                send(provider, next).whenComplete((response, throwable) -> inFlight.release());
+            } else if (next - measureFrom >= 0) {
+                skipped.increment();
+            }
+            next += interval;
+        }
+        inFlight.acquire(concurrency);
+    }
+    
+    private CompletableFuture<AIResponse> send(AIProvider provider, long start) {
+        String message = ThreadLocalRandom.current().nextDouble() < repeatRatio
+            ? Samples.question(ThreadLocalRandom.current().nextInt(5))
+            : Samples.question((int) sequence.get()) + " (chat " + sequence.incrementAndGet() + ")";
+        
+        AtomicLong firstDelta = new AtomicLong();
+        CompletableFuture<AIResponse> future = stream
+            ? provider.streamMessage(message, history, delta -> firstDelta.compareAndSet(0, System.nanoTime()))
+            : provider.sendMessage(message, history);
+        return future.whenComplete((response, throwable) -> record(start, firstDelta.get(), response));
+    }
+    
+    private void record(long start, long firstDelta, AIResponse response) {
+        if (start - measureFrom < 0) {
+            return;
+        }
+        if (response == null || !response.isSuccess()) {
+            failures.get(response != null ? response.getErrorType() : AIResponse.ErrorType.UNKNOWN).increment();
+            return;
+        }
+        
+        latency.record(System.nanoTime() - start);
+        if (firstDelta != 0) {
+            firstText.record(firstDelta - start);
+        }
+        succeeded.increment();
+        tokens.add(response.getTokensUsed());
+        if (response.isCached()) {
+            cached.increment();
+        }
+    }
+    
+    private void report(MockLLMServer server, AIRequestExecutor requestExecutor, ResponseCache responseCache,
+                        MetricsRegistry metrics) {
+        long failed = 0;
+        StringJoiner failureTypes = new StringJoiner(", ");
+        for (Map.Entry<AIResponse.ErrorType, LongAdder> entry : failures.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                failed += count;
+                failureTypes.add(entry.getKey() + " " + count);
+            }
+        }
+        long ok = succeeded.sum();
+        long completed = ok + failed;
+        
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Chats         %d completed, %.1f/s%n", completed, (double) completed / durationSeconds);
+        System.out.printf(Locale.ROOT, "Succeeded     %d (%.2f%%), %d from cache%n",
+            ok, completed > 0 ? 100.0 * ok / completed : 0, cached.sum());
+        System.out.printf(Locale.ROOT, "Failed        %d%s%n", failed, failed > 0 ? " (" + failureTypes + ")" : "");
+        if (rate > 0) {
+            System.out.printf(Locale.ROOT, "Skipped       %d (in-flight limit reached)%n", skipped.sum());
+        }
+        System.out.printf(Locale.ROOT, "Tokens        %d, %.0f/s%n", tokens.sum(), (double) tokens.sum() / durationSeconds);
+        System.out.println("Latency ms    " + latency.summary());
+        if (stream) {
+            System.out.println("First text ms " + firstText.summary());
+        }
+        System.out.printf(Locale.ROOT, "Plugin        %d requests turned away by the executor, cache hit rate %.1f%%%n",
+            requestExecutor.getRejectedCount(), responseCache.getHitRate() * 100);
+        if (server != null) {
+            System.out.printf(Locale.ROOT, "Mock server   %d requests, %d throttled, %d failed, %d abandoned%n",
+                server.getRequests(), server.getThrottled(), server.getFailed(), server.getDisconnected());
+        }
+        
+        // The plugin's own stage timings, warm-up included
+        for (ProviderMetrics provider : metrics.getProviders()) {
+            System.out.println();
+            System.out.printf(Locale.ROOT, "Stages of %s (%s), ms%n", provider.getProvider(), provider.getModel());
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram.Snapshot snapshot = provider.getHistogram(stage).snapshot();
+                if (snapshot.getCount() > 0) {
+                    System.out.printf(Locale.ROOT, "  %-14s p50 %8.2f   p95 %8.2f   p99 %8.2f   max %8.2f%n",
+                        stage.getLabel(), snapshot.getPercentileMillis(0.50), snapshot.getPercentileMillis(0.95),
+                        snapshot.getPercentileMillis(0.99), snapshot.getMaxMillis());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package me.drendov.MOBChatBot.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How the mock server answers: how long replies take, how long they are, and how often requests fail
+ */
+public final class MockBehavior {
+    
+    /** Command line options read by {@link #fromOptions} */
+    public static final List<String> OPTIONS = Arrays.asList(
+        "first-token", "token-interval", "reply-tokens", "error-rate", "throttle-rate", "retry-after-ms");
+    
+    private final LatencyDistribution firstTokenLatency;
+    private final LatencyDistribution tokenInterval;
+    private final int replyTokens;
+    private final double errorRate;
+    private final double throttleRate;
+    private final long retryAfterMillis;
+    
+    /**
+     * @param firstTokenLatency Delay before the first token of a reply, standing in for queueing and prompt processing
+     * @param tokenInterval Delay between tokens of a reply; a full reply is sent once all of them have elapsed
+     * @param replyTokens Tokens in every reply, each about four characters
+     * @param errorRate Fraction of requests answered with a server error, 0 to 1
+     * @param throttleRate Fraction of requests answered with a rate limit error, 0 to 1
+     * @param retryAfterMillis Wait suggested with rate limit errors
+     */
+    public MockBehavior(LatencyDistribution firstTokenLatency, LatencyDistribution tokenInterval, int replyTokens,
+                        double errorRate, double throttleRate, long retryAfterMillis) {
+        if (replyTokens < 1) {
+            throw new IllegalArgumentException("Replies need at least one token");
+        }
+        if (errorRate < 0 || throttleRate < 0 || errorRate + throttleRate > 1) {
+            throw new IllegalArgumentException("Error and throttle rates must be between 0 and 1 together");
+        }
+        this.firstTokenLatency = firstTokenLatency;
+        this.tokenInterval = tokenInterval;
+        this.replyTokens = replyTokens;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+    
+    /**
+     * Replies that always take the same time and never fail
+     */
+    public static MockBehavior fixed(long latencyMillis, int replyTokens) {
+        return new MockBehavior(LatencyDistribution.fixed(latencyMillis), LatencyDistribution.ZERO, replyTokens, 0, 0, 0);
+    }
+    
+    /**
+     * Read the behavior from command line options
+     */
+    public static MockBehavior fromOptions(Options options) {
+        return new MockBehavior(
+            LatencyDistribution.parse(options.get("first-token", "lognormal:600,0.5")),
+            LatencyDistribution.parse(options.get("token-interval", "fixed:10")),
+            options.getInt("reply-tokens", 60),
+            options.getDouble("error-rate", 0),
+            options.getDouble("throttle-rate", 0),
+            options.getInt("retry-after-ms", 1000)
+        );
+    }
+    
+    public LatencyDistribution getFirstTokenLatency() {
+        return firstTokenLatency;
+    }
+    
+    public LatencyDistribution getTokenInterval() {
+        return tokenInterval;
+    }
+    
+    public int getReplyTokens() {
+        return replyTokens;
+    }
+    
+    public double getErrorRate() {
+        return errorRate;
+    }
+    
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+    
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "first token %s, token interval %s, %d reply tokens, %.1f%% errors, %.1f%% throttled",
+            firstTokenLatency, tokenInterval, replyTokens, errorRate * 100, throttleRate * 100);
+    }
+}
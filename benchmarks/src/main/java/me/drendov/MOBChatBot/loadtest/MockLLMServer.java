@@ -0,0 +1,433 @@
+package me.drendov.MOBChatBot.loadtest;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Local HTTP server that answers like the providers the plugin talks to, without calling a model
+ * Speaks OpenAI Chat Completions (with SSE streaming), the Bedrock InvokeModel API for Claude (with the
+ * binary event stream) and the Ollama chat API (with newline-delimited JSON streaming), so a provider only
+ * needs its URL pointed here. Replies take the time and fail as often as its {@link MockBehavior} says.
+ * Every request runs on its own virtual thread, so thousands of slow replies can be open at once.
+ */
+public final class MockLLMServer implements AutoCloseable {
+    
+    private static final String OPENAI_PATH = "/v1/chat/completions";
+    private static final String BEDROCK_PATH = "/model/";
+    private static final String OLLAMA_PATH = "/api/chat";
+    private static final int CHARS_PER_TOKEN = 4;
+    
+    // Headers every Bedrock stream chunk carries, in the event stream's binary header format
+    private static final byte[] BEDROCK_CHUNK_HEADERS = eventHeaders(
+        ":event-type", "chunk",
+        ":content-type", "application/json",
+        ":message-type", "event");
+    
+    static {
+        // Send streamed chunks at once instead of letting Nagle's algorithm batch them
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    private final MockBehavior behavior;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String reply;
+    
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    
+    /**
+     * Start a server on a free local port
+     */
+    public MockLLMServer(MockBehavior behavior) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), behavior);
+    }
+    
+    /**
+     * Start a server on the given address
+     */
+    public MockLLMServer(InetSocketAddress address, MockBehavior behavior) throws IOException {
+        this.behavior = behavior;
+        this.reply = Samples.text(behavior.getReplyTokens() * CHARS_PER_TOKEN);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 1024);
+        this.server.createContext(OPENAI_PATH, exchange -> handle(exchange, Protocol.OPENAI));
+        this.server.createContext(BEDROCK_PATH, exchange -> handle(exchange, Protocol.BEDROCK));
+        this.server.createContext(OLLAMA_PATH, exchange -> handle(exchange, Protocol.OLLAMA));
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+    
+    /**
+     * Address of the server, used as the Bedrock endpoint and the Ollama base URL
+     */
+    public String getBaseUrl() {
+        InetSocketAddress address = server.getAddress();
+        String host = address.getAddress().isAnyLocalAddress() ? "127.0.0.1" : address.getAddress().getHostAddress();
+        return "http://" + host + ":" + address.getPort();
+    }
+    
+    /**
+     * Address to send Chat Completions requests to
+     */
+    public String getOpenAIUrl() {
+        return getBaseUrl() + OPENAI_PATH;
+    }
+    
+    public MockBehavior getBehavior() {
+        return behavior;
+    }
+    
+    /**
+     * Get the number of chat requests received
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+    
+    /**
+     * Get the number of requests answered with a rate limit error
+     */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+    
+    /**
+     * Get the number of requests answered with a server error
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+    
+    /**
+     * Get the number of requests the client gave up on before the reply was sent, such as cancelled hedges
+     */
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+    
+    private enum Protocol {
+        OPENAI, BEDROCK, OLLAMA
+    }
+    
+    private void handle(HttpExchange exchange, Protocol protocol) {
+        try (exchange) {
+            // Connection checks such as the plugin's prewarm request are answered without counting
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            JsonObject json = parse(body);
+            if (json == null) {
+                sendJson(exchange, 400, errorBody(protocol, "Request body is not a JSON object"));
+                return;
+            }
+            // Ollama loads a model when asked to chat without messages
+            if (protocol == Protocol.OLLAMA && json.has("messages") && json.getAsJsonArray("messages").isEmpty()) {
+                sendJson(exchange, 200, "{\"model\":\"mock\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},"
+                    + "\"done_reason\":\"load\",\"done\":true}");
+                return;
+            }
+            requests.increment();
+            
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < behavior.getThrottleRate()) {
+                throttled.increment();
+                sendThrottled(exchange, protocol);
+                return;
+            }
+            if (roll < behavior.getThrottleRate() + behavior.getErrorRate()) {
+                failed.increment();
+                // Server errors usually arrive after the request has been waiting a while
+                sleep(behavior.getFirstTokenLatency().sample());
+                sendServerError(exchange, protocol);
+                return;
+            }
+            
+            int promptTokens = Math.max(1, body.length / CHARS_PER_TOKEN);
+            boolean stream = switch (protocol) {
+                case OPENAI -> json.has("stream") && json.get("stream").getAsBoolean();
+                case BEDROCK -> exchange.getRequestURI().getPath().endsWith("/invoke-with-response-stream");
+                // Ollama streams unless told not to
+                case OLLAMA -> !json.has("stream") || json.get("stream").getAsBoolean();
+            };
+            if (stream) {
+                sendStream(exchange, protocol, promptTokens);
+            } else {
+                sendReply(exchange, protocol, promptTokens);
+            }
+            
+        } catch (IOException e) {
+            // The client closed the connection, e.g. a cancelled request
+            disconnected.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static JsonObject parse(byte[] body) {
+        try {
+            JsonElement element = JsonParser.parseString(new String(body, StandardCharsets.UTF_8));
+            return element.isJsonObject() ? element.getAsJsonObject() : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Send the whole reply once every token has been generated
+     */
+    private void sendReply(HttpExchange exchange, Protocol protocol, int promptTokens)
+            throws IOException, InterruptedException {
+        long delay = behavior.getFirstTokenLatency().sample();
+        for (int i = 1; i < behavior.getReplyTokens(); i++) {
+            delay += behavior.getTokenInterval().sample();
+        }
+        sleep(delay);
+        
+        int replyTokens = behavior.getReplyTokens();
+        String response = switch (protocol) {
+            case OPENAI -> Samples.openAIResponse(reply, promptTokens, replyTokens);
+            case BEDROCK -> Samples.bedrockResponse(reply, promptTokens, replyTokens);
+            case OLLAMA -> ollamaChunk(reply, true, promptTokens, replyTokens);
+        };
+        sendJson(exchange, 200, response);
+    }
+    
+    /**
+     * Send the reply token by token as it would be generated
+     */
+    private void sendStream(HttpExchange exchange, Protocol protocol, int promptTokens)
+            throws IOException, InterruptedException {
+        Headers headers = exchange.getResponseHeaders();
+        switch (protocol) {
+            case OPENAI -> headers.set("Content-Type", "text/event-stream");
+            case BEDROCK -> {
+                headers.set("Content-Type", "application/vnd.amazon.eventstream");
+                headers.set("x-amzn-bedrock-content-type", "application/json");
+            }
+            case OLLAMA -> headers.set("Content-Type", "application/x-ndjson");
+        }
+        
+        sleep(behavior.getFirstTokenLatency().sample());
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int replyTokens = behavior.getReplyTokens();
+        
+        if (protocol == Protocol.BEDROCK) {
+            out.write(bedrockEvent("{\"type\":\"message_start\",\"message\":{\"role\":\"assistant\","
+                + "\"usage\":{\"input_tokens\":" + promptTokens + ",\"output_tokens\":1}}}"));
+            out.write(bedrockEvent("{\"type\":\"content_block_start\",\"index\":0,"
+                + "\"content_block\":{\"type\":\"text\",\"text\":\"\"}}"));
+        }
+        
+        for (int i = 0; i < replyTokens; i++) {
+            if (i > 0) {
+                sleep(behavior.getTokenInterval().sample());
+            }
+            String token = reply.substring(i * CHARS_PER_TOKEN, (i + 1) * CHARS_PER_TOKEN);
+            switch (protocol) {
+                case OPENAI -> out.write(sse(openAIChunk(token)));
+                case BEDROCK -> out.write(bedrockEvent("{\"type\":\"content_block_delta\",\"index\":0,"
+                    + "\"delta\":{\"type\":\"text_delta\",\"text\":" + quote(token) + "}}"));
+                case OLLAMA -> out.write(ndjson(ollamaChunk(token, false, 0, 0)));
+            }
+            out.flush();
+        }
+        
+        switch (protocol) {
+            case OPENAI -> {
+                out.write(sse("{\"object\":\"chat.completion.chunk\",\"choices\":[],\"usage\":{\"prompt_tokens\":"
+                    + promptTokens + ",\"completion_tokens\":" + replyTokens + ",\"total_tokens\":"
+                    + (promptTokens + replyTokens) + "}}"));
+                out.write(sse("[DONE]"));
+            }
+            case BEDROCK -> {
+                out.write(bedrockEvent("{\"type\":\"content_block_stop\",\"index\":0}"));
+                out.write(bedrockEvent("{\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"end_turn\"},"
+                    + "\"usage\":{\"output_tokens\":" + replyTokens + "}}"));
+                out.write(bedrockEvent("{\"type\":\"message_stop\"}"));
+            }
+            case OLLAMA -> out.write(ndjson(ollamaChunk("", true, promptTokens, replyTokens)));
+        }
+        out.close();
+    }
+    
+    private void sendThrottled(HttpExchange exchange, Protocol protocol) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        switch (protocol) {
+            case OPENAI -> {
+                headers.set("retry-after-ms", Long.toString(behavior.getRetryAfterMillis()));
+                headers.set("x-ratelimit-remaining-requests", "0");
+                sendJson(exchange, 429, "{\"error\":{\"message\":\"Rate limit reached for requests\","
+                    + "\"type\":\"requests\",\"code\":\"rate_limit_exceeded\"}}");
+            }
+            case BEDROCK -> {
+                headers.set("x-amzn-ErrorType", "ThrottlingException");
+                sendJson(exchange, 429, "{\"message\":\"Too many requests, please wait before trying again.\"}");
+            }
+            // Ollama turns requests away when its queue is full
+            case OLLAMA -> sendJson(exchange, 503, "{\"error\":\"server busy, please try again. "
+                + "maximum pending requests exceeded\"}");
+        }
+    }
+    
+    private void sendServerError(HttpExchange exchange, Protocol protocol) throws IOException {
+        if (protocol == Protocol.BEDROCK) {
+            exchange.getResponseHeaders().set("x-amzn-ErrorType", "InternalServerException");
+        }
+        sendJson(exchange, 500, errorBody(protocol, "The server had an error while processing your request."));
+    }
+    
+    private static String errorBody(Protocol protocol, String message) {
+        String text = quote(message);
+        return switch (protocol) {
+            case OPENAI -> "{\"error\":{\"message\":" + text + ",\"type\":\"server_error\"}}";
+            case BEDROCK -> "{\"message\":" + text + "}";
+            case OLLAMA -> "{\"error\":" + text + "}";
+        };
+    }
+    
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private static String openAIChunk(String token) {
+        return "{\"object\":\"chat.completion.chunk\",\"choices\":[{\"index\":0,\"delta\":{\"content\":"
+            + quote(token) + "},\"finish_reason\":null}]}";
+    }
+    
+    private static String ollamaChunk(String content, boolean done, int promptTokens, int replyTokens) {
+        String chunk = "{\"model\":\"mock\",\"message\":{\"role\":\"assistant\",\"content\":"
+            + quote(content) + "},\"done\":" + done;
+        if (done) {
+            chunk += ",\"done_reason\":\"stop\",\"prompt_eval_count\":" + promptTokens + ",\"eval_count\":" + replyTokens;
+        }
+        return chunk + "}";
+    }
+    
+    private static String quote(String text) {
+        return new JsonPrimitive(text).toString();
+    }
+    
+    private static byte[] sse(String data) {
+        return ("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] ndjson(String line) {
+        return (line + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Wrap one Claude stream event in an event stream message, the way Bedrock sends it
+     * Message layout: total length, headers length, prelude CRC, headers, payload, message CRC
+     */
+    private static byte[] bedrockEvent(String event) {
+        String encoded = Base64.getEncoder().encodeToString(event.getBytes(StandardCharsets.UTF_8));
+        byte[] payload = ("{\"bytes\":\"" + encoded + "\"}").getBytes(StandardCharsets.UTF_8);
+        
+        int length = 12 + BEDROCK_CHUNK_HEADERS.length + payload.length + 4;
+        ByteBuffer message = ByteBuffer.allocate(length);
+        message.putInt(length).putInt(BEDROCK_CHUNK_HEADERS.length);
+        message.putInt(crc(message.array(), 8));
+        message.put(BEDROCK_CHUNK_HEADERS).put(payload);
+        message.putInt(crc(message.array(), message.position()));
+        return message.array();
+    }
+    
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Encode string headers: name length, name, type 7 (string), value length, value
+     */
+    private static byte[] eventHeaders(String... namesAndValues) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            byte[] name = namesAndValues[i].getBytes(StandardCharsets.UTF_8);
+            byte[] value = namesAndValues[i + 1].getBytes(StandardCharsets.UTF_8);
+            out.write(name.length);
+            out.writeBytes(name);
+            out.write(7);
+            out.write(value.length >> 8);
+            out.write(value.length);
+            out.writeBytes(value);
+        }
+        return out.toByteArray();
+    }
+    
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Run the server on its own, e.g. to point a test server's config.yml at it
+     * Options: --host, --port, and the {@link MockBehavior#OPTIONS}
+     */
+    public static void main(String[] args) throws IOException {
+        Set<String> known = new HashSet<>(MockBehavior.OPTIONS);
+        known.add("host");
+        known.add("port");
+        Options options = Options.parse(args, known);
+        
+        MockBehavior behavior = MockBehavior.fromOptions(options);
+        InetSocketAddress address = new InetSocketAddress(options.get("host", "127.0.0.1"), options.getInt("port", 8089));
+        MockLLMServer server = new MockLLMServer(address, behavior);
+        
+        System.out.println("Mock LLM server listening on " + server.getBaseUrl());
+        System.out.println("  " + behavior);
+        System.out.println("  OpenAI:  ai-providers.openai.api-url: \"" + server.getOpenAIUrl() + "\"");
+        System.out.println("  Bedrock: ai-providers.bedrock.endpoint-url: \"" + server.getBaseUrl() + "\"");
+        System.out.println("  Ollama:  ai-providers.ollama.base-url: \"" + server.getBaseUrl() + "\"");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            System.out.println("Served " + server.getRequests() + " requests (" + server.getThrottled() + " throttled, "
+                + server.getFailed() + " failed, " + server.getDisconnected() + " abandoned)");
+        }));
+    }
+}
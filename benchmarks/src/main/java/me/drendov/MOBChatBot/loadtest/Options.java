@@ -0,0 +1,85 @@
+package me.drendov.MOBChatBot.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of the form --name=value
+ * An option may be repeated; a bare --name means true.
+ */
+public final class Options {
+    
+    private final Map<String, List<String>> values;
+    
+    private Options(Map<String, List<String>> values) {
+        this.values = values;
+    }
+    
+    /**
+     * Parse the arguments
+     * @param known Option names that are accepted
+     * @throws IllegalArgumentException If an argument is not an option or is not known
+     */
+    public static Options parse(String[] args, Set<String> known) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            String name = equals < 0 ? arg.substring(2) : arg.substring(2, equals);
+            String value = equals < 0 ? "true" : arg.substring(equals + 1);
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+            values.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return new Options(values);
+    }
+    
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+    
+    /**
+     * Get the last value given for an option
+     */
+    public String get(String name, String defaultValue) {
+        List<String> list = values.get(name);
+        return list != null ? list.get(list.size() - 1) : defaultValue;
+    }
+    
+    /**
+     * Get every value given for a repeated option, in order
+     */
+    public List<String> getAll(String name) {
+        return values.getOrDefault(name, Collections.emptyList());
+    }
+    
+    public int getInt(String name, int defaultValue) {
+        String value = get(name, null);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a whole number: " + value);
+        }
+    }
+    
+    public double getDouble(String name, double defaultValue) {
+        String value = get(name, null);
+        try {
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
+    
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = get(name, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
@@ -0,0 +1,61 @@
+package me.drendov.MOBChatBot.utils;
+
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting a reply for chat, and splitting a streamed reply into sentence-sized chat messages
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageFormattingBenchmark {
+    
+    /** Streamed deltas are about one token, roughly four characters */
+    private static final int DELTA_CHARS = 4;
+    
+    @Param({"600", "2400"})
+    public int replyChars;
+    
+    private String reply;
+    private String[] deltas;
+    
+    @Setup
+    public void setUp() {
+        reply = Samples.text(replyChars);
+        deltas = new String[(reply.length() + DELTA_CHARS - 1) / DELTA_CHARS];
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = reply.substring(i * DELTA_CHARS, Math.min(reply.length(), (i + 1) * DELTA_CHARS));
+        }
+    }
+    
+    @Benchmark
+    public String formatReply() {
+        return MessageUtils.formatAIResponse(reply);
+    }
+    
+    @Benchmark
+    public void chunkStreamedReply(Blackhole blackhole) {
+        SentenceChunker chunker = new SentenceChunker(chunk -> blackhole.consume(MessageUtils.formatAIResponse(chunk)));
+        for (String delta : deltas) {
+            chunker.append(delta);
+        }
+        chunker.flush();
+    }
+}
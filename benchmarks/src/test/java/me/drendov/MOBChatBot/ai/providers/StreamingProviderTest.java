@@ -0,0 +1,125 @@
+package me.drendov.MOBChatBot.ai.providers;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.benchmarks.BenchmarkConfig;
+import me.drendov.MOBChatBot.benchmarks.Samples;
+import me.drendov.MOBChatBot.loadtest.LatencyDistribution;
+import me.drendov.MOBChatBot.loadtest.MockBehavior;
+import me.drendov.MOBChatBot.loadtest.MockLLMServer;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OpenAI and Ollama streaming against the local mock server
+ */
+class StreamingProviderTest {
+    
+    private static final int REPLY_TOKENS = 20;
+    private static final String REPLY = Samples.text(REPLY_TOKENS * 4);
+    
+    private AIRequestExecutor executor;
+    private HttpClientManager httpClients;
+    private MockLLMServer server;
+    private AIProvider provider;
+    
+    @BeforeEach
+    void setUp() {
+        BenchmarkConfig config = new BenchmarkConfig();
+        executor = new AIRequestExecutor(BenchmarkConfig.logger(), config);
+        httpClients = new HttpClientManager(BenchmarkConfig.logger(), config);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.shutdown();
+        }
+        if (server != null) {
+            server.close();
+        }
+        httpClients.shutdown();
+        executor.shutdown();
+    }
+    
+    @Test
+    void openAIStreamsEveryDelta() throws Exception {
+        provider = openAI(MockBehavior.fixed(0, REPLY_TOKENS));
+        assertStreamsWholeReply();
+    }
+    
+    @Test
+    void ollamaStreamsEveryDelta() throws Exception {
+        provider = ollama(MockBehavior.fixed(0, REPLY_TOKENS));
+        assertStreamsWholeReply();
+    }
+    
+    @Test
+    void openAIReportsServerErrors() throws Exception {
+        provider = openAI(failing());
+        assertStreamFails();
+    }
+    
+    @Test
+    void ollamaReportsServerErrors() throws Exception {
+        provider = ollama(failing());
+        assertStreamFails();
+    }
+    
+    private void assertStreamsWholeReply() throws Exception {
+        List<String> deltas = new CopyOnWriteArrayList<>();
+        AIResponse response = provider.streamMessage(Samples.question(0), Samples.history(4), deltas::add)
+            .get(10, TimeUnit.SECONDS);
+        
+        assertTrue(response.isSuccess(), response.getErrorMessage());
+        assertEquals(REPLY, response.getContent());
+        assertEquals(REPLY, String.join("", deltas));
+        assertEquals(REPLY_TOKENS, deltas.size());
+        assertTrue(response.getTokensUsed() > REPLY_TOKENS);
+    }
+    
+    private void assertStreamFails() throws Exception {
+        List<String> deltas = new CopyOnWriteArrayList<>();
+        AIResponse response = provider.streamMessage(Samples.question(0), Samples.history(4), deltas::add)
+            .get(10, TimeUnit.SECONDS);
+        
+        assertFalse(response.isSuccess());
+        assertTrue(deltas.isEmpty());
+        assertEquals(1, server.getFailed());
+    }
+    
+    private static MockBehavior failing() {
+        return new MockBehavior(LatencyDistribution.ZERO, LatencyDistribution.ZERO, REPLY_TOKENS, 1, 0, 0);
+    }
+    
+    private AIProvider openAI(MockBehavior behavior) throws IOException {
+        server = new MockLLMServer(behavior);
+        OpenAIProvider openAI = new OpenAIProvider(BenchmarkConfig.logger(), executor, httpClients, new MetricsRegistry(),
+                server.getOpenAIUrl(),
+                "test-key", "gpt-3.5-turbo", 150, 16, 16, 5, 30, 60);
+        assertTrue(openAI.initialize());
+        return openAI;
+    }
+    
+    private AIProvider ollama(MockBehavior behavior) throws IOException {
+        server = new MockLLMServer(behavior);
+        OllamaProvider ollama = new OllamaProvider(BenchmarkConfig.logger(), executor, httpClients, new MetricsRegistry(),
+                server.getBaseUrl(),
+                "llama3", 150, "30m", 16, 5, 30, 60);
+        assertTrue(ollama.initialize());
+        return ollama;
+    }
+}
@@ -2,11 +2,35 @@ package me.drendov.MOBChatBot;
 
 import me.drendov.MOBChatBot.ai.AIProvider;
 import me.drendov.MOBChatBot.ai.AIProviderFactory;
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
+import me.drendov.MOBChatBot.ai.ConversationManager;
+import me.drendov.MOBChatBot.ai.ConversationSummarizer;
+import me.drendov.MOBChatBot.ai.DrainableProvider;
+import me.drendov.MOBChatBot.ai.admission.AdmissionController;
+import me.drendov.MOBChatBot.ai.cache.RequestCoalescer;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.ai.resilience.CircuitBreakerRegistry;
+import me.drendov.MOBChatBot.ai.resilience.RetryBudget;
+import me.drendov.MOBChatBot.ai.cache.ResponseCache;
+import me.drendov.MOBChatBot.commands.CacheCommand;
 import me.drendov.MOBChatBot.commands.ChatCommand;
+import me.drendov.MOBChatBot.commands.MetricsCommand;
+import me.drendov.MOBChatBot.commands.ProvidersCommand;
 import me.drendov.MOBChatBot.commands.ReloadCommand;
+import me.drendov.MOBChatBot.commands.StatsCommand;
 import me.drendov.MOBChatBot.config.ConfigManager;
+import me.drendov.MOBChatBot.listeners.PlayerQuitListener;
+import me.drendov.MOBChatBot.metrics.ChatStats;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import me.drendov.MOBChatBot.metrics.PrometheusExporter;
+import me.drendov.MOBChatBot.ratelimit.PlayerRateLimiter;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Main plugin class for MOBChatBot
  * Provides AI-powered chat conversations for Minecraft players
@@ -14,7 +38,23 @@ import org.bukkit.plugin.java.JavaPlugin;
 public class MOBChatBot extends JavaPlugin {
     
     private ConfigManager configManager;
-    private AIProvider aiProvider;
+    private AIRequestExecutor requestExecutor;
+    private ConversationManager conversationManager;
+    private ResponseCache responseCache;
+    private RequestCoalescer requestCoalescer;
+    private PlayerRateLimiter rateLimiter;
+    private AdmissionController admissionController;
+    private RetryBudget retryBudget;
+    private RetryBudget hedgeBudget;
+    private CircuitBreakerRegistry circuitBreakers;
+    private HttpClientManager httpClients;
+    private AIProviderFactory providerFactory;
+    private MetricsRegistry metrics;
+    private ChatStats chatStats;
+    private PrometheusExporter metricsExporter;
+    private volatile DrainableProvider aiProvider;
+    // Replaced providers still finishing their requests, with the backends to close after them
+    private final Map<DrainableProvider, List<AIProvider>> draining = new ConcurrentHashMap<>();
 
     @Override
     public void onEnable() {
@@ -27,12 +67,51 @@ public class MOBChatBot extends JavaPlugin {
         configManager = new ConfigManager(this);
         configManager.loadConfig();
         
+        // Initialize request execution before any provider can use it
+        requestExecutor = new AIRequestExecutor(getLogger(), configManager);
+        
+        // Initialize conversation history
+        conversationManager = new ConversationManager(
+            configManager,
+            new ConversationSummarizer(() -> providerFactory != null ? providerFactory.getBackgroundProvider() : null)
+        );
+        
+        // Initialize per-player rate limits
+        rateLimiter = new PlayerRateLimiter(configManager);
+        
+        // Initialize response cache
+        responseCache = new ResponseCache(getLogger(), new File(getDataFolder(), "cache"), configManager);
+        requestCoalescer = new RequestCoalescer();
+        
+        // Initialize provider admission control
+        admissionController = new AdmissionController(getLogger(), configManager, requestExecutor.getScheduler());
+        retryBudget = new RetryBudget(configManager.getRetryBudgetRatio(), configManager.getRetryBudgetMinPerSecond());
+        hedgeBudget = new RetryBudget(configManager.getHedgingMaxRatio(), 0);
+        circuitBreakers = new CircuitBreakerRegistry(getLogger(), configManager);
+        
+        // Initialize the shared HTTP connection pool
+        httpClients = new HttpClientManager(getLogger(), configManager);
+        
+        // Initialize metrics before the providers that record them
+        metrics = new MetricsRegistry();
+        chatStats = new ChatStats();
+        registerGauges();
+        metricsExporter = new PrometheusExporter(getLogger(), metrics, getDataFolder(), configManager);
+        
         // Initialize AI provider
+        providerFactory = new AIProviderFactory(getLogger(), configManager, requestExecutor, httpClients,
+                responseCache, requestCoalescer, admissionController, retryBudget, hedgeBudget, circuitBreakers, metrics);
         initializeAIProvider();
         
         // Register commands
         registerCommands();
         
+        // Register listeners
+        registerListeners();
+        
+        // Start background maintenance
+        scheduleTasks();
+        
         getLogger().info("MOBChatBot has been enabled successfully!");
     }
 
@@ -42,11 +121,38 @@ public class MOBChatBot extends JavaPlugin {
         getLogger().info("MOBChatBot is shutting down...");
         getLogger().info("========================================");
         
-        // Cleanup AI provider connections
+        // Stop publishing metrics
+        if (metricsExporter != null) {
+            metricsExporter.shutdown();
+        }
+        
+        // Requests still waiting for admission will not be sent
+        if (admissionController != null) {
+            admissionController.shutdown();
+        }
+        
+        // Let accepted requests finish before closing provider connections
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+        
+        // Cleanup AI provider connections, including those of providers replaced by a reload
         if (aiProvider != null) {
             aiProvider.shutdown();
             aiProvider = null;
         }
+        for (List<AIProvider> backends : draining.values()) {
+            backends.forEach(AIProvider::shutdown);
+        }
+        draining.clear();
+        if (httpClients != null) {
+            httpClients.shutdown();
+        }
+        
+        // Flush pending writes to the persistent cache
+        if (responseCache != null) {
+            responseCache.shutdown();
+        }
         
         getLogger().info("MOBChatBot has been disabled successfully!");
     }
@@ -55,8 +161,7 @@ public class MOBChatBot extends JavaPlugin {
      * Initialize the AI provider based on configuration
      */
     private void initializeAIProvider() {
-        AIProviderFactory factory = new AIProviderFactory(getLogger(), configManager);
-        aiProvider = factory.createProvider();
+        aiProvider = providerFactory.createProvider();
         
         if (aiProvider != null) {
             getLogger().info("AI Provider initialized: " + aiProvider.getProviderName());
@@ -68,16 +173,89 @@ public class MOBChatBot extends JavaPlugin {
     
     /**
      * Reinitialize the AI provider (used after config reload)
+     * The new provider is built before the old one is replaced, and the old one keeps serving the requests it
+     * already accepted until they finish or the shutdown timeout passes. Backends whose settings did not change
+     * are shared by both, keeping their open connections.
      */
     public void reinitializeAIProvider() {
-        // Shutdown existing provider
-        if (aiProvider != null) {
-            aiProvider.shutdown();
-            aiProvider = null;
+        // Apply reloaded limits
+        requestExecutor.configure(configManager);
+        conversationManager.configure(configManager);
+        rateLimiter.configure(configManager);
+        admissionController.configure(configManager);
+        retryBudget.configure(configManager.getRetryBudgetRatio(), configManager.getRetryBudgetMinPerSecond());
+        hedgeBudget.configure(configManager.getHedgingMaxRatio(), 0);
+        circuitBreakers.configure(configManager);
+        httpClients.configure(configManager);
+        responseCache.configure(configManager);
+        metricsExporter.configure(configManager);
+        
+        // Build the new provider before touching the old one
+        DrainableProvider previous = aiProvider;
+        DrainableProvider replacement = providerFactory.createProvider();
+        if (replacement == null) {
+            if (previous != null) {
+                getLogger().severe("Failed to initialize any AI provider! Keeping the previous provider.");
+            } else {
+                getLogger().severe("Failed to initialize any AI provider!");
+                getLogger().severe("Please check your configuration and enable at least one provider.");
+            }
+            return;
         }
+        aiProvider = replacement;
+        getLogger().info("AI Provider initialized: " + replacement.getProviderName());
         
-        // Initialize new provider
-        initializeAIProvider();
+        // Close the backends the new provider no longer uses once the old one has drained
+        List<AIProvider> retired = providerFactory.takeRetiredBackends();
+        if (previous == null) {
+            retired.forEach(AIProvider::shutdown);
+            return;
+        }
+        draining.put(previous, retired);
+        previous.awaitIdle(configManager.getShutdownTimeoutSeconds(), requestExecutor.getScheduler())
+            .thenAccept(idle -> {
+                if (!idle) {
+                    getLogger().warning("Previous AI provider still had " + previous.getInFlight() +
+                        " requests in flight after " + configManager.getShutdownTimeoutSeconds() + "s; closing it anyway");
+                }
+                List<AIProvider> backends = draining.remove(previous);
+                if (backends != null) {
+                    backends.forEach(AIProvider::shutdown);
+                }
+            });
+    }
+    
+    /**
+     * Expose the state of other services as metrics; they are read only when metrics are exported
+     */
+    private void registerGauges() {
+        metrics.registerCounter("mobchatbot_cache_hits_total", "Requests answered from the response cache",
+            responseCache::getHits);
+        metrics.registerCounter("mobchatbot_cache_disk_hits_total", "Cache hits served from the persistent tier",
+            responseCache::getDiskHits);
+        metrics.registerCounter("mobchatbot_cache_misses_total", "Cacheable requests not found in the cache",
+            responseCache::getMisses);
+        metrics.registerCounter("mobchatbot_cache_evictions_total", "Entries evicted from the response cache",
+            responseCache::getEvictions);
+        metrics.registerGauge("mobchatbot_cache_hit_ratio", "Fraction of cacheable requests answered from the cache",
+            responseCache::getHitRate);
+        metrics.registerGauge("mobchatbot_cache_entries", "Responses held in memory by the cache",
+            responseCache::size);
+        metrics.registerCounter("mobchatbot_coalesced_requests_total", "Requests that shared another request's upstream call",
+            requestCoalescer::getDeduplicatedCount);
+        metrics.registerGauge("mobchatbot_requests_in_flight", "Chat requests started and not yet answered",
+            () -> {
+                DrainableProvider provider = aiProvider;
+                return provider != null ? provider.getInFlight() : 0;
+            });
+        metrics.registerGauge("mobchatbot_executor_queued_requests", "Requests waiting for a free provider slot",
+            requestExecutor::getQueueDepth);
+        metrics.registerGauge("mobchatbot_executor_active_calls", "Provider calls currently running",
+            requestExecutor::getActiveCalls);
+        metrics.registerCounter("mobchatbot_executor_rejected_total", "Requests turned away because the queue was full",
+            requestExecutor::getRejectedCount);
+        metrics.registerGauge("mobchatbot_admission_queued_requests", "Requests waiting for provider admission",
+            admissionController::getQueueDepth);
     }
     
     /**
@@ -86,9 +264,40 @@ public class MOBChatBot extends JavaPlugin {
     private void registerCommands() {
         getCommand("mobchat").setExecutor(new ChatCommand(this));
         getCommand("mobchatreload").setExecutor(new ReloadCommand(this));
+        getCommand("mobchatcache").setExecutor(new CacheCommand(this));
+        getCommand("mobchatproviders").setExecutor(new ProvidersCommand(this));
+        getCommand("mobchatmetrics").setExecutor(new MetricsCommand(this));
+        getCommand("mobchatstats").setExecutor(new StatsCommand(this));
         getLogger().info("Commands registered successfully");
     }
     
+    /**
+     * Register all plugin event listeners
+     */
+    private void registerListeners() {
+        getServer().getPluginManager().registerEvents(new PlayerQuitListener(this), this);
+    }
+    
+    /**
+     * Schedule periodic background tasks
+     */
+    private void scheduleTasks() {
+        // Sweep idle conversations, rate limit entries and idle players' stats once a minute (1200 ticks)
+        getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+            int evicted = conversationManager.evictIdle();
+            if (evicted > 0) {
+                getLogger().fine("Evicted " + evicted + " idle conversations");
+            }
+            
+            int swept = rateLimiter.sweep();
+            if (swept > 0) {
+                getLogger().fine("Swept " + swept + " inactive rate limit entries");
+            }
+            
+            chatStats.sweep();
+        }, 1200L, 1200L);
+    }
+    
     /**
      * Get the configuration manager
      */
@@ -96,6 +305,83 @@ public class MOBChatBot extends JavaPlugin {
         return configManager;
     }
     
+    /**
+     * Get the AI request executor
+     */
+    public AIRequestExecutor getRequestExecutor() {
+        return requestExecutor;
+    }
+    
+    /**
+     * Get the conversation manager
+     */
+    public ConversationManager getConversationManager() {
+        return conversationManager;
+    }
+    
+    /**
+     * Get the per-player rate limiter
+     */
+    public PlayerRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
+    /**
+     * Get the provider admission controller
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+    
+    /**
+     * Get the shared retry budget
+     */
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+    
+    /**
+     * Get the per-provider circuit breakers
+     */
+    public CircuitBreakerRegistry getCircuitBreakers() {
+        return circuitBreakers;
+    }
+    
+    /**
+     * Get the response cache
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+    
+    /**
+     * Get the in-flight request coalescer
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+    
+    /**
+     * Get the metrics registry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Get the rolling chat statistics
+     */
+    public ChatStats getChatStats() {
+        return chatStats;
+    }
+    
+    /**
+     * Get the Prometheus metrics exporter
+     */
+    public PrometheusExporter getMetricsExporter() {
+        return metricsExporter;
+    }
+    
     /**
      * Get the AI provider
      */
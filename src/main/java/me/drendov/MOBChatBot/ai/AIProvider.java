@@ -2,6 +2,7 @@ package me.drendov.MOBChatBot.ai;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Interface for AI providers
@@ -17,6 +18,24 @@ public interface AIProvider {
      */
     CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory);
     
+    /**
+     * Send a message to the AI and receive the response text as it is generated
+     * Providers without native streaming deliver the whole response as a single delta
+     * @param message The user's message
+     * @param conversationHistory Previous messages in the conversation
+     * @param onDelta Called with each new piece of text, in order, on the provider's response thread
+     * @return CompletableFuture containing the complete response once the stream has ended
+     */
+    default CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                        Consumer<String> onDelta) {
+        return sendMessage(message, conversationHistory).thenApply(response -> {
+            if (response.isSuccess()) {
+                onDelta.accept(response.getContent());
+            }
+            return response;
+        });
+    }
+    
     /**
      * Check if the provider is properly configured
      * @return true if all required configuration is present and valid
@@ -29,6 +48,18 @@ public interface AIProvider {
      */
     String getProviderName();
     
+    /**
+     * Get the model requests are sent to
+     * @return Model identifier (e.g., "gpt-3.5-turbo")
+     */
+    String getModelName();
+    
+    /**
+     * Get the system prompt sent with every request
+     * @return The system prompt text
+     */
+    String getSystemPrompt();
+    
     /**
      * Initialize the provider with configuration
      * @return true if initialization was successful
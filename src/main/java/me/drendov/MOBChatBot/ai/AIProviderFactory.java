@@ -1,87 +1,317 @@
 package me.drendov.MOBChatBot.ai;
 
+import me.drendov.MOBChatBot.ai.admission.AdmissionControlledProvider;
+import me.drendov.MOBChatBot.ai.admission.AdmissionController;
+import me.drendov.MOBChatBot.ai.cache.CachingProvider;
+import me.drendov.MOBChatBot.ai.cache.CoalescingProvider;
+import me.drendov.MOBChatBot.ai.cache.RequestCoalescer;
+import me.drendov.MOBChatBot.ai.cache.ResponseCache;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
 import me.drendov.MOBChatBot.ai.providers.BedrockProvider;
+import me.drendov.MOBChatBot.ai.providers.OllamaProvider;
+import me.drendov.MOBChatBot.ai.resilience.CircuitBreakerRegistry;
+import me.drendov.MOBChatBot.ai.resilience.CircuitBreakingProvider;
+import me.drendov.MOBChatBot.ai.resilience.HedgingProvider;
+import me.drendov.MOBChatBot.ai.resilience.RetryBudget;
+import me.drendov.MOBChatBot.ai.resilience.RetryingProvider;
 import me.drendov.MOBChatBot.ai.providers.OpenAIProvider;
+import me.drendov.MOBChatBot.ai.routing.ProviderEndpoint;
+import me.drendov.MOBChatBot.ai.routing.RoutingPolicy;
+import me.drendov.MOBChatBot.ai.routing.RoutingProvider;
 import me.drendov.MOBChatBot.config.ConfigManager;
+import me.drendov.MOBChatBot.metrics.MeteredProvider;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
  * Factory class for creating AI provider instances based on configuration
+ * Lives as long as the plugin and keeps the backends it built, so a reload can reuse their connections
  */
 public class AIProviderFactory {
     
     private final Logger logger;
     private final ConfigManager configManager;
+    private final AIRequestExecutor requestExecutor;
+    private final HttpClientManager httpClients;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final AdmissionController admissionController;
+    private final RetryBudget retryBudget;
+    private final RetryBudget hedgeBudget;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final MetricsRegistry metrics;
     
-    public AIProviderFactory(Logger logger, ConfigManager configManager) {
+    // Backends behind the current provider by name, and backends waiting to be closed
+    private final Map<String, Backend> backends = new LinkedHashMap<>();
+    private final List<AIProvider> retired = new ArrayList<>();
+    // Sends background work to the current backends
+    private volatile AIProvider backgroundProvider;
+    
+    public AIProviderFactory(Logger logger, ConfigManager configManager, AIRequestExecutor requestExecutor,
+                             HttpClientManager httpClients, ResponseCache responseCache, RequestCoalescer requestCoalescer,
+                             AdmissionController admissionController, RetryBudget retryBudget,
+                             RetryBudget hedgeBudget, CircuitBreakerRegistry circuitBreakers, MetricsRegistry metrics) {
         this.logger = logger;
         this.configManager = configManager;
+        this.requestExecutor = requestExecutor;
+        this.httpClients = httpClients;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.admissionController = admissionController;
+        this.retryBudget = retryBudget;
+        this.hedgeBudget = hedgeBudget;
+        this.circuitBreakers = circuitBreakers;
+        this.metrics = metrics;
     }
     
     /**
      * Create and initialize the appropriate AI provider based on configuration
+     * When several providers are enabled, requests are routed between them
+     * Backends whose settings are unchanged since the last call are reused; if nothing can be initialized,
+     * the previous backends are left as they were
      * @return Initialized AIProvider instance, or null if no provider is enabled/configured
      */
-    public AIProvider createProvider() {
-        // Try OpenAI first
+    public DrainableProvider createProvider() {
+        Map<String, Backend> created = createBackendProviders();
+        if (created.isEmpty()) {
+            logger.severe("No AI provider could be initialized!");
+            return null;
+        }
+        
+        // Backends not carried over are closed by the caller once the old provider has drained
+        for (Backend previous : backends.values()) {
+            if (!created.containsValue(previous)) {
+                retired.add(previous.provider);
+            }
+        }
+        backends.clear();
+        backends.putAll(created);
+        
+        // Pace requests to what each provider will accept, and fail fast while a provider is down;
+        // metering sits outside both so requests they turn away are counted too
+        List<ProviderEndpoint> endpoints = new ArrayList<>();
+        for (Backend entry : backends.values()) {
+            AIProvider backend = entry.provider;
+            String name = backend.getProviderName();
+            endpoints.add(new ProviderEndpoint(
+                new MeteredProvider(
+                    new CircuitBreakingProvider(
+                        new AdmissionControlledProvider(backend, admissionController),
+                        circuitBreakers.get(name),
+                        configManager
+                    ),
+                    metrics
+                ),
+                configManager.getRoutingPriority(name),
+                configManager.getRoutingWeight(name)
+            ));
+        }
+        
+        // Background work such as summaries goes to the metered backends directly: no retries or hedging,
+        // and only when a backend has capacity to spare
+        List<ProviderEndpoint> byPriority = new ArrayList<>(endpoints);
+        byPriority.sort(Comparator.comparingInt(ProviderEndpoint::getPriority));
+        List<AIProvider> backgroundBackends = new ArrayList<>();
+        for (ProviderEndpoint endpoint : byPriority) {
+            backgroundBackends.add(endpoint.getProvider());
+        }
+        backgroundProvider = new BackgroundProvider(backgroundBackends, requestExecutor, admissionController);
+        
+        // Race a second copy of unusually slow requests, preferably on another provider
+        AIProvider provider;
+        AIProvider hedgeTarget;
+        if (endpoints.size() == 1) {
+            provider = endpoints.get(0).getProvider();
+            hedgeTarget = provider;
+        } else {
+            RoutingProvider router = new RoutingProvider(endpoints,
+                RoutingPolicy.forName(configManager.getRoutingPolicy()), configManager, logger);
+            logger.info("Routing between " + router.getProviderName() + " (" + configManager.getRoutingPolicy() + ")");
+            provider = router;
+            hedgeTarget = router.leastLoadedView();
+        }
+        provider = new HedgingProvider(provider, hedgeTarget, configManager, hedgeBudget, retryBudget,
+                requestExecutor.getScheduler(), logger);
+        
+        // Retry transient failures; retries go back through admission control
+        provider = new RetryingProvider(provider, configManager, retryBudget, requestExecutor.getScheduler(), logger);
+        
+        // Share one upstream call between identical questions asked at the same time,
+        // and answer repeated context-free questions without a network call
+        provider = new CoalescingProvider(provider, requestCoalescer);
+        provider = new CachingProvider(provider, responseCache);
+        
+        // Count requests in flight so the provider can be drained when it is replaced
+        return new DrainableProvider(provider);
+    }
+    
+    /**
+     * Create and initialize every backend provider that is enabled and configured
+     * A backend from the previous call is reused when its settings have not changed, keeping its connections
+     * @return The backends by name, or an empty map if none could be initialized
+     */
+    private Map<String, Backend> createBackendProviders() {
+        Map<String, Backend> created = new LinkedHashMap<>();
+        
         if (configManager.isOpenAIEnabled()) {
-            logger.info("Creating OpenAI provider...");
-            OpenAIProvider provider = new OpenAIProvider(
+            addBackend(created, "OpenAI", Arrays.asList(
+                configManager.getOpenAIApiUrl(),
+                configManager.getOpenAIApiKey(),
+                configManager.getOpenAIModel(),
+                configManager.getOpenAIMaxTokens(),
+                configManager.getOpenAIMaxRequests(),
+                configManager.getOpenAIMaxRequestsPerHost(),
+                configManager.getOpenAIConnectTimeoutSeconds(),
+                configManager.getOpenAIReadTimeoutSeconds(),
+                configManager.getOpenAICallTimeoutSeconds(),
+                httpClients.getConnectionPool()
+            ), () -> new OpenAIProvider(
                 logger,
+                requestExecutor,
+                httpClients,
+                metrics,
+                configManager.getOpenAIApiUrl(),
                 configManager.getOpenAIApiKey(),
                 configManager.getOpenAIModel(),
-                configManager.getOpenAIMaxTokens()
-            );
-            
-            if (provider.initialize()) {
-                return provider;
-            } else {
-                logger.warning("OpenAI provider failed to initialize");
-            }
+                configManager.getOpenAIMaxTokens(),
+                configManager.getOpenAIMaxRequests(),
+                configManager.getOpenAIMaxRequestsPerHost(),
+                configManager.getOpenAIConnectTimeoutSeconds(),
+                configManager.getOpenAIReadTimeoutSeconds(),
+                configManager.getOpenAICallTimeoutSeconds()
+            ));
         }
         
-        // Try Bedrock
         if (configManager.isBedrockEnabled()) {
-            logger.info("Creating Bedrock provider...");
-            BedrockProvider provider = new BedrockProvider(
+            addBackend(created, "Bedrock", Arrays.asList(
+                configManager.getBedrockRegion(),
+                configManager.getBedrockEndpointUrl(),
+                configManager.getBedrockAccessKey(),
+                configManager.getBedrockSecretKey(),
+                configManager.getBedrockModel(),
+                configManager.getBedrockMaxConcurrency(),
+                configManager.getBedrockConnectionAcquisitionTimeoutSeconds(),
+                configManager.getBedrockConnectionTtlSeconds()
+            ), () -> new BedrockProvider(
                 logger,
+                requestExecutor,
+                metrics,
                 configManager.getBedrockRegion(),
+                configManager.getBedrockEndpointUrl(),
                 configManager.getBedrockAccessKey(),
                 configManager.getBedrockSecretKey(),
-                configManager.getBedrockModel()
-            );
-            
-            if (provider.initialize()) {
-                return provider;
-            } else {
-                logger.warning("Bedrock provider failed to initialize");
-            }
+                configManager.getBedrockModel(),
+                configManager.getBedrockMaxConcurrency(),
+                configManager.getBedrockConnectionAcquisitionTimeoutSeconds(),
+                configManager.getBedrockConnectionTtlSeconds()
+            ));
         }
         
-        // Try Ollama (future implementation)
         if (configManager.isOllamaEnabled()) {
-            logger.warning("Ollama provider is not yet implemented");
+            addBackend(created, "Ollama", Arrays.asList(
+                configManager.getOllamaBaseUrl(),
+                configManager.getOllamaModel(),
+                configManager.getOllamaMaxTokens(),
+                configManager.getOllamaKeepAlive(),
+                configManager.getMaxConcurrentRequests("Ollama"),
+                configManager.getOllamaConnectTimeoutSeconds(),
+                configManager.getOllamaRequestTimeoutSeconds(),
+                configManager.getOllamaCallTimeoutSeconds(),
+                httpClients.getConnectionPool()
+            ), () -> new OllamaProvider(
+                logger,
+                requestExecutor,
+                httpClients,
+                metrics,
+                configManager.getOllamaBaseUrl(),
+                configManager.getOllamaModel(),
+                configManager.getOllamaMaxTokens(),
+                configManager.getOllamaKeepAlive(),
+                configManager.getMaxConcurrentRequests("Ollama"),
+                configManager.getOllamaConnectTimeoutSeconds(),
+                configManager.getOllamaRequestTimeoutSeconds(),
+                configManager.getOllamaCallTimeoutSeconds()
+            ));
+        }
+        
+        return created;
+    }
+    
+    /**
+     * Reuse the current backend if it was built from the same settings, otherwise create and initialize a new one
+     * HTTP backends list the shared connection pool among their settings, so they are rebuilt when it is replaced
+     */
+    private void addBackend(Map<String, Backend> created, String name, List<Object> settings, Supplier<AIProvider> factory) {
+        Backend current = backends.get(name);
+        if (current != null && current.settings.equals(settings)) {
+            logger.info("Reusing " + name + " provider; its settings are unchanged");
+            created.put(name, current);
+            return;
         }
         
-        logger.severe("No AI provider could be initialized!");
-        return null;
+        logger.info("Creating " + name + " provider...");
+        AIProvider provider = factory.get();
+        if (provider.initialize()) {
+            created.put(name, new Backend(settings, provider));
+        } else {
+            logger.warning(name + " provider failed to initialize");
+        }
+    }
+    
+    /**
+     * Take the backends the last {@link #createProvider} call replaced or dropped
+     * They may still be serving requests through the previous provider, so close them once it has drained
+     */
+    public List<AIProvider> takeRetiredBackends() {
+        List<AIProvider> taken = new ArrayList<>(retired);
+        retired.clear();
+        return taken;
+    }
+    
+    /**
+     * Get the provider for background work over the backends of the last {@link #createProvider} call
+     * @return The background provider, or null if no provider has been created yet
+     */
+    public AIProvider getBackgroundProvider() {
+        return backgroundProvider;
     }
     
     /**
-     * Get the name of the provider that would be created
-     * @return Provider name or "None" if no provider is available
+     * Get the name of the providers that would be created
+     * @return Provider names joined with "+", or "None" if no provider is available
      */
     public String getAvailableProviderName() {
+        List<String> names = new ArrayList<>();
         if (configManager.isOpenAIEnabled()) {
-            return "OpenAI";
+            names.add("OpenAI");
         }
         if (configManager.isBedrockEnabled()) {
-            return "Bedrock";
+            names.add("Bedrock");
         }
         if (configManager.isOllamaEnabled()) {
-            return "Ollama (not implemented)";
+            names.add("Ollama");
+        }
+        return names.isEmpty() ? "None" : String.join("+", names);
+    }
+    
+    /**
+     * A backend provider and the settings it was built from
+     */
+    private static final class Backend {
+        private final List<Object> settings;
+        private final AIProvider provider;
+        
+        private Backend(List<Object> settings, AIProvider provider) {
+            this.settings = settings;
+            this.provider = provider;
         }
-        return "None";
     }
 }
@@ -0,0 +1,356 @@
+package me.drendov.MOBChatBot.ai;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Plugin-owned execution subsystem for AI requests
+ * Caps concurrent upstream calls per provider, queues the excess up to a limit
+ * and rejects anything beyond that with the configured "busy" message
+ */
+public class AIRequestExecutor {
+    
+    private final Logger logger;
+    private final ThreadPoolExecutor workerPool;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final LongAdder rejectedCount = new LongAdder();
+    
+    private volatile ConfigManager config;
+    private volatile boolean shuttingDown = false;
+    
+    public AIRequestExecutor(Logger logger, ConfigManager config) {
+        this.logger = logger;
+        this.config = config;
+        
+        int threads = config.getWorkerThreads();
+        this.workerPool = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new WorkerThreadFactory()
+        );
+        this.workerPool.allowCoreThreadTimeOut(true);
+        
+        // Timers only; scheduled tasks must hand real work to the worker pool or an async client
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> newDaemonThread(runnable, "MOBChatBot-AI-Scheduler")
+        );
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     * Requests already running are not affected
+     */
+    public void configure(ConfigManager config) {
+        this.config = config;
+        
+        int threads = config.getWorkerThreads();
+        if (threads > workerPool.getMaximumPoolSize()) {
+            workerPool.setMaximumPoolSize(threads);
+            workerPool.setCorePoolSize(threads);
+        } else {
+            workerPool.setCorePoolSize(threads);
+            workerPool.setMaximumPoolSize(threads);
+        }
+    }
+    
+    /**
+     * Run a blocking provider call on the plugin worker pool
+     * @param providerName Provider the call counts against
+     * @param call Blocking call producing the response
+     * @return CompletableFuture containing the response, or a busy failure if the provider queue is full
+     */
+    public CompletableFuture<AIResponse> submit(String providerName, Supplier<AIResponse> call) {
+        return submitAsync(providerName, () -> CompletableFuture.supplyAsync(call, workerPool));
+    }
+    
+    /**
+     * Start a non-blocking provider call once the provider has a free slot
+     * Cancelling the returned future cancels the future produced by the call
+     * @param providerName Provider the call counts against
+     * @param call Starts the request and returns its pending response
+     * @return CompletableFuture containing the response, or a busy failure if the provider queue is full
+     */
+    public CompletableFuture<AIResponse> submitAsync(String providerName, Supplier<CompletableFuture<AIResponse>> call) {
+        if (shuttingDown) {
+            return CompletableFuture.completedFuture(AIResponse.failure(config.getBusyMessage(), AIResponse.ErrorType.BUSY));
+        }
+        
+        Lane lane = lanes.computeIfAbsent(providerName, Lane::new);
+        PendingCall pending = new PendingCall(call);
+        boolean startNow;
+        
+        synchronized (lane) {
+            if (lane.active < config.getMaxConcurrentRequests(providerName)) {
+                lane.active++;
+                startNow = true;
+            } else if (lane.queue.size() < config.getMaxQueuedRequests()) {
+                lane.queue.add(pending);
+                startNow = false;
+            } else {
+                rejectedCount.increment();
+                logger.warning(String.format(
+                    "%s request rejected: %d active, %d queued",
+                    providerName, lane.active, lane.queue.size()
+                ));
+                return CompletableFuture.completedFuture(AIResponse.failure(config.getBusyMessage(), AIResponse.ErrorType.BUSY));
+            }
+        }
+        
+        if (startNow) {
+            start(lane, pending);
+        }
+        return pending.result;
+    }
+    
+    /**
+     * Start a call that already holds a slot in its lane
+     */
+    private void start(Lane lane, PendingCall pending) {
+        CompletableFuture<AIResponse> upstream;
+        try {
+            upstream = pending.call.get();
+        } catch (Throwable t) {
+            upstream = CompletableFuture.failedFuture(t);
+        }
+        
+        final CompletableFuture<AIResponse> inFlight = upstream;
+        pending.result.whenComplete((response, throwable) -> {
+            if (pending.result.isCancelled()) {
+                inFlight.cancel(true);
+            }
+        });
+        inFlight.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                pending.result.completeExceptionally(throwable);
+            } else {
+                pending.result.complete(response);
+            }
+            release(lane);
+        });
+    }
+    
+    /**
+     * Hand a finished call's slot to the next queued call, or free it
+     */
+    private void release(Lane lane) {
+        while (true) {
+            PendingCall next;
+            synchronized (lane) {
+                next = lane.queue.poll();
+                if (next == null) {
+                    lane.active--;
+                    return;
+                }
+            }
+            
+            // Calls cancelled while queued are skipped; the slot stays with this loop
+            if (!next.result.isDone()) {
+                start(lane, next);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Check whether a provider could start one more call now and still have a slot free for the next one
+     * Background work checks this so it never takes the slot a player request would have used
+     */
+    public boolean hasSpareSlot(String providerName) {
+        if (shuttingDown) {
+            return false;
+        }
+        
+        int limit = config.getMaxConcurrentRequests(providerName);
+        Lane lane = lanes.get(providerName);
+        if (lane == null) {
+            return limit > 1;
+        }
+        synchronized (lane) {
+            return lane.queue.isEmpty() && lane.active + 1 < limit;
+        }
+    }
+    
+    /**
+     * Get the shared timer for delayed work such as admission pacing
+     * Tasks must be short and must not block
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+    
+    /**
+     * Get the number of requests waiting for a free slot across all providers
+     */
+    public int getQueueDepth() {
+        int total = 0;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                total += lane.queue.size();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Get the number of requests waiting for a free slot for one provider
+     */
+    public int getQueueDepth(String providerName) {
+        Lane lane = lanes.get(providerName);
+        if (lane == null) {
+            return 0;
+        }
+        synchronized (lane) {
+            return lane.queue.size();
+        }
+    }
+    
+    /**
+     * Get the number of upstream calls currently in flight across all providers
+     */
+    public int getActiveCalls() {
+        int total = 0;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                total += lane.active;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Get the number of upstream calls currently in flight for one provider
+     */
+    public int getActiveCalls(String providerName) {
+        Lane lane = lanes.get(providerName);
+        if (lane == null) {
+            return 0;
+        }
+        synchronized (lane) {
+            return lane.active;
+        }
+    }
+    
+    /**
+     * Get the number of requests rejected because a provider queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+    
+    /**
+     * Stop accepting requests and wait for accepted ones to finish
+     * Requests still queued after the configured timeout are failed
+     */
+    public void shutdown() {
+        shuttingDown = true;
+        
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(config.getShutdownTimeoutSeconds());
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        
+        if (getActiveCalls() > 0 || getQueueDepth() > 0) {
+            logger.info(String.format(
+                "Waiting for AI requests to finish (%d active, %d queued)...",
+                getActiveCalls(), getQueueDepth()
+            ));
+        }
+        
+        try {
+            while ((getActiveCalls() > 0 || getQueueDepth() > 0) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        int abandoned = 0;
+        for (Lane lane : lanes.values()) {
+            PendingCall pending;
+            while (true) {
+                synchronized (lane) {
+                    pending = lane.queue.poll();
+                }
+                if (pending == null) {
+                    break;
+                }
+                pending.result.complete(AIResponse.failure(config.getBusyMessage(), AIResponse.ErrorType.BUSY));
+                abandoned++;
+            }
+        }
+        
+        int stillActive = getActiveCalls();
+        if (abandoned > 0 || stillActive > 0) {
+            logger.warning(String.format(
+                "AI request executor timed out: %d queued requests dropped, %d still running",
+                abandoned, stillActive
+            ));
+        }
+        
+        scheduler.shutdownNow();
+        workerPool.shutdownNow();
+        logger.info("AI request executor shut down");
+    }
+    
+    /**
+     * Per-provider admission state
+     */
+    private static final class Lane {
+        private final String providerName;
+        private final ArrayDeque<PendingCall> queue = new ArrayDeque<>();
+        private int active = 0;
+        
+        private Lane(String providerName) {
+            this.providerName = providerName;
+        }
+        
+        @Override
+        public String toString() {
+            return "Lane{provider='" + providerName + "', active=" + active + ", queued=" + queue.size() + "}";
+        }
+    }
+    
+    /**
+     * A call waiting for (or holding) a lane slot
+     */
+    private static final class PendingCall {
+        private final Supplier<CompletableFuture<AIResponse>> call;
+        private final CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        
+        private PendingCall(Supplier<CompletableFuture<AIResponse>> call) {
+            this.call = call;
+        }
+    }
+    
+    /**
+     * Names worker threads so they are recognisable in thread dumps
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return newDaemonThread(runnable, "MOBChatBot-AI-Worker-" + counter.incrementAndGet());
+        }
+    }
+    
+    private static Thread newDaemonThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
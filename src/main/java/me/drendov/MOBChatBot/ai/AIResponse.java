@@ -6,30 +6,96 @@ package me.drendov.MOBChatBot.ai;
  */
 public class AIResponse {
     
+    /**
+     * Why a request failed, so callers can decide whether to slow down, retry or give up
+     */
+    public enum ErrorType {
+        NONE,
+        RATE_LIMITED,
+        QUOTA_EXCEEDED,
+        AUTHENTICATION,
+        INVALID_REQUEST,
+        TIMEOUT,
+        NETWORK,
+        SERVER_ERROR,
+        BUSY,
+        UNAVAILABLE,
+        CANCELLED,
+        UNKNOWN;
+        
+        /**
+         * Check whether this failure says something about the provider's health
+         * Throttling is handled by admission control, and busy, unavailable or invalid requests are our own doing
+         */
+        public boolean isProviderFault() {
+            switch (this) {
+                case NETWORK:
+                case TIMEOUT:
+                case SERVER_ERROR:
+                case AUTHENTICATION:
+                case QUOTA_EXCEEDED:
+                case UNKNOWN:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+    
     private final String content;
     private final int tokensUsed;
     private final boolean success;
     private final String errorMessage;
+    private final boolean cached;
+    private final ErrorType errorType;
+    private final RateLimitStatus rateLimit;
     
-    private AIResponse(String content, int tokensUsed, boolean success, String errorMessage) {
+    private AIResponse(String content, int tokensUsed, boolean success, String errorMessage, boolean cached,
+                       ErrorType errorType, RateLimitStatus rateLimit) {
         this.content = content;
         this.tokensUsed = tokensUsed;
         this.success = success;
         this.errorMessage = errorMessage;
+        this.cached = cached;
+        this.errorType = errorType;
+        this.rateLimit = rateLimit;
     }
     
     /**
      * Create a successful response
      */
     public static AIResponse success(String content, int tokensUsed) {
-        return new AIResponse(content, tokensUsed, true, null);
+        return new AIResponse(content, tokensUsed, true, null, false, ErrorType.NONE, null);
+    }
+    
+    /**
+     * Create a successful response served without an upstream call of its own,
+     * either from the response cache or by sharing another player's in-flight request
+     * Such responses used no tokens
+     */
+    public static AIResponse cached(String content) {
+        return new AIResponse(content, 0, true, null, true, ErrorType.NONE, null);
     }
     
     /**
      * Create a failed response
      */
     public static AIResponse failure(String errorMessage) {
-        return new AIResponse(null, 0, false, errorMessage);
+        return failure(errorMessage, ErrorType.UNKNOWN);
+    }
+    
+    /**
+     * Create a failed response with a known cause
+     */
+    public static AIResponse failure(String errorMessage, ErrorType errorType) {
+        return new AIResponse(null, 0, false, errorMessage, false, errorType, null);
+    }
+    
+    /**
+     * Copy this response with the rate limit state the provider reported alongside it
+     */
+    public AIResponse withRateLimit(RateLimitStatus rateLimit) {
+        return new AIResponse(content, tokensUsed, success, errorMessage, cached, errorType, rateLimit);
     }
     
     public String getContent() {
@@ -48,13 +114,29 @@ public class AIResponse {
         return errorMessage;
     }
     
+    public boolean isCached() {
+        return cached;
+    }
+    
+    public ErrorType getErrorType() {
+        return errorType;
+    }
+    
+    /**
+     * Get the rate limit state reported by the provider
+     * @return The reported state, or null if the provider sent none
+     */
+    public RateLimitStatus getRateLimit() {
+        return rateLimit;
+    }
+    
     @Override
     public String toString() {
         if (success) {
-            return "AIResponse{success=true, tokensUsed=" + tokensUsed + ", contentLength=" + 
+            return "AIResponse{success=true, tokensUsed=" + tokensUsed + ", cached=" + cached + ", contentLength=" + 
                    (content != null ? content.length() : 0) + "}";
         } else {
-            return "AIResponse{success=false, error='" + errorMessage + "'}";
+            return "AIResponse{success=false, errorType=" + errorType + ", error='" + errorMessage + "'}";
         }
     }
 }
@@ -0,0 +1,102 @@
+package me.drendov.MOBChatBot.ai;
+
+import me.drendov.MOBChatBot.ai.admission.AdmissionController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * AIProvider for background work such as conversation summaries, which must never delay a player's request
+ * A request goes to the first backend that can start it at once and still has a slot left for players;
+ * if none can, it fails as busy rather than waiting. Requests are sent once, without retries or hedging.
+ */
+public class BackgroundProvider implements AIProvider {
+    
+    private final List<AIProvider> backends;
+    private final AIRequestExecutor requestExecutor;
+    private final AdmissionController admissionController;
+    private final String providerName;
+    private final String modelName;
+    
+    /**
+     * @param backends Metered backend providers, most preferred first
+     * @param requestExecutor Executor whose provider slots are checked before sending
+     * @param admissionController Admission control whose queues and budgets are checked before sending
+     */
+    public BackgroundProvider(List<AIProvider> backends, AIRequestExecutor requestExecutor,
+                              AdmissionController admissionController) {
+        this.backends = List.copyOf(backends);
+        this.requestExecutor = requestExecutor;
+        this.admissionController = admissionController;
+        
+        List<String> names = new ArrayList<>();
+        List<String> models = new ArrayList<>();
+        for (AIProvider backend : this.backends) {
+            names.add(backend.getProviderName());
+            models.add(backend.getModelName());
+        }
+        this.providerName = String.join("+", names);
+        this.modelName = String.join("+", models);
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return sendToIdleBackend(message, conversationHistory,
+            backend -> backend.sendMessage(message, conversationHistory));
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        return sendToIdleBackend(message, conversationHistory,
+            backend -> backend.streamMessage(message, conversationHistory, onDelta));
+    }
+    
+    private CompletableFuture<AIResponse> sendToIdleBackend(String message, List<ConversationMessage> conversationHistory,
+                                                            Function<AIProvider, CompletableFuture<AIResponse>> call) {
+        for (AIProvider backend : backends) {
+            String name = backend.getProviderName();
+            int estimatedTokens = TokenEstimator.estimatePrompt(backend.getSystemPrompt(), message, conversationHistory);
+            if (requestExecutor.hasSpareSlot(name) && admissionController.canAdmitNow(name, estimatedTokens)) {
+                return call.apply(backend);
+            }
+        }
+        return CompletableFuture.completedFuture(
+            AIResponse.failure("No provider has room for background work", AIResponse.ErrorType.BUSY)
+        );
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return !backends.isEmpty();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return providerName;
+    }
+    
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return backends.isEmpty() ? null : backends.get(0).getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        // Every backend was initialized before it was added
+        return true;
+    }
+    
+    @Override
+    public void shutdown() {
+        // The backends belong to the main provider and are closed with it
+    }
+}
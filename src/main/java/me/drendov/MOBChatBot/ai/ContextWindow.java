@@ -0,0 +1,55 @@
+package me.drendov.MOBChatBot.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assembles the history sent with a request so the prompt stays within a token budget
+ * The system prompt and the new user message are always kept; the oldest turns go first
+ */
+public final class ContextWindow {
+    
+    private ContextWindow() {
+    }
+    
+    /**
+     * Select the most recent history that fits in the prompt budget
+     * @param history Conversation history, oldest message first
+     * @param systemPrompt System prompt that will be sent with the request
+     * @param userMessage The new user message
+     * @param promptBudget Maximum estimated tokens for the whole prompt
+     * @return The newest messages of the history that fit, oldest first
+     */
+    public static List<ConversationMessage> fit(List<ConversationMessage> history, String systemPrompt,
+                                                String userMessage, int promptBudget) {
+        if (history == null || history.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        int remaining = promptBudget
+                - TokenEstimator.estimateMessage(systemPrompt)
+                - TokenEstimator.estimateMessage(userMessage);
+        
+        // Walk back from the newest message while the budget allows
+        int start = history.size();
+        while (start > 0) {
+            int cost = history.get(start - 1).getEstimatedTokens();
+            if (cost > remaining) {
+                break;
+            }
+            remaining -= cost;
+            start--;
+        }
+        
+        // The window must not open on an assistant turn
+        while (start < history.size() && "assistant".equals(history.get(start).getRole())) {
+            start++;
+        }
+        
+        if (start == 0) {
+            return history;
+        }
+        return Collections.unmodifiableList(new ArrayList<>(history.subList(start, history.size())));
+    }
+}
@@ -1,34 +1,364 @@
 package me.drendov.MOBChatBot.ai;
 
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manages player conversations with the AI
- * Tracks conversation history and context for each player
+ * Keeps a bounded history per player and a global token cap across all players
+ * Safe to call from the main thread and from async response threads
  */
 public class ConversationManager {
     
-    // TODO: Implement conversation management
-    // - Per-player conversation storage
-    // - Conversation history limits
-    // - Token counting
-    // - Context management
+    // Access-ordered so iteration starts at the least recently used conversation
+    private final Map<UUID, PlayerConversation> conversations = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConversationSummarizer summarizer;
+    
+    private int maxMessagesPerPlayer;
+    private int maxTokensPerPlayer;
+    private int promptTokenBudget;
+    private long maxTotalTokens;
+    private long idleTimeoutMillis;
+    private boolean summarizeEnabled;
+    private int summarizeThreshold;
+    private int summarizeTurns;
+    private long totalTokens = 0;
+    
+    /**
+     * @param config Plugin configuration
+     * @param summarizer Used to compact old turns when summarization is enabled
+     */
+    public ConversationManager(ConfigManager config, ConversationSummarizer summarizer) {
+        this.summarizer = summarizer;
+        configure(config);
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     * Existing histories are trimmed on their next update
+     */
+    public synchronized void configure(ConfigManager config) {
+        this.maxMessagesPerPlayer = config.getMaxMessagesPerPlayer();
+        this.maxTokensPerPlayer = config.getMaxHistoryTokensPerPlayer();
+        this.promptTokenBudget = config.getPromptTokenBudget();
+        this.maxTotalTokens = config.getMaxTotalHistoryTokens();
+        this.idleTimeoutMillis = TimeUnit.MINUTES.toMillis(config.getConversationIdleTimeoutMinutes());
+        this.summarizeEnabled = config.isSummarizeEnabled();
+        this.summarizeThreshold = config.getSummarizeThresholdMessages();
+        this.summarizeTurns = config.getSummarizeTurns();
+    }
+    
+    /**
+     * Get a snapshot of a player's conversation history, oldest message first
+     * @param playerUUID The player's UUID
+     * @return Immutable copy of the history, empty if the player has none
+     */
+    public synchronized List<ConversationMessage> getHistory(UUID playerUUID) {
+        PlayerConversation conversation = conversations.get(playerUUID);
+        if (conversation == null) {
+            return Collections.emptyList();
+        }
+        conversation.lastAccessMillis = System.currentTimeMillis();
+        return conversation.snapshot();
+    }
+    
+    /**
+     * Get the part of a player's history that fits in the prompt budget alongside a new message
+     * @param playerUUID The player's UUID
+     * @param systemPrompt System prompt of the provider that will receive the request
+     * @param userMessage The new user message
+     * @return The most recent history that fits, oldest message first
+     */
+    public List<ConversationMessage> getContext(UUID playerUUID, String systemPrompt, String userMessage) {
+        int budget;
+        synchronized (this) {
+            budget = promptTokenBudget;
+        }
+        return ContextWindow.fit(getHistory(playerUUID), systemPrompt, userMessage, budget);
+    }
     
     /**
-     * Get or create a conversation for a player
+     * Record a completed exchange in a player's history
      * @param playerUUID The player's UUID
-     * @return The conversation instance
+     * @param userMessage What the player asked
+     * @param assistantReply What the AI answered
      */
-    public Object getConversation(UUID playerUUID) {
-        // TODO: Implementation
-        return null;
+    public void addExchange(UUID playerUUID, String userMessage, String assistantReply) {
+        PlayerConversation conversation;
+        List<ConversationMessage> oldest;
+        synchronized (this) {
+            if (maxMessagesPerPlayer < 2) {
+                clearConversation(playerUUID);
+                return;
+            }
+            
+            conversation = conversations.get(playerUUID);
+            if (conversation == null || conversation.capacity() != maxMessagesPerPlayer) {
+                conversation = resize(playerUUID, conversation);
+            }
+            
+            totalTokens += conversation.add(new ConversationMessage("user", userMessage));
+            totalTokens += conversation.add(new ConversationMessage("assistant", assistantReply));
+            totalTokens -= conversation.trimToTokens(maxTokensPerPlayer);
+            conversation.lastAccessMillis = System.currentTimeMillis();
+            
+            if (conversation.isEmpty()) {
+                detach(conversations.remove(playerUUID));
+                return;
+            }
+            
+            enforceGlobalLimit(playerUUID);
+            
+            if (!summarizeEnabled || conversation.summarizing || conversation.size < summarizeThreshold) {
+                return;
+            }
+            oldest = conversation.oldest(summarizeTurns * 2);
+            if (oldest.isEmpty()) {
+                return;
+            }
+            conversation.summarizing = true;
+        }
+        
+        // Sent after the lock is released, so other players' history is not held up while the request is built
+        startSummary(conversation, oldest);
+    }
+    
+    /**
+     * Compact the oldest turns of a conversation in the background
+     * The history is left untouched if the summary is skipped, fails, or the turns are gone by the time it arrives
+     * @param oldest Turns to fold into the summary, taken while the conversation was marked as summarizing
+     */
+    private void startSummary(PlayerConversation conversation, List<ConversationMessage> oldest) {
+        summarizer.summarize(oldest).thenAccept(summary -> {
+            synchronized (this) {
+                conversation.summarizing = false;
+                if (summary == null || summary.isBlank() || !conversation.attached) {
+                    return;
+                }
+                totalTokens += conversation.replaceOldest(oldest, ConversationMessage.summary(summary));
+            }
+        });
     }
     
     /**
      * Clear a player's conversation history
      * @param playerUUID The player's UUID
      */
-    public void clearConversation(UUID playerUUID) {
-        // TODO: Implementation
+    public synchronized void clearConversation(UUID playerUUID) {
+        PlayerConversation removed = conversations.remove(playerUUID);
+        if (removed != null) {
+            totalTokens -= removed.tokens;
+            detach(removed);
+        }
+    }
+    
+    /**
+     * Drop conversations that have not been used within the idle timeout
+     * @return Number of conversations removed
+     */
+    public synchronized int evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        int removed = 0;
+        
+        Iterator<PlayerConversation> iterator = conversations.values().iterator();
+        while (iterator.hasNext()) {
+            PlayerConversation conversation = iterator.next();
+            if (conversation.lastAccessMillis < cutoff) {
+                totalTokens -= conversation.tokens;
+                detach(conversation);
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Get the number of players with stored history
+     */
+    public synchronized int getConversationCount() {
+        return conversations.size();
+    }
+    
+    /**
+     * Get the estimated tokens held across all conversations
+     */
+    public synchronized long getTotalTokens() {
+        return totalTokens;
+    }
+    
+    /**
+     * Replace a conversation with one sized for the current message cap
+     */
+    private PlayerConversation resize(UUID playerUUID, PlayerConversation existing) {
+        PlayerConversation resized = new PlayerConversation(maxMessagesPerPlayer);
+        if (existing != null) {
+            for (ConversationMessage message : existing.snapshot()) {
+                resized.add(message);
+            }
+            totalTokens += resized.tokens - existing.tokens;
+            detach(existing);
+        }
+        conversations.put(playerUUID, resized);
+        return resized;
+    }
+    
+    /**
+     * Evict least recently used conversations until the global cap is met
+     * The conversation that was just updated is kept
+     */
+    private void enforceGlobalLimit(UUID current) {
+        Iterator<Map.Entry<UUID, PlayerConversation>> iterator = conversations.entrySet().iterator();
+        while (totalTokens > maxTotalTokens && iterator.hasNext()) {
+            Map.Entry<UUID, PlayerConversation> eldest = iterator.next();
+            if (eldest.getKey().equals(current)) {
+                continue;
+            }
+            totalTokens -= eldest.getValue().tokens;
+            detach(eldest.getValue());
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * Mark a conversation as no longer stored so pending summaries leave it alone
+     */
+    private void detach(PlayerConversation conversation) {
+        if (conversation != null) {
+            conversation.attached = false;
+        }
+    }
+    
+    /**
+     * Fixed-capacity ring buffer of one player's messages
+     * Guarded by the owning manager's lock
+     */
+    private static final class PlayerConversation {
+        private final ConversationMessage[] messages;
+        private int head = 0;
+        private int size = 0;
+        private int tokens = 0;
+        private long lastAccessMillis = System.currentTimeMillis();
+        private boolean summarizing = false;
+        private boolean attached = true;
+        
+        private PlayerConversation(int capacity) {
+            this.messages = new ConversationMessage[capacity];
+        }
+        
+        private int capacity() {
+            return messages.length;
+        }
+        
+        private boolean isEmpty() {
+            return size == 0;
+        }
+        
+        /**
+         * Append a message, overwriting the oldest when full
+         * @return Change in held tokens
+         */
+        private int add(ConversationMessage message) {
+            int delta = 0;
+            if (size == messages.length) {
+                delta -= removeOldest();
+            }
+            messages[(head + size) % messages.length] = message;
+            size++;
+            tokens += message.getEstimatedTokens();
+            delta += message.getEstimatedTokens();
+            
+            // History must not start with an assistant turn
+            while (size > 0 && "assistant".equals(messages[head].getRole())) {
+                delta -= removeOldest();
+            }
+            return delta;
+        }
+        
+        /**
+         * Get the oldest messages, plus a leading summary if there is one
+         * At least one exchange is always left out
+         */
+        private List<ConversationMessage> oldest(int count) {
+            int start = messages[head].isSummary() ? 1 : 0;
+            int end = Math.min(start + count, size - 2);
+            if ((end - start) % 2 != 0) {
+                end--;
+            }
+            if (end - start < 2) {
+                return Collections.emptyList();
+            }
+            List<ConversationMessage> copy = new ArrayList<>(end);
+            for (int i = 0; i < end; i++) {
+                copy.add(messages[(head + i) % messages.length]);
+            }
+            return copy;
+        }
+        
+        /**
+         * Replace the oldest messages with a summary if they are still the oldest
+         * @return Change in held tokens
+         */
+        private int replaceOldest(List<ConversationMessage> expected, ConversationMessage summary) {
+            if (expected.isEmpty() || expected.size() > size) {
+                return 0;
+            }
+            for (int i = 0; i < expected.size(); i++) {
+                if (messages[(head + i) % messages.length] != expected.get(i)) {
+                    return 0;
+                }
+            }
+            
+            int delta = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                delta -= removeOldest();
+            }
+            
+            head = (head - 1 + messages.length) % messages.length;
+            messages[head] = summary;
+            size++;
+            tokens += summary.getEstimatedTokens();
+            return delta + summary.getEstimatedTokens();
+        }
+        
+        /**
+         * Drop the oldest exchanges until the token budget is met
+         * @return Tokens released
+         */
+        private int trimToTokens(int budget) {
+            int released = 0;
+            while (tokens > budget && size > 0) {
+                released += removeOldest();
+                while (size > 0 && "assistant".equals(messages[head].getRole())) {
+                    released += removeOldest();
+                }
+            }
+            return released;
+        }
+        
+        private int removeOldest() {
+            ConversationMessage oldest = messages[head];
+            messages[head] = null;
+            head = (head + 1) % messages.length;
+            size--;
+            tokens -= oldest.getEstimatedTokens();
+            return oldest.getEstimatedTokens();
+        }
+        
+        private List<ConversationMessage> snapshot() {
+            List<ConversationMessage> copy = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                copy.add(messages[(head + i) % messages.length]);
+            }
+            return Collections.unmodifiableList(copy);
+        }
     }
 }
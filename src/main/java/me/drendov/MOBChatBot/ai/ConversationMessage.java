@@ -5,14 +5,24 @@ package me.drendov.MOBChatBot.ai;
  */
 public class ConversationMessage {
     
-    private final String role; // "user" or "assistant"
+    private final String role; // "user", "assistant" or "system" for summaries
     private final String content;
     private final long timestamp;
+    private final int estimatedTokens;
     
     public ConversationMessage(String role, String content) {
         this.role = role;
         this.content = content;
         this.timestamp = System.currentTimeMillis();
+        this.estimatedTokens = TokenEstimator.estimateMessage(content);
+    }
+    
+    /**
+     * Create a message holding a summary of earlier turns
+     * Providers send it as system context rather than as a chat turn
+     */
+    public static ConversationMessage summary(String content) {
+        return new ConversationMessage("system", content);
     }
     
     public String getRole() {
@@ -27,6 +37,20 @@ public class ConversationMessage {
         return timestamp;
     }
     
+    /**
+     * Check if this message is a summary of earlier turns
+     */
+    public boolean isSummary() {
+        return "system".equals(role);
+    }
+    
+    /**
+     * Get the estimated token count, computed once when the message is created
+     */
+    public int getEstimatedTokens() {
+        return estimatedTokens;
+    }
+    
     @Override
     public String toString() {
         return "ConversationMessage{role='" + role + "', content='" + 
@@ -0,0 +1,46 @@
+package me.drendov.MOBChatBot.ai;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Compacts old conversation turns into a short summary using the background provider
+ * Summaries never delay player requests: they are skipped unless a provider has capacity to spare
+ */
+public class ConversationSummarizer {
+    
+    private static final String SUMMARY_REQUEST =
+        "Summarize our conversation so far in at most three sentences. " +
+        "Keep names, goals and facts I may refer back to. Reply with the summary only.";
+    
+    private final Supplier<AIProvider> providerSupplier;
+    
+    /**
+     * @param providerSupplier Supplies the current background provider, or null if there is none
+     */
+    public ConversationSummarizer(Supplier<AIProvider> providerSupplier) {
+        this.providerSupplier = providerSupplier;
+    }
+    
+    /**
+     * Summarize a run of conversation messages
+     * @param messages The oldest messages of a conversation, starting with a user turn or an earlier summary
+     * @return CompletableFuture containing the summary text, or null if the summary was skipped or failed
+     */
+    public CompletableFuture<String> summarize(List<ConversationMessage> messages) {
+        AIProvider provider = providerSupplier.get();
+        if (provider == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        // Fails as busy straight away when no provider has capacity to spare
+        return provider.sendMessage(SUMMARY_REQUEST, messages)
+            .handle((response, throwable) -> {
+                if (throwable != null || !response.isSuccess()) {
+                    return null;
+                }
+                return response.getContent();
+            });
+    }
+}
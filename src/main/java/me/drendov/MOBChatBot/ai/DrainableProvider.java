@@ -0,0 +1,128 @@
+package me.drendov.MOBChatBot.ai;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * AIProvider decorator that counts the requests in flight, so a provider replaced on reload can be
+ * closed once the requests it already accepted have finished
+ */
+public class DrainableProvider implements AIProvider {
+    
+    private static final long POLL_MILLIS = 100;
+    
+    private final AIProvider delegate;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    public DrainableProvider(AIProvider delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return track(() -> delegate.sendMessage(message, conversationHistory));
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        return track(() -> delegate.streamMessage(message, conversationHistory, onDelta));
+    }
+    
+    private CompletableFuture<AIResponse> track(Supplier<CompletableFuture<AIResponse>> call) {
+        inFlight.incrementAndGet();
+        CompletableFuture<AIResponse> future;
+        try {
+            future = call.get();
+        } catch (Throwable t) {
+            // A call that throws instead of returning a future still has to leave the count
+            future = CompletableFuture.failedFuture(t);
+        }
+        
+        future.whenComplete((response, throwable) -> inFlight.decrementAndGet());
+        return future;
+    }
+    
+    /**
+     * Get the number of requests started and not yet finished
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * Wait for the requests in flight to finish
+     * Callers that fetched this provider just before it was replaced get one poll interval to start their request
+     * @param timeoutSeconds Longest time to wait
+     * @param scheduler Timer used to check progress
+     * @return Future completing with true once idle, or false if requests were still running at the timeout
+     */
+    public CompletableFuture<Boolean> awaitIdle(int timeoutSeconds, ScheduledExecutorService scheduler) {
+        CompletableFuture<Boolean> idle = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        
+        Runnable check = new Runnable() {
+            @Override
+            public void run() {
+                if (inFlight.get() == 0) {
+                    idle.complete(true);
+                } else if (System.nanoTime() - deadline >= 0) {
+                    idle.complete(false);
+                } else {
+                    schedule(this);
+                }
+            }
+            
+            private void schedule(Runnable task) {
+                try {
+                    scheduler.schedule(task, POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; whatever is left is closed now
+                    idle.complete(inFlight.get() == 0);
+                }
+            }
+        };
+        try {
+            scheduler.schedule(check, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            idle.complete(inFlight.get() == 0);
+        }
+        return idle;
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,147 @@
+package me.drendov.MOBChatBot.ai;
+
+import java.util.Locale;
+
+/**
+ * Rate limit state reported by a provider with a response
+ * Any value the provider did not report is -1
+ */
+public class RateLimitStatus {
+    
+    private final long limitRequests;
+    private final long limitTokens;
+    private final long remainingRequests;
+    private final long remainingTokens;
+    private final long resetRequestsMillis;
+    private final long resetTokensMillis;
+    private final long retryAfterMillis;
+    
+    /**
+     * @param limitRequests Requests allowed per minute
+     * @param limitTokens Tokens allowed per minute
+     * @param remainingRequests Requests left in the current window
+     * @param remainingTokens Tokens left in the current window
+     * @param resetRequestsMillis Time until the request window resets
+     * @param resetTokensMillis Time until the token window resets
+     * @param retryAfterMillis Time the provider asked us to wait before trying again
+     */
+    public RateLimitStatus(long limitRequests, long limitTokens, long remainingRequests, long remainingTokens,
+                           long resetRequestsMillis, long resetTokensMillis, long retryAfterMillis) {
+        this.limitRequests = limitRequests;
+        this.limitTokens = limitTokens;
+        this.remainingRequests = remainingRequests;
+        this.remainingTokens = remainingTokens;
+        this.resetRequestsMillis = resetRequestsMillis;
+        this.resetTokensMillis = resetTokensMillis;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+    
+    /**
+     * Create a status that only carries a retry delay
+     */
+    public static RateLimitStatus retryAfter(long retryAfterMillis) {
+        return new RateLimitStatus(-1, -1, -1, -1, -1, -1, retryAfterMillis);
+    }
+    
+    public long getLimitRequests() {
+        return limitRequests;
+    }
+    
+    public long getLimitTokens() {
+        return limitTokens;
+    }
+    
+    public long getRemainingRequests() {
+        return remainingRequests;
+    }
+    
+    public long getRemainingTokens() {
+        return remainingTokens;
+    }
+    
+    public long getResetRequestsMillis() {
+        return resetRequestsMillis;
+    }
+    
+    public long getResetTokensMillis() {
+        return resetTokensMillis;
+    }
+    
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+    
+    /**
+     * Parse a header count, returning -1 if it is missing or malformed
+     */
+    public static long parseCount(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Parse a duration such as "1s", "6m0s", "250ms" or "1.5s"
+     * A bare number is read as seconds
+     * @return Duration in milliseconds, or -1 if it is missing or malformed
+     */
+    public static long parseDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        double totalMillis = 0;
+        int i = 0;
+        
+        try {
+            while (i < text.length()) {
+                int numberStart = i;
+                while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                    i++;
+                }
+                if (numberStart == i) {
+                    return -1;
+                }
+                double number = Double.parseDouble(text.substring(numberStart, i));
+                
+                int unitStart = i;
+                while (i < text.length() && Character.isLetter(text.charAt(i))) {
+                    i++;
+                }
+                switch (text.substring(unitStart, i)) {
+                    case "ms":
+                        totalMillis += number;
+                        break;
+                    case "":
+                    case "s":
+                        totalMillis += number * 1000;
+                        break;
+                    case "m":
+                        totalMillis += number * 60_000;
+                        break;
+                    case "h":
+                        totalMillis += number * 3_600_000;
+                        break;
+                    default:
+                        return -1;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        
+        return (long) Math.ceil(totalMillis);
+    }
+    
+    @Override
+    public String toString() {
+        return "RateLimitStatus{remainingRequests=" + remainingRequests + ", remainingTokens=" + remainingTokens +
+               ", retryAfterMillis=" + retryAfterMillis + "}";
+    }
+}
@@ -0,0 +1,48 @@
+package me.drendov.MOBChatBot.ai;
+
+import java.util.List;
+
+/**
+ * Cheap token count estimates for budgeting conversation history
+ * Uses the common rule of thumb of about four characters per token
+ */
+public final class TokenEstimator {
+    
+    private static final int CHARS_PER_TOKEN = 4;
+    
+    // Role markers and separators added around every chat message
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    
+    private TokenEstimator() {
+    }
+    
+    /**
+     * Estimate the tokens used by a piece of text
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+    
+    /**
+     * Estimate the tokens used by a chat message including its role overhead
+     */
+    public static int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+    
+    /**
+     * Estimate the prompt tokens of a request: system prompt, history and the new message
+     */
+    public static int estimatePrompt(String systemPrompt, String message, List<ConversationMessage> conversationHistory) {
+        int tokens = estimateMessage(systemPrompt) + estimateMessage(message);
+        if (conversationHistory != null) {
+            for (ConversationMessage historyMessage : conversationHistory) {
+                tokens += historyMessage.getEstimatedTokens();
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,234 @@
+package me.drendov.MOBChatBot.ai.admission;
+
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.RateLimitStatus;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One provider's admission state
+ * A request bucket refilled at the current requests-per-second and a token bucket refilled at the current
+ * tokens-per-minute. Both rates grow additively on success and halve on throttling (AIMD), and are capped by
+ * any limits the provider reports. Guarded by its own lock.
+ */
+class AdaptiveLimiter {
+    
+    private static final double MIN_REQUESTS_PER_SECOND = 0.2;
+    private static final double MIN_TOKENS_PER_MINUTE = 1000;
+    private static final double DECREASE_FACTOR = 0.5;
+    // Token budget growth per success, as a fraction of the starting budget, spread over a second of requests
+    private static final double TOKENS_INCREASE_FRACTION = 0.05;
+    // Throttling responses within this window of a decrease belong to the same overload and do not cut again
+    private static final long DECREASE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long DEFAULT_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    final String providerName;
+    final ArrayDeque<AdmissionController.Waiter> queue = new ArrayDeque<>();
+    boolean drainScheduled = false;
+    
+    private double requestsPerSecond;
+    private double requestCeiling;
+    private double configuredMaxRequests;
+    private double tokensPerMinute;
+    private double tokenCeiling;
+    private double configuredMaxTokens;
+    private double initialTokensPerMinute;
+    
+    private double requestAllowance = 1;
+    private double tokenAllowance;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos = lastRefillNanos;
+    private long lastDecreaseNanos = lastRefillNanos - DECREASE_WINDOW_NANOS;
+    
+    AdaptiveLimiter(String providerName, ConfigManager config) {
+        this.providerName = providerName;
+        this.requestsPerSecond = config.getAdmissionInitialRequestsPerSecond();
+        this.initialTokensPerMinute = config.getAdmissionInitialTokensPerMinute();
+        this.tokensPerMinute = initialTokensPerMinute;
+        this.tokenAllowance = initialTokensPerMinute;
+        configure(config);
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration, keeping the rates learned so far within the new bounds
+     */
+    synchronized void configure(ConfigManager config) {
+        this.configuredMaxRequests = config.getAdmissionMaxRequestsPerSecond();
+        this.configuredMaxTokens = config.getAdmissionMaxTokensPerMinute();
+        this.requestCeiling = configuredMaxRequests;
+        this.tokenCeiling = configuredMaxTokens;
+        
+        if (config.getAdmissionInitialTokensPerMinute() != initialTokensPerMinute) {
+            this.initialTokensPerMinute = config.getAdmissionInitialTokensPerMinute();
+            this.tokensPerMinute = initialTokensPerMinute;
+            this.tokenAllowance = Math.min(tokenAllowance, initialTokensPerMinute);
+        }
+        this.requestsPerSecond = clamp(requestsPerSecond, MIN_REQUESTS_PER_SECOND, requestCeiling);
+        this.tokensPerMinute = clamp(tokensPerMinute, MIN_TOKENS_PER_MINUTE, tokenCeiling);
+    }
+    
+    /**
+     * Take a request slot and the estimated tokens if both are available now
+     */
+    synchronized boolean tryAcquire(int estimatedTokens, long now) {
+        refill(now);
+        if (now - pausedUntilNanos < 0 || requestAllowance < 1) {
+            return false;
+        }
+        if (isTokenPacing() && tokenAllowance < Math.min(estimatedTokens, tokensPerMinute)) {
+            return false;
+        }
+        
+        requestAllowance -= 1;
+        if (isTokenPacing()) {
+            tokenAllowance -= estimatedTokens;
+        }
+        return true;
+    }
+    
+    /**
+     * Time until a request with this estimate could be admitted
+     */
+    synchronized long nanosUntilAvailable(int estimatedTokens, long now) {
+        refill(now);
+        double waitSeconds = 0;
+        if (requestAllowance < 1) {
+            waitSeconds = (1 - requestAllowance) / requestsPerSecond;
+        }
+        if (isTokenPacing()) {
+            double needed = Math.min(estimatedTokens, tokensPerMinute) - tokenAllowance;
+            if (needed > 0) {
+                waitSeconds = Math.max(waitSeconds, needed / (tokensPerMinute / 60));
+            }
+        }
+        
+        long wait = (long) Math.ceil(waitSeconds * TimeUnit.SECONDS.toNanos(1));
+        return Math.max(wait, pausedUntilNanos - now);
+    }
+    
+    /**
+     * Adapt to the outcome of an admitted request
+     * @return true if this response lowered the rates
+     */
+    synchronized boolean onResult(AIResponse response, int estimatedTokens, long now) {
+        RateLimitStatus status = response.getRateLimit();
+        if (status != null) {
+            applyReportedLimits(status, now);
+        }
+        
+        if (response.getErrorType() == AIResponse.ErrorType.RATE_LIMITED) {
+            long retryAfter = status != null && status.getRetryAfterMillis() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(status.getRetryAfterMillis())
+                : DEFAULT_PAUSE_NANOS;
+            pauseFor(retryAfter, now);
+            refundTokens(estimatedTokens);
+            return decrease(now);
+        }
+        
+        if (!response.isSuccess()) {
+            // The request was not billed, so its tokens go back into the budget
+            refundTokens(estimatedTokens);
+            return false;
+        }
+        
+        // Charge what the request really used
+        if (isTokenPacing() && response.getTokensUsed() > 0) {
+            tokenAllowance -= response.getTokensUsed() - estimatedTokens;
+        }
+        
+        requestsPerSecond = Math.min(requestCeiling, requestsPerSecond + 1 / requestsPerSecond);
+        if (isTokenPacing()) {
+            double step = TOKENS_INCREASE_FRACTION * initialTokensPerMinute / Math.max(1, requestsPerSecond);
+            tokensPerMinute = Math.min(tokenCeiling, tokensPerMinute + step);
+        }
+        return false;
+    }
+    
+    synchronized double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+    
+    synchronized double getTokensPerMinute() {
+        return isTokenPacing() ? tokensPerMinute : 0;
+    }
+    
+    synchronized boolean isPaused(long now) {
+        return now - pausedUntilNanos < 0;
+    }
+    
+    /**
+     * Use the provider's own numbers: its per-minute limits cap our rates, and an empty window pauses us until it resets
+     */
+    private void applyReportedLimits(RateLimitStatus status, long now) {
+        if (status.getLimitRequests() > 0) {
+            requestCeiling = Math.max(MIN_REQUESTS_PER_SECOND,
+                Math.min(configuredMaxRequests, status.getLimitRequests() / 60.0));
+            requestsPerSecond = Math.min(requestsPerSecond, requestCeiling);
+        }
+        if (status.getLimitTokens() > 0 && isTokenPacing()) {
+            tokenCeiling = Math.max(MIN_TOKENS_PER_MINUTE, Math.min(configuredMaxTokens, status.getLimitTokens()));
+            tokensPerMinute = Math.min(tokensPerMinute, tokenCeiling);
+        }
+        
+        if (status.getRemainingRequests() >= 0) {
+            requestAllowance = Math.min(requestAllowance, status.getRemainingRequests());
+            if (status.getRemainingRequests() == 0 && status.getResetRequestsMillis() > 0) {
+                pauseFor(TimeUnit.MILLISECONDS.toNanos(status.getResetRequestsMillis()), now);
+            }
+        }
+        if (status.getRemainingTokens() >= 0 && isTokenPacing()) {
+            tokenAllowance = Math.min(tokenAllowance, status.getRemainingTokens());
+            if (status.getRemainingTokens() == 0 && status.getResetTokensMillis() > 0) {
+                pauseFor(TimeUnit.MILLISECONDS.toNanos(status.getResetTokensMillis()), now);
+            }
+        }
+    }
+    
+    private boolean decrease(long now) {
+        if (now - lastDecreaseNanos < DECREASE_WINDOW_NANOS) {
+            return false;
+        }
+        lastDecreaseNanos = now;
+        requestsPerSecond = Math.max(MIN_REQUESTS_PER_SECOND, requestsPerSecond * DECREASE_FACTOR);
+        tokensPerMinute = Math.max(MIN_TOKENS_PER_MINUTE, tokensPerMinute * DECREASE_FACTOR);
+        requestAllowance = Math.min(requestAllowance, 0);
+        return true;
+    }
+    
+    private void pauseFor(long nanos, long now) {
+        long until = now + nanos;
+        if (until - pausedUntilNanos > 0) {
+            pausedUntilNanos = until;
+        }
+    }
+    
+    private void refundTokens(int estimatedTokens) {
+        if (isTokenPacing()) {
+            tokenAllowance = Math.min(tokensPerMinute, tokenAllowance + estimatedTokens);
+        }
+    }
+    
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        lastRefillNanos = now;
+        if (elapsedSeconds <= 0) {
+            return;
+        }
+        
+        // Up to one second of requests may be admitted back to back
+        requestAllowance = Math.min(Math.max(1, requestsPerSecond), requestAllowance + elapsedSeconds * requestsPerSecond);
+        if (isTokenPacing()) {
+            tokenAllowance = Math.min(tokensPerMinute, tokenAllowance + elapsedSeconds * tokensPerMinute / 60);
+        }
+    }
+    
+    private boolean isTokenPacing() {
+        return initialTokensPerMinute > 0;
+    }
+    
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
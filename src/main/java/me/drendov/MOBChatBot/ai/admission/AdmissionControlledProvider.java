@@ -0,0 +1,75 @@
+package me.drendov.MOBChatBot.ai.admission;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.TokenEstimator;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * AIProvider decorator that passes every request through the shared admission controller
+ * Requests are held back while the provider is throttling us rather than sent to fail
+ */
+public class AdmissionControlledProvider implements AIProvider {
+    
+    private final AIProvider delegate;
+    private final AdmissionController admission;
+    
+    public AdmissionControlledProvider(AIProvider delegate, AdmissionController admission) {
+        this.delegate = delegate;
+        this.admission = admission;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return admission.admit(getProviderName(), estimatePromptTokens(message, conversationHistory),
+            () -> delegate.sendMessage(message, conversationHistory));
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        return admission.admit(getProviderName(), estimatePromptTokens(message, conversationHistory),
+            () -> delegate.streamMessage(message, conversationHistory, onDelta));
+    }
+    
+    /**
+     * Estimate the prompt size; the controller corrects it with the real usage once the response arrives
+     */
+    private int estimatePromptTokens(String message, List<ConversationMessage> conversationHistory) {
+        return TokenEstimator.estimatePrompt(delegate.getSystemPrompt(), message, conversationHistory);
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
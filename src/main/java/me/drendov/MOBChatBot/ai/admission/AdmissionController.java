@@ -0,0 +1,299 @@
+package me.drendov.MOBChatBot.ai.admission;
+
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Shared admission control for upstream AI calls
+ * Each provider gets an adaptive limiter that learns its real request and token limits from successes,
+ * throttling errors and rate limit headers. Requests that cannot be admitted yet wait in a queue
+ * instead of failing, up to a configured wait.
+ */
+public class AdmissionController {
+    
+    private final Logger logger;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+    
+    private volatile ConfigManager config;
+    private volatile boolean shuttingDown = false;
+    
+    /**
+     * @param logger Plugin logger
+     * @param config Plugin configuration
+     * @param scheduler Timer used to release queued requests
+     */
+    public AdmissionController(Logger logger, ConfigManager config, ScheduledExecutorService scheduler) {
+        this.logger = logger;
+        this.config = config;
+        this.scheduler = scheduler;
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     * Rates learned so far are kept within the new bounds
+     */
+    public void configure(ConfigManager config) {
+        this.config = config;
+        for (AdaptiveLimiter limiter : limiters.values()) {
+            limiter.configure(config);
+            drain(limiter);
+        }
+    }
+    
+    /**
+     * Run a call once the provider's current rate allows it
+     * @param providerName Provider the call counts against
+     * @param estimatedTokens Estimated prompt tokens, reconciled with real usage afterwards
+     * @param call Starts the request and returns its pending response
+     * @return CompletableFuture containing the response, or a busy failure if the wait was too long
+     */
+    public CompletableFuture<AIResponse> admit(String providerName, int estimatedTokens,
+                                               Supplier<CompletableFuture<AIResponse>> call) {
+        ConfigManager current = config;
+        if (!current.isAdmissionEnabled()) {
+            return call.get();
+        }
+        if (shuttingDown) {
+            return CompletableFuture.completedFuture(busy());
+        }
+        
+        AdaptiveLimiter limiter = limiters.computeIfAbsent(providerName, name -> new AdaptiveLimiter(name, current));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(current.getAdmissionMaxWaitSeconds());
+        Waiter waiter = new Waiter(estimatedTokens, call, deadline);
+        
+        synchronized (limiter) {
+            if (limiter.queue.size() >= current.getMaxQueuedRequests()) {
+                logger.warning(providerName + " request rejected: admission queue is full");
+                return CompletableFuture.completedFuture(busy());
+            }
+            limiter.queue.add(waiter);
+        }
+        
+        drain(limiter);
+        return waiter.result;
+    }
+    
+    /**
+     * Check whether a request could be admitted straight away without overtaking a waiting request
+     * @param providerName Provider the request would count against
+     * @param estimatedTokens Estimated prompt tokens
+     */
+    public boolean canAdmitNow(String providerName, int estimatedTokens) {
+        if (!config.isAdmissionEnabled()) {
+            return true;
+        }
+        if (shuttingDown) {
+            return false;
+        }
+        
+        AdaptiveLimiter limiter = limiters.get(providerName);
+        if (limiter == null) {
+            return true;
+        }
+        synchronized (limiter) {
+            return limiter.queue.isEmpty() && limiter.nanosUntilAvailable(estimatedTokens, System.nanoTime()) <= 0;
+        }
+    }
+    
+    /**
+     * Start every queued request the limiter allows, then schedule the next attempt if any remain
+     */
+    private void drain(AdaptiveLimiter limiter) {
+        List<Waiter> admitted = new ArrayList<>();
+        List<Waiter> expired = new ArrayList<>();
+        
+        synchronized (limiter) {
+            long now = System.nanoTime();
+            Waiter head;
+            while ((head = limiter.queue.peek()) != null) {
+                if (head.result.isDone()) {
+                    limiter.queue.poll();
+                } else if (now - head.deadlineNanos >= 0) {
+                    expired.add(limiter.queue.poll());
+                } else if (limiter.tryAcquire(head.estimatedTokens, now)) {
+                    admitted.add(limiter.queue.poll());
+                } else {
+                    break;
+                }
+            }
+            
+            if (head != null && !limiter.drainScheduled) {
+                long delay = Math.min(
+                    limiter.nanosUntilAvailable(head.estimatedTokens, now),
+                    head.deadlineNanos - now
+                );
+                limiter.drainScheduled = true;
+                try {
+                    scheduler.schedule(() -> {
+                        synchronized (limiter) {
+                            limiter.drainScheduled = false;
+                        }
+                        drain(limiter);
+                    }, Math.max(delay, TimeUnit.MILLISECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Scheduler is gone; the plugin is shutting down and queued calls are failed there
+                    limiter.drainScheduled = false;
+                }
+            }
+        }
+        
+        for (Waiter waiter : expired) {
+            timedOutCount.increment();
+            logger.warning(limiter.providerName + " request waited too long for admission");
+            waiter.result.complete(busy());
+        }
+        for (Waiter waiter : admitted) {
+            start(limiter, waiter);
+        }
+    }
+    
+    /**
+     * Run an admitted call and feed its outcome back into the limiter
+     */
+    private void start(AdaptiveLimiter limiter, Waiter waiter) {
+        CompletableFuture<AIResponse> upstream;
+        try {
+            upstream = waiter.call.get();
+        } catch (Throwable t) {
+            upstream = CompletableFuture.failedFuture(t);
+        }
+        
+        final CompletableFuture<AIResponse> inFlight = upstream;
+        waiter.result.whenComplete((response, throwable) -> {
+            if (waiter.result.isCancelled()) {
+                inFlight.cancel(true);
+            }
+        });
+        inFlight.whenComplete((response, throwable) -> {
+            if (response != null) {
+                observe(limiter, response, waiter.estimatedTokens);
+            }
+            if (throwable != null) {
+                waiter.result.completeExceptionally(throwable);
+            } else {
+                waiter.result.complete(response);
+            }
+            drain(limiter);
+        });
+    }
+    
+    private void observe(AdaptiveLimiter limiter, AIResponse response, int estimatedTokens) {
+        if (response.getErrorType() == AIResponse.ErrorType.RATE_LIMITED) {
+            throttledCount.increment();
+        }
+        
+        if (limiter.onResult(response, estimatedTokens, System.nanoTime())) {
+            logger.warning(String.format(
+                "%s is throttling requests; admission lowered to %.1f requests/s%s",
+                limiter.providerName,
+                limiter.getRequestsPerSecond(),
+                limiter.getTokensPerMinute() > 0 ? String.format(", %.0f tokens/min", limiter.getTokensPerMinute()) : ""
+            ));
+        }
+    }
+    
+    /**
+     * Fail every queued request; requests already admitted are left to finish
+     */
+    public void shutdown() {
+        shuttingDown = true;
+        for (AdaptiveLimiter limiter : limiters.values()) {
+            List<Waiter> pending;
+            synchronized (limiter) {
+                pending = new ArrayList<>(limiter.queue);
+                limiter.queue.clear();
+            }
+            for (Waiter waiter : pending) {
+                waiter.result.complete(busy());
+            }
+        }
+    }
+    
+    /**
+     * Get the number of requests waiting for admission across all providers
+     */
+    public int getQueueDepth() {
+        int total = 0;
+        for (AdaptiveLimiter limiter : limiters.values()) {
+            synchronized (limiter) {
+                total += limiter.queue.size();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Get the current admitted request rate for a provider
+     * @return Requests per second, or 0 if the provider has not been used yet
+     */
+    public double getRequestsPerSecond(String providerName) {
+        AdaptiveLimiter limiter = limiters.get(providerName);
+        return limiter == null ? 0 : limiter.getRequestsPerSecond();
+    }
+    
+    /**
+     * Get the current token budget for a provider
+     * @return Tokens per minute, or 0 if token pacing is off or the provider has not been used yet
+     */
+    public double getTokensPerMinute(String providerName) {
+        AdaptiveLimiter limiter = limiters.get(providerName);
+        return limiter == null ? 0 : limiter.getTokensPerMinute();
+    }
+    
+    /**
+     * Check whether a provider is paused after being told to back off
+     */
+    public boolean isPaused(String providerName) {
+        AdaptiveLimiter limiter = limiters.get(providerName);
+        return limiter != null && limiter.isPaused(System.nanoTime());
+    }
+    
+    /**
+     * Get the number of throttling responses received from providers
+     */
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+    
+    /**
+     * Get the number of requests failed because they waited longer than the admission timeout
+     */
+    public long getTimedOutCount() {
+        return timedOutCount.sum();
+    }
+    
+    private AIResponse busy() {
+        return AIResponse.failure(config.getBusyMessage(), AIResponse.ErrorType.BUSY);
+    }
+    
+    /**
+     * A request waiting for admission
+     */
+    static final class Waiter {
+        private final int estimatedTokens;
+        private final Supplier<CompletableFuture<AIResponse>> call;
+        private final long deadlineNanos;
+        private final CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        
+        private Waiter(int estimatedTokens, Supplier<CompletableFuture<AIResponse>> call, long deadlineNanos) {
+            this.estimatedTokens = estimatedTokens;
+            this.call = call;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+
+import java.util.Locale;
+
+/**
+ * Builds cache keys for context-free requests
+ * Questions that differ only in case, spacing or sentence punctuation share a key
+ */
+public final class CacheKey {
+    
+    private static final char SEPARATOR = '\u0000';
+    // Changed whenever normalization changes, so keys persisted by older versions no longer match
+    private static final String KEY_VERSION = "2";
+    // Always part of the key, so "2+2" and "2-2" get different keys
+    private static final String OPERATORS = "+-*/=^%<>";
+    // Part of the key only between two letters or digits, as in "1.5" or "10:30"
+    private static final String SEPARATORS = ".,:";
+    
+    private CacheKey() {
+    }
+    
+    /**
+     * Build the key for a message sent to a provider
+     * @param provider Provider the request would be sent to
+     * @param message The user's message
+     * @return Key combining provider, model, system prompt and normalized message
+     */
+    public static String of(AIProvider provider, String message) {
+        return KEY_VERSION + SEPARATOR +
+               provider.getProviderName() + SEPARATOR +
+               provider.getModelName() + SEPARATOR +
+               provider.getSystemPrompt().hashCode() + SEPARATOR +
+               normalize(message);
+    }
+    
+    /**
+     * Normalize message text: lower case, letters and digits in single-spaced words
+     * Operators are kept, so "2 + 2" matches "2+2" but not "22" or "2-2", and so are separators between
+     * two letters or digits as in "1.5"; apostrophes are dropped so "what's" matches "whats". Any other
+     * punctuation separates words.
+     */
+    public static String normalize(String message) {
+        StringBuilder normalized = new StringBuilder(message.length());
+        boolean pendingSpace = false;
+        
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                // Operators bind to the words around them
+                if (pendingSpace && normalized.length() > 0
+                        && OPERATORS.indexOf(normalized.charAt(normalized.length() - 1)) < 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(c);
+                pendingSpace = false;
+            } else if (OPERATORS.indexOf(c) >= 0) {
+                normalized.append(c);
+                pendingSpace = false;
+            } else if (c == '\'' || c == '\u2019') {
+                // Dropped without a break
+            } else if (SEPARATORS.indexOf(c) >= 0 && !pendingSpace && normalized.length() > 0
+                    && Character.isLetterOrDigit(normalized.charAt(normalized.length() - 1))
+                    && i + 1 < message.length() && Character.isLetterOrDigit(message.charAt(i + 1))) {
+                normalized.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,99 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * AIProvider decorator that answers repeated context-free questions from the response cache
+ * Requests that carry conversation history always go to the wrapped provider
+ */
+public class CachingProvider implements AIProvider {
+    
+    private final AIProvider delegate;
+    private final ResponseCache cache;
+    
+    public CachingProvider(AIProvider delegate, ResponseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        if (!isCacheable(conversationHistory)) {
+            return delegate.sendMessage(message, conversationHistory);
+        }
+        
+        String key = CacheKey.of(delegate, message);
+        return cache.lookup(key).thenCompose(cached -> {
+            if (cached != null) {
+                return CompletableFuture.completedFuture(AIResponse.cached(cached));
+            }
+            return delegate.sendMessage(message, conversationHistory)
+                .thenApply(response -> store(key, response));
+        });
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        if (!isCacheable(conversationHistory)) {
+            return delegate.streamMessage(message, conversationHistory, onDelta);
+        }
+        
+        String key = CacheKey.of(delegate, message);
+        return cache.lookup(key).thenCompose(cached -> {
+            if (cached != null) {
+                onDelta.accept(cached);
+                return CompletableFuture.completedFuture(AIResponse.cached(cached));
+            }
+            return delegate.streamMessage(message, conversationHistory, onDelta)
+                .thenApply(response -> store(key, response));
+        });
+    }
+    
+    private boolean isCacheable(List<ConversationMessage> conversationHistory) {
+        return cache.isEnabled() && (conversationHistory == null || conversationHistory.isEmpty());
+    }
+    
+    private AIResponse store(String key, AIResponse response) {
+        if (response.isSuccess() && response.getContent() != null && !response.getContent().isEmpty()) {
+            cache.put(key, response.getContent());
+        }
+        return response;
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,79 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * AIProvider decorator that shares one upstream call between identical context-free requests in flight
+ * Requests that carry conversation history always go to the wrapped provider
+ */
+public class CoalescingProvider implements AIProvider {
+    
+    private final AIProvider delegate;
+    private final RequestCoalescer coalescer;
+    
+    public CoalescingProvider(AIProvider delegate, RequestCoalescer coalescer) {
+        this.delegate = delegate;
+        this.coalescer = coalescer;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        if (!isCoalescable(conversationHistory)) {
+            return delegate.sendMessage(message, conversationHistory);
+        }
+        
+        return coalescer.execute(CacheKey.of(delegate, message), null,
+            onDelta -> delegate.sendMessage(message, conversationHistory));
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        if (!isCoalescable(conversationHistory)) {
+            return delegate.streamMessage(message, conversationHistory, onDelta);
+        }
+        
+        return coalescer.execute(CacheKey.of(delegate, message), onDelta,
+            publish -> delegate.streamMessage(message, conversationHistory, publish));
+    }
+    
+    private boolean isCoalescable(List<ConversationMessage> conversationHistory) {
+        return conversationHistory == null || conversationHistory.isEmpty();
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,533 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent tier of the response cache
+ * Responses are appended to a log file under the plugin data folder and found through an in-memory index
+ * All file access runs on one background thread, so callers never wait for the disk
+ */
+public class DiskResponseStore {
+    
+    private static final String LOG_FILE = "responses.log";
+    private static final String COMPACT_FILE = "responses.log.compact";
+    
+    // Record layout: magic, created millis, key length, content length, key, content, CRC32 of everything before it
+    private static final int RECORD_MAGIC = 0x4D434231;
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 4;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int MAX_FIELD_BYTES = 1 << 20;
+    
+    // Compaction shrinks the log to this fraction of the size cap to leave room for new records
+    private static final double COMPACT_TARGET_RATIO = 0.75;
+    // Stale records (replaced or expired) trigger compaction once they make up this much of the log
+    private static final double MAX_GARBAGE_RATIO = 0.5;
+    private static final long MIN_COMPACT_BYTES = 256 * 1024;
+    
+    private final Logger logger;
+    private final File directory;
+    private final ExecutorService io;
+    
+    // Written only on the I/O thread; read from any thread by contains()
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private volatile long fileBytes = 0;
+    private volatile long maxBytes;
+    private volatile long ttlMillis;
+    
+    // Only touched on the I/O thread
+    private RandomAccessFile file;
+    private long liveBytes = 0;
+    
+    /**
+     * Create the store and start loading its index in the background
+     * @param logger Plugin logger
+     * @param directory Directory holding the log file
+     * @param maxBytes Size cap for the log file
+     * @param ttlMillis Records older than this are ignored and dropped on compaction
+     */
+    public DiskResponseStore(Logger logger, File directory, long maxBytes, long ttlMillis) {
+        this.logger = logger;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.io = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MOBChatBot-Cache-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        io.execute(this::load);
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     */
+    public void configure(long maxBytes, long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        runOnIoThread(this::compactIfNeeded);
+    }
+    
+    /**
+     * Check whether a fresh record exists for a key
+     * Always false while the index is still loading
+     */
+    public boolean contains(String key) {
+        if (!loaded) {
+            return false;
+        }
+        IndexEntry entry = index.get(key);
+        return entry != null && !isExpired(entry.createdMillis, System.currentTimeMillis());
+    }
+    
+    /**
+     * Read a stored response
+     * @param key Key built by {@link CacheKey}
+     * @return CompletableFuture with the response, or null if it is missing, expired or unreadable
+     */
+    public CompletableFuture<StoredResponse> read(String key) {
+        CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        if (!runOnIoThread(() -> result.complete(readRecord(key)))) {
+            result.complete(null);
+        }
+        return result;
+    }
+    
+    private StoredResponse readRecord(String key) {
+        IndexEntry entry = index.get(key);
+        if (entry == null || file == null || isExpired(entry.createdMillis, System.currentTimeMillis())) {
+            return null;
+        }
+        try {
+            byte[] record = new byte[entry.length];
+            file.seek(entry.offset);
+            file.readFully(record);
+            StoredResponse response = decode(record, key);
+            if (response == null) {
+                logger.warning("Discarding corrupt cache record at offset " + entry.offset);
+                forget(key, entry);
+            }
+            return response;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read cached response", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Append a response to the log
+     */
+    public void write(String key, String content, long createdMillis) {
+        runOnIoThread(() -> {
+            if (file == null) {
+                return;
+            }
+            byte[] record = encode(key, content, createdMillis);
+            if (record == null) {
+                return;
+            }
+            try {
+                long offset = file.length();
+                file.seek(offset);
+                file.write(record);
+                fileBytes = offset + record.length;
+                
+                IndexEntry previous = index.put(key, new IndexEntry(offset, record.length, createdMillis));
+                if (previous != null) {
+                    liveBytes -= previous.length;
+                }
+                liveBytes += record.length;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to write cached response", e);
+                return;
+            }
+            compactIfNeeded();
+        });
+    }
+    
+    /**
+     * Remove every stored response
+     */
+    public void clear() {
+        runOnIoThread(() -> {
+            index.clear();
+            liveBytes = 0;
+            if (file == null) {
+                return;
+            }
+            try {
+                file.setLength(0);
+                fileBytes = 0;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to clear response cache file", e);
+            }
+        });
+    }
+    
+    public int size() {
+        return index.size();
+    }
+    
+    public long getFileBytes() {
+        return fileBytes;
+    }
+    
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    /**
+     * Finish pending writes and close the log file
+     * @param timeoutMillis How long to wait for pending writes
+     */
+    public void close(long timeoutMillis) {
+        io.execute(this::closeFile);
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warning("Response cache writes did not finish in time; some entries were not saved");
+                io.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Queue work for the I/O thread
+     * @return false if the store is closed and the task was dropped
+     */
+    private boolean runOnIoThread(Runnable task) {
+        try {
+            io.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Closed by a reload or shutdown; the cache keeps working from memory
+            return false;
+        }
+    }
+    
+    /**
+     * Build the index from the log file, truncating a torn record at the end
+     */
+    private void load() {
+        long started = System.currentTimeMillis();
+        File logFile = new File(directory, LOG_FILE);
+        
+        try {
+            Files.createDirectories(directory.toPath());
+            
+            long validBytes = 0;
+            if (logFile.exists()) {
+                validBytes = scan(logFile);
+            }
+            
+            file = new RandomAccessFile(logFile, "rw");
+            if (file.length() > validBytes) {
+                logger.warning(String.format(
+                    "Response cache file had %d unreadable trailing bytes; truncating",
+                    file.length() - validBytes
+                ));
+                file.setLength(validBytes);
+            }
+            fileBytes = validBytes;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to open response cache file; persistent cache disabled", e);
+            index.clear();
+            closeFile();
+            return;
+        }
+        
+        loaded = true;
+        logger.info(String.format(
+            "Loaded %d cached responses from disk (%d KB) in %dms",
+            index.size(), fileBytes / 1024, System.currentTimeMillis() - started
+        ));
+        compactIfNeeded();
+    }
+    
+    /**
+     * Read every record in the log into the index
+     * @return Length of the readable prefix of the file
+     */
+    private long scan(File logFile) throws IOException {
+        long now = System.currentTimeMillis();
+        long offset = 0;
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+            while (true) {
+                byte[] header = new byte[HEADER_BYTES];
+                try {
+                    in.readFully(header);
+                } catch (EOFException e) {
+                    return offset;
+                }
+                
+                ByteBuffer buffer = ByteBuffer.wrap(header);
+                int magic = buffer.getInt();
+                long createdMillis = buffer.getLong();
+                int keyLength = buffer.getInt();
+                int contentLength = buffer.getInt();
+                if (magic != RECORD_MAGIC || !isValidLength(keyLength) || !isValidLength(contentLength)) {
+                    return offset;
+                }
+                
+                int length = HEADER_BYTES + keyLength + contentLength + CHECKSUM_BYTES;
+                byte[] record = new byte[length];
+                System.arraycopy(header, 0, record, 0, HEADER_BYTES);
+                try {
+                    in.readFully(record, HEADER_BYTES, length - HEADER_BYTES);
+                } catch (EOFException e) {
+                    return offset;
+                }
+                if (!hasValidChecksum(record)) {
+                    return offset;
+                }
+                
+                String key = new String(record, HEADER_BYTES, keyLength, StandardCharsets.UTF_8);
+                if (!isExpired(createdMillis, now)) {
+                    IndexEntry previous = index.put(key, new IndexEntry(offset, length, createdMillis));
+                    if (previous != null) {
+                        liveBytes -= previous.length;
+                    }
+                    liveBytes += length;
+                } else {
+                    IndexEntry previous = index.remove(key);
+                    if (previous != null) {
+                        liveBytes -= previous.length;
+                    }
+                }
+                offset += length;
+            }
+        }
+    }
+    
+    /**
+     * Rewrite the log when it is over the size cap or mostly stale
+     */
+    private void compactIfNeeded() {
+        if (file == null) {
+            return;
+        }
+        boolean overCap = fileBytes > maxBytes;
+        boolean mostlyGarbage = fileBytes > MIN_COMPACT_BYTES && liveBytes < fileBytes * (1 - MAX_GARBAGE_RATIO);
+        if (overCap || mostlyGarbage) {
+            compact();
+        }
+    }
+    
+    /**
+     * Copy the newest fresh records into a new log and swap it in
+     * The oldest records are dropped until the result fits the compaction target
+     */
+    private void compact() {
+        long started = System.currentTimeMillis();
+        long before = fileBytes;
+        long now = started;
+        long target = (long) (maxBytes * COMPACT_TARGET_RATIO);
+        
+        List<Map.Entry<String, IndexEntry>> newestFirst = new ArrayList<>(index.entrySet());
+        newestFirst.sort((a, b) -> Long.compare(b.getValue().createdMillis, a.getValue().createdMillis));
+        
+        File compactFile = new File(directory, COMPACT_FILE);
+        File logFile = new File(directory, LOG_FILE);
+        Map<String, IndexEntry> compacted = new HashMap<>();
+        long written = 0;
+        
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(compactFile))) {
+            for (Map.Entry<String, IndexEntry> entry : newestFirst) {
+                IndexEntry source = entry.getValue();
+                if (isExpired(source.createdMillis, now)) {
+                    continue;
+                }
+                if (written + source.length > target) {
+                    break;
+                }
+                byte[] record = new byte[source.length];
+                file.seek(source.offset);
+                file.readFully(record);
+                if (!hasValidChecksum(record)) {
+                    continue;
+                }
+                out.write(record);
+                compacted.put(entry.getKey(), new IndexEntry(written, source.length, source.createdMillis));
+                written += source.length;
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Response cache compaction failed; keeping the current file", e);
+            compactFile.delete();
+            return;
+        }
+        
+        try {
+            file.close();
+            file = null;
+            Files.move(compactFile.toPath(), logFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            file = new RandomAccessFile(logFile, "rw");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to swap in compacted response cache; persistent cache disabled", e);
+            index.clear();
+            closeFile();
+            loaded = false;
+            return;
+        }
+        
+        index.keySet().retainAll(compacted.keySet());
+        index.putAll(compacted);
+        liveBytes = written;
+        fileBytes = written;
+        
+        logger.info(String.format(
+            "Compacted response cache: %d KB -> %d KB, %d entries kept in %dms",
+            before / 1024, written / 1024, compacted.size(), System.currentTimeMillis() - started
+        ));
+    }
+    
+    private void forget(String key, IndexEntry entry) {
+        if (index.remove(key, entry)) {
+            liveBytes -= entry.length;
+        }
+    }
+    
+    private void closeFile() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close response cache file", e);
+        }
+        file = null;
+    }
+    
+    private boolean isExpired(long createdMillis, long now) {
+        return now - createdMillis > ttlMillis;
+    }
+    
+    private static boolean isValidLength(int length) {
+        return length >= 0 && length <= MAX_FIELD_BYTES;
+    }
+    
+    private static byte[] encode(String key, String content, long createdMillis) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_FIELD_BYTES || contentBytes.length > MAX_FIELD_BYTES) {
+            return null;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + contentBytes.length + CHECKSUM_BYTES);
+        buffer.putInt(RECORD_MAGIC);
+        buffer.putLong(createdMillis);
+        buffer.putInt(keyBytes.length);
+        buffer.putInt(contentBytes.length);
+        buffer.put(keyBytes);
+        buffer.put(contentBytes);
+        buffer.putInt((int) checksum(buffer.array(), buffer.position()));
+        return buffer.array();
+    }
+    
+    /**
+     * Decode a record read from the index
+     * @return The stored response, or null if the record is damaged or belongs to another key
+     */
+    private static StoredResponse decode(byte[] record, String expectedKey) {
+        if (record.length < HEADER_BYTES + CHECKSUM_BYTES || !hasValidChecksum(record)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        if (buffer.getInt() != RECORD_MAGIC) {
+            return null;
+        }
+        long createdMillis = buffer.getLong();
+        int keyLength = buffer.getInt();
+        int contentLength = buffer.getInt();
+        if (HEADER_BYTES + keyLength + contentLength + CHECKSUM_BYTES != record.length) {
+            return null;
+        }
+        
+        String key = new String(record, HEADER_BYTES, keyLength, StandardCharsets.UTF_8);
+        if (!key.equals(expectedKey)) {
+            return null;
+        }
+        String content = new String(record, HEADER_BYTES + keyLength, contentLength, StandardCharsets.UTF_8);
+        return new StoredResponse(content, createdMillis);
+    }
+    
+    private static boolean hasValidChecksum(byte[] record) {
+        int bodyLength = record.length - CHECKSUM_BYTES;
+        int stored = ByteBuffer.wrap(record, bodyLength, CHECKSUM_BYTES).getInt();
+        return stored == (int) checksum(record, bodyLength);
+    }
+    
+    private static long checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return crc.getValue();
+    }
+    
+    /**
+     * A response read back from disk
+     */
+    public static final class StoredResponse {
+        private final String content;
+        private final long createdMillis;
+        
+        private StoredResponse(String content, long createdMillis) {
+            this.content = content;
+            this.createdMillis = createdMillis;
+        }
+        
+        public String getContent() {
+            return content;
+        }
+        
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+    }
+    
+    /**
+     * Location of a record in the log
+     */
+    private static final class IndexEntry {
+        private final long offset;
+        private final int length;
+        private final long createdMillis;
+        
+        private IndexEntry(long offset, int length, long createdMillis) {
+            this.offset = offset;
+            this.length = length;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import me.drendov.MOBChatBot.ai.AIResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-flight registry for identical in-flight requests
+ * The first caller for a key starts the upstream call; callers arriving before it finishes share its result
+ * Outlives provider rebuilds so the deduplication count survives a reload
+ */
+public class RequestCoalescer {
+    
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+    private final LongAdder deduplicated = new LongAdder();
+    
+    /**
+     * Run a call, or join an identical call that is already running
+     * Joined streaming callers first receive the text streamed so far, then each new delta
+     * @param key Key built by {@link CacheKey}
+     * @param onDelta Receives streamed text, or null if the caller does not stream
+     * @param call Starts the upstream request, forwarding streamed text to the given consumer
+     * @return CompletableFuture with this caller's response; cancelling it does not affect other callers
+     */
+    public CompletableFuture<AIResponse> execute(String key, Consumer<String> onDelta,
+                                                 Function<Consumer<String>, CompletableFuture<AIResponse>> call) {
+        InFlight flight;
+        synchronized (this) {
+            flight = inFlight.get(key);
+            if (flight != null) {
+                deduplicated.increment();
+                return flight.join(onDelta);
+            }
+            flight = new InFlight(onDelta);
+            inFlight.put(key, flight);
+        }
+        
+        final InFlight leader = flight;
+        CompletableFuture<AIResponse> upstream;
+        try {
+            upstream = call.apply(onDelta != null ? leader::publish : null);
+        } catch (Throwable t) {
+            upstream = CompletableFuture.failedFuture(t);
+        }
+        
+        upstream.whenComplete((response, throwable) -> {
+            synchronized (this) {
+                inFlight.remove(key, leader);
+            }
+            leader.finish(response, throwable);
+        });
+        return leader.result.thenApply(Function.identity());
+    }
+    
+    /**
+     * Get the number of requests that joined an in-flight call instead of starting their own
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.sum();
+    }
+    
+    /**
+     * Get the number of distinct requests currently in flight
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+    
+    /**
+     * One upstream call and the callers waiting on it
+     */
+    private static final class InFlight {
+        private final boolean streaming;
+        private final CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        private final StringBuilder streamed = new StringBuilder();
+        private final List<Consumer<String>> listeners = new ArrayList<>();
+        
+        private InFlight(Consumer<String> leaderDelta) {
+            this.streaming = leaderDelta != null;
+            if (leaderDelta != null) {
+                listeners.add(leaderDelta);
+            }
+        }
+        
+        /**
+         * Attach another caller to this call
+         */
+        private CompletableFuture<AIResponse> join(Consumer<String> onDelta) {
+            CompletableFuture<AIResponse> shared = result.thenApply(InFlight::forFollower);
+            if (onDelta == null) {
+                return shared;
+            }
+            
+            if (!streaming) {
+                // The leader is not streaming, so hand over the whole answer at once
+                return shared.thenApply(response -> {
+                    if (response.isSuccess() && response.getContent() != null) {
+                        onDelta.accept(response.getContent());
+                    }
+                    return response;
+                });
+            }
+            
+            synchronized (this) {
+                if (streamed.length() > 0) {
+                    onDelta.accept(streamed.toString());
+                }
+                listeners.add(onDelta);
+            }
+            return shared;
+        }
+        
+        /**
+         * Forward a streamed delta from the upstream call to every attached caller
+         */
+        private synchronized void publish(String delta) {
+            streamed.append(delta);
+            for (Consumer<String> listener : listeners) {
+                listener.accept(delta);
+            }
+        }
+        
+        private void finish(AIResponse response, Throwable throwable) {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(response);
+            }
+        }
+        
+        /**
+         * Tokens are billed once, to the caller that made the upstream call
+         */
+        private static AIResponse forFollower(AIResponse response) {
+            if (!response.isSuccess()) {
+                return response;
+            }
+            return AIResponse.cached(response.getContent());
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Cache of AI responses to context-free questions
+ * The in-memory tier is bounded by entry count with least-recently-used eviction and a time-to-live
+ * An optional disk tier keeps responses across restarts and refills the memory tier on lookup
+ */
+public class ResponseCache {
+    
+    private static final long DISK_CLOSE_TIMEOUT_MILLIS = 5000;
+    
+    private final Logger logger;
+    private final File directory;
+    
+    // Access-ordered so the eldest entry is the least recently used
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    private volatile boolean enabled;
+    private volatile DiskResponseStore diskStore;
+    private int maxEntries;
+    private long ttlMillis;
+    
+    /**
+     * @param logger Plugin logger
+     * @param directory Directory for the persistent cache file
+     * @param config Plugin configuration
+     */
+    public ResponseCache(Logger logger, File directory, ConfigManager config) {
+        this.logger = logger;
+        this.directory = directory;
+        configure(config);
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     * The disk tier is opened or closed when persistence is toggled
+     */
+    public synchronized void configure(ConfigManager config) {
+        this.enabled = config.isCacheEnabled();
+        this.maxEntries = config.getCacheMaxEntries();
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(config.getCacheTtlMinutes());
+        evictOverflow();
+        
+        long maxDiskBytes = config.getCachePersistentMaxSizeMb() * 1024L * 1024L;
+        boolean persistent = enabled && config.isCachePersistentEnabled();
+        if (persistent && diskStore == null) {
+            diskStore = new DiskResponseStore(logger, directory, maxDiskBytes, ttlMillis);
+        } else if (persistent) {
+            diskStore.configure(maxDiskBytes, ttlMillis);
+        } else if (diskStore != null) {
+            diskStore.close(DISK_CLOSE_TIMEOUT_MILLIS);
+            diskStore = null;
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Look up a cached response, falling back to the disk tier on a memory miss
+     * Disk reads run on the cache I/O thread; memory hits complete immediately
+     * @param key Key built by {@link CacheKey}
+     * @return CompletableFuture with the cached content, or null on a miss
+     */
+    public CompletableFuture<String> lookup(String key) {
+        String content = getFromMemory(key);
+        if (content != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(content);
+        }
+        
+        DiskResponseStore store = diskStore;
+        if (store == null || !store.contains(key)) {
+            misses.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        return store.read(key).thenApply(stored -> {
+            if (stored == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            diskHits.increment();
+            promote(key, stored);
+            return stored.getContent();
+        });
+    }
+    
+    /**
+     * Store a response in memory and, when persistence is enabled, on disk
+     * @param key Key built by {@link CacheKey}
+     * @param content The response content
+     */
+    public void put(String key, String content) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            entries.put(key, new Entry(content, now));
+            evictOverflow();
+        }
+        
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            store.write(key, content, now);
+        }
+    }
+    
+    /**
+     * Remove every cached response from memory and disk
+     * @return Number of entries removed from the larger tier
+     */
+    public int clear() {
+        int removed;
+        synchronized (this) {
+            removed = entries.size();
+            entries.clear();
+        }
+        
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            removed = Math.max(removed, store.size());
+            store.clear();
+        }
+        return removed;
+    }
+    
+    /**
+     * Close the disk tier, waiting briefly for pending writes
+     */
+    public synchronized void shutdown() {
+        if (diskStore != null) {
+            diskStore.close(DISK_CLOSE_TIMEOUT_MILLIS);
+            diskStore = null;
+        }
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public boolean isPersistent() {
+        return diskStore != null;
+    }
+    
+    /**
+     * Get the number of responses indexed on disk, or 0 without a disk tier
+     */
+    public int getDiskSize() {
+        DiskResponseStore store = diskStore;
+        return store == null ? 0 : store.size();
+    }
+    
+    /**
+     * Get the size of the disk cache file in bytes, or 0 without a disk tier
+     */
+    public long getDiskBytes() {
+        DiskResponseStore store = diskStore;
+        return store == null ? 0 : store.getFileBytes();
+    }
+    
+    /**
+     * Check whether the disk tier has finished loading its index
+     */
+    public boolean isDiskLoaded() {
+        DiskResponseStore store = diskStore;
+        return store != null && store.isLoaded();
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Get the fraction of lookups that were hits
+     * @return Hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+    
+    private synchronized String getFromMemory(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            evictions.increment();
+            return null;
+        }
+        return entry.content;
+    }
+    
+    /**
+     * Copy a response read from disk into memory, keeping its original age
+     */
+    private synchronized void promote(String key, DiskResponseStore.StoredResponse stored) {
+        entries.put(key, new Entry(stored.getContent(), stored.getCreatedMillis()));
+        evictOverflow();
+    }
+    
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdMillis > ttlMillis;
+    }
+    
+    /**
+     * Drop expired entries from the old end, then least recently used ones until the size limit is met
+     */
+    private void evictOverflow() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entries.size() <= maxEntries && !isExpired(entry, now)) {
+                break;
+            }
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+    
+    /**
+     * A cached response and when it was stored
+     */
+    private static final class Entry {
+        private final String content;
+        private final long createdMillis;
+        
+        private Entry(String content, long createdMillis) {
+            this.content = content;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
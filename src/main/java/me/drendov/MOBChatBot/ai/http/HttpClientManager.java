@@ -0,0 +1,141 @@
+package me.drendov.MOBChatBot.ai.http;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * HTTP client shared by the OpenAI and Ollama providers
+ * Every provider client is derived from one base client, so they share its connection pool, TLS setup and
+ * protocol negotiation while each keeps its own dispatcher and timeouts. The manager lives as long as the
+ * plugin, so open connections survive provider rebuilds on reload.
+ */
+public class HttpClientManager {
+    
+    private final Logger logger;
+    
+    private volatile OkHttpClient baseClient;
+    private volatile boolean prewarmEnabled;
+    private int maxIdleConnections;
+    private int keepAliveSeconds;
+    private boolean http2Enabled;
+    
+    public HttpClientManager(Logger logger, ConfigManager config) {
+        this.logger = logger;
+        configure(config);
+    }
+    
+    /**
+     * Apply settings from a reloaded configuration
+     * The pool is only replaced when its settings changed; idle connections in the old pool are closed
+     */
+    public synchronized void configure(ConfigManager config) {
+        this.prewarmEnabled = config.isHttpPrewarmEnabled();
+        if (baseClient != null
+                && maxIdleConnections == config.getHttpMaxIdleConnections()
+                && keepAliveSeconds == config.getHttpKeepAliveSeconds()
+                && http2Enabled == config.isHttp2Enabled()) {
+            return;
+        }
+        
+        OkHttpClient previous = baseClient;
+        this.maxIdleConnections = config.getHttpMaxIdleConnections();
+        this.keepAliveSeconds = config.getHttpKeepAliveSeconds();
+        this.http2Enabled = config.isHttp2Enabled();
+        
+        // HTTP/2 is negotiated during the TLS handshake; plain-text servers such as Ollama stay on HTTP/1.1
+        List<Protocol> protocols = http2Enabled
+            ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+            : Collections.singletonList(Protocol.HTTP_1_1);
+        this.baseClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .protocols(protocols)
+                .retryOnConnectionFailure(true)
+                .build();
+        
+        if (previous != null) {
+            previous.connectionPool().evictAll();
+        }
+    }
+    
+    /**
+     * Create a client for one provider on the shared connection pool
+     * @param maxRequests Calls allowed on the wire at once
+     * @param maxRequestsPerHost Calls allowed on the wire at once to one host
+     * @param connectTimeoutSeconds Longest wait to open a connection
+     * @param readTimeoutSeconds Longest wait for the next bytes of a response, also used for writes
+     * @param callTimeoutSeconds Longest time for a whole call including reading the body; 0 for no limit
+     */
+    public OkHttpClient newClient(int maxRequests, int maxRequestsPerHost, int connectTimeoutSeconds,
+                                  int readTimeoutSeconds, int callTimeoutSeconds) {
+        // Calls run on the dispatcher's own pool; these bound how many are on the wire at once
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        
+        return baseClient.newBuilder()
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .callTimeout(callTimeoutSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+    
+    /**
+     * Get the connection pool new clients are created on
+     * A provider built on an older pool should be rebuilt when this changes
+     */
+    public ConnectionPool getConnectionPool() {
+        return baseClient.connectionPool();
+    }
+    
+    /**
+     * Open a connection to a provider ahead of its first request, so players do not wait for the TCP and TLS
+     * handshakes; the response itself is ignored
+     * @param client Client of the provider, whose pool keeps the connection
+     * @param url Any address on the provider's host
+     * @param providerName Provider name used in log messages
+     */
+    public void prewarm(OkHttpClient client, String url, String providerName) {
+        if (!prewarmEnabled) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        Request request = new Request.Builder().url(url).head().build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                logger.warning("Could not open a connection to " + providerName + ": " + e.getMessage());
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                logger.info("Connected to " + providerName + " over " + response.protocol() + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            }
+        });
+    }
+    
+    /**
+     * Close the idle connections of the shared pool
+     */
+    public void shutdown() {
+        baseClient.connectionPool().evictAll();
+    }
+}
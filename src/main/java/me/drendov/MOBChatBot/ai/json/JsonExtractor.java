@@ -0,0 +1,177 @@
+package me.drendov.MOBChatBot.ai.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pulls a few fields out of a JSON document with a streaming JsonReader
+ * Fields are selected by dotted paths such as "choices.0.message.content", where numbers select array elements.
+ * Everything else is skipped as it is read, so neither a tree nor a string of the whole document is built.
+ * The document is always read to the end, which lets an HTTP connection be reused afterwards.
+ * An extractor is immutable and can be shared between threads; the target it fills cannot.
+ * @param <T> Type of the object the selected values are stored in
+ */
+public final class JsonExtractor<T> {
+    
+    /**
+     * Reads the value of a selected field into the target
+     * Null values are skipped without calling the reader
+     */
+    @FunctionalInterface
+    public interface FieldReader<T> {
+        void read(JsonReader reader, T target) throws IOException;
+    }
+    
+    private final Node<T> root;
+    
+    private JsonExtractor(Node<T> root) {
+        this.root = root;
+    }
+    
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+    
+    /**
+     * Read a UTF-8 document from a stream
+     * @return The target, for chaining
+     * @throws JsonSyntaxException If the document is not valid JSON or a field has an unexpected type
+     * @throws IOException If the stream fails or ends early
+     */
+    public T read(InputStream in, T target) throws IOException {
+        return read(new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8)), target);
+    }
+    
+    /**
+     * Read a document held in a string
+     * @return The target, for chaining
+     * @throws JsonSyntaxException If the document is not valid JSON or a field has an unexpected type
+     */
+    public T read(String json, T target) {
+        try {
+            return read(new JsonReader(new StringReader(json)), target);
+        } catch (JsonSyntaxException e) {
+            throw e;
+        } catch (IOException e) {
+            // A string cannot fail to read, so the document was cut short
+            throw new JsonSyntaxException(e);
+        }
+    }
+    
+    private T read(JsonReader reader, T target) throws IOException {
+        try {
+            visit(reader, root, target);
+            return target;
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+    
+    private void visit(JsonReader reader, Node<T> node, T target) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        if (node.reader != null) {
+            node.reader.read(reader, target);
+            return;
+        }
+        
+        if (token == JsonToken.BEGIN_OBJECT && !node.fields.isEmpty()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                Node<T> child = node.fields.get(reader.nextName());
+                if (child != null) {
+                    visit(reader, child, target);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY && !node.elements.isEmpty()) {
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                Node<T> child = i < node.elements.size() ? node.elements.get(i) : null;
+                if (child != null) {
+                    visit(reader, child, target);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+    }
+    
+    /**
+     * Collects the fields to extract
+     */
+    public static final class Builder<T> {
+        
+        private final Node<T> root = new Node<>();
+        
+        private Builder() {
+        }
+        
+        /**
+         * Select a field
+         * @param path Dotted path from the top of the document; numeric segments select array elements
+         * @param reader Stores the field's value in the target
+         */
+        public Builder<T> on(String path, FieldReader<T> reader) {
+            Node<T> node = root;
+            for (String segment : path.split("\\.")) {
+                if (node.reader != null) {
+                    throw new IllegalArgumentException("Path " + path + " goes inside a field that is already selected");
+                }
+                node = node.child(segment);
+            }
+            if (node.reader != null || !node.fields.isEmpty() || !node.elements.isEmpty()) {
+                throw new IllegalArgumentException("Path " + path + " overlaps another selected path");
+            }
+            node.reader = reader;
+            return this;
+        }
+        
+        public JsonExtractor<T> build() {
+            return new JsonExtractor<>(root);
+        }
+    }
+    
+    /**
+     * One step of the selected paths; either a leaf with a reader or a branch with children
+     */
+    private static final class Node<T> {
+        private final Map<String, Node<T>> fields = new HashMap<>();
+        private final List<Node<T>> elements = new ArrayList<>();
+        private FieldReader<T> reader;
+        
+        private Node<T> child(String segment) {
+            if (!segment.isEmpty() && segment.chars().allMatch(Character::isDigit)) {
+                int index = Integer.parseInt(segment);
+                while (elements.size() <= index) {
+                    elements.add(null);
+                }
+                if (elements.get(index) == null) {
+                    elements.set(index, new Node<>());
+                }
+                return elements.get(index);
+            }
+            return fields.computeIfAbsent(segment, name -> new Node<>());
+        }
+    }
+}
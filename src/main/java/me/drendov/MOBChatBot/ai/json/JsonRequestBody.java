@@ -0,0 +1,67 @@
+package me.drendov.MOBChatBot.ai.json;
+
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * Request body written with a streaming JsonWriter straight into the connection's sink
+ * No JSON tree or string of the whole body is built; OkHttp may call writeTo again when it retries,
+ * so the content must be repeatable
+ */
+public final class JsonRequestBody extends RequestBody {
+    
+    /**
+     * Writes a JSON document
+     */
+    @FunctionalInterface
+    public interface Content {
+        void write(JsonWriter writer) throws IOException;
+    }
+    
+    private final MediaType contentType;
+    private final Content content;
+    
+    public JsonRequestBody(MediaType contentType, Content content) {
+        this.contentType = contentType;
+        this.content = content;
+    }
+    
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+    
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        write(sink, content);
+    }
+    
+    /**
+     * Write a JSON document into a byte array of exactly its encoded size
+     * The text is encoded once into pooled segments and copied out once
+     */
+    public static byte[] toByteArray(Content content) throws IOException {
+        Buffer buffer = new Buffer();
+        write(buffer, content);
+        return buffer.readByteArray();
+    }
+    
+    /**
+     * Encode a string once as a JSON literal, for fixed values written with {@link JsonWriter#jsonValue}
+     */
+    public static String encode(String value) {
+        return new JsonPrimitive(value).toString();
+    }
+    
+    private static void write(BufferedSink sink, Content content) throws IOException {
+        JsonWriter writer = new JsonWriter(new SinkWriter(sink));
+        content.write(writer);
+        writer.flush();
+    }
+}
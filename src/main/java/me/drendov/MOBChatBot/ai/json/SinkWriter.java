@@ -0,0 +1,52 @@
+package me.drendov.MOBChatBot.ai.json;
+
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that encodes characters straight into an Okio sink
+ * Text goes into the sink's pooled segments without an intermediate char or byte buffer
+ */
+final class SinkWriter extends Writer {
+    
+    private final BufferedSink sink;
+    
+    SinkWriter(BufferedSink sink) {
+        this.sink = sink;
+    }
+    
+    @Override
+    public void write(int c) throws IOException {
+        sink.writeUtf8CodePoint(c);
+    }
+    
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        sink.writeUtf8(str, off, off + len);
+    }
+    
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            char c = cbuf[i];
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(cbuf[i + 1])) {
+                sink.writeUtf8CodePoint(Character.toCodePoint(c, cbuf[++i]));
+            } else {
+                sink.writeUtf8CodePoint(c);
+            }
+        }
+    }
+    
+    @Override
+    public void flush() {
+        // The sink is flushed by its owner
+    }
+    
+    @Override
+    public void close() {
+        // The sink is closed by its owner
+    }
+}
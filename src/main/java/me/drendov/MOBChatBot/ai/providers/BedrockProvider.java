@@ -1,21 +1,53 @@
 package me.drendov.MOBChatBot.ai.providers;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
 import me.drendov.MOBChatBot.ai.AIResponse;
 import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.json.JsonExtractor;
+import me.drendov.MOBChatBot.ai.json.JsonRequestBody;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import me.drendov.MOBChatBot.metrics.ProviderMetrics;
+import me.drendov.MOBChatBot.metrics.Stage;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClientBuilder;
+import software.amazon.awssdk.services.bedrockruntime.model.AccessDeniedException;
+import software.amazon.awssdk.services.bedrockruntime.model.InternalServerException;
 import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelRequest;
 import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelResponse;
+import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelWithResponseStreamRequest;
+import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelWithResponseStreamResponseHandler;
+import software.amazon.awssdk.services.bedrockruntime.model.ModelNotReadyException;
+import software.amazon.awssdk.services.bedrockruntime.model.ModelTimeoutException;
+import software.amazon.awssdk.services.bedrockruntime.model.ServiceQuotaExceededException;
+import software.amazon.awssdk.services.bedrockruntime.model.ServiceUnavailableException;
+import software.amazon.awssdk.services.bedrockruntime.model.ThrottlingException;
+import software.amazon.awssdk.services.bedrockruntime.model.ValidationException;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -24,22 +56,56 @@ import java.util.logging.Logger;
 public class BedrockProvider implements AIProvider {
     
     private static final String SYSTEM_PROMPT = "You are a helpful Minecraft companion. Keep responses brief and Minecraft-focused.";
+    // Encoded once; written as is into requests without a conversation summary
+    private static final String SYSTEM_PROMPT_JSON = JsonRequestBody.encode(SYSTEM_PROMPT);
+    
+    // Only the reply text and token usage are read from responses; everything else is skipped
+    static final JsonExtractor<Completion> COMPLETION = JsonExtractor.<Completion>builder()
+            .on("content.0.text", (reader, completion) -> completion.content = reader.nextString())
+            .on("usage.input_tokens", (reader, completion) -> completion.inputTokens = reader.nextInt())
+            .on("usage.output_tokens", (reader, completion) -> completion.outputTokens = reader.nextInt())
+            .build();
+    static final JsonExtractor<StreamEvent> STREAM_EVENT = JsonExtractor.<StreamEvent>builder()
+            .on("type", (reader, event) -> event.type = reader.nextString())
+            .on("message.usage.input_tokens", (reader, event) -> event.inputTokens = reader.nextInt())
+            .on("delta.text", (reader, event) -> event.text = reader.nextString())
+            .on("usage.output_tokens", (reader, event) -> event.outputTokens = reader.nextInt())
+            .build();
     
     private final Logger logger;
+    private final AIRequestExecutor requestExecutor;
+    private final ProviderMetrics metrics;
     private final String region;
+    private final String endpointUrl;
     private final String accessKey;
     private final String secretKey;
     private final String model;
+    private final int maxConcurrency;
+    private final int connectionAcquisitionTimeoutSeconds;
+    private final int connectionTtlSeconds;
     
-    private BedrockRuntimeClient bedrockClient;
+    private BedrockRuntimeAsyncClient bedrockClient;
     private boolean initialized = false;
     
-    public BedrockProvider(Logger logger, String region, String accessKey, String secretKey, String model) {
+    /**
+     * @param metrics Registry the provider records its stage latencies in
+     * @param endpointUrl Endpoint to call instead of the region's, such as a local test server; empty for the region's own
+     */
+    public BedrockProvider(Logger logger, AIRequestExecutor requestExecutor, MetricsRegistry metrics,
+                           String region, String endpointUrl,
+                           String accessKey, String secretKey, String model,
+                           int maxConcurrency, int connectionAcquisitionTimeoutSeconds, int connectionTtlSeconds) {
         this.logger = logger;
+        this.requestExecutor = requestExecutor;
+        this.metrics = metrics.forProvider("Bedrock", model);
         this.region = region;
+        this.endpointUrl = endpointUrl;
         this.accessKey = accessKey;
         this.secretKey = secretKey;
         this.model = model;
+        this.maxConcurrency = maxConcurrency;
+        this.connectionAcquisitionTimeoutSeconds = connectionAcquisitionTimeoutSeconds;
+        this.connectionTtlSeconds = connectionTtlSeconds;
     }
     
     @Override
@@ -53,10 +119,22 @@ public class BedrockProvider implements AIProvider {
             // Create AWS credentials
             AwsBasicCredentials credentials = AwsBasicCredentials.create(accessKey, secretKey);
             
-            // Build Bedrock Runtime client
-            bedrockClient = BedrockRuntimeClient.builder()
+            // Build Bedrock Runtime client on a non-blocking Netty transport
+            BedrockRuntimeAsyncClientBuilder builder = BedrockRuntimeAsyncClient.builder();
+            if (endpointUrl != null && !endpointUrl.isEmpty()) {
+                builder.endpointOverride(URI.create(endpointUrl));
+            }
+            bedrockClient = builder
                     .region(Region.of(region))
                     .credentialsProvider(StaticCredentialsProvider.create(credentials))
+                    .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                            .maxConcurrency(maxConcurrency)
+                            .connectionAcquisitionTimeout(Duration.ofSeconds(connectionAcquisitionTimeoutSeconds))
+                            .connectionTimeToLive(Duration.ofSeconds(connectionTtlSeconds)))
+                    // Retries are handled by the plugin's retry layer, which respects the retry budget
+                    .overrideConfiguration(ClientOverrideConfiguration.builder()
+                            .retryPolicy(RetryPolicy.none())
+                            .build())
                     .build();
             
             initialized = true;
@@ -83,6 +161,16 @@ public class BedrockProvider implements AIProvider {
         return "Bedrock";
     }
     
+    @Override
+    public String getModelName() {
+        return model;
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return SYSTEM_PROMPT;
+    }
+    
     @Override
     public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
         if (!initialized || !isConfigured()) {
@@ -91,126 +179,300 @@ public class BedrockProvider implements AIProvider {
             );
         }
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Build request JSON for Claude
-                JsonObject requestJson = buildClaudeRequest(message, conversationHistory);
-                
-                // Create Bedrock request
-                InvokeModelRequest request = InvokeModelRequest.builder()
-                        .modelId(model)
-                        .contentType("application/json")
-                        .accept("application/json")
-                        .body(SdkBytes.fromUtf8String(requestJson.toString()))
-                        .build();
-                
-                // Invoke model
-                InvokeModelResponse response = bedrockClient.invokeModel(request);
-                
-                // Parse response
-                String responseBody = response.body().asUtf8String();
-                return parseClaudeResponse(responseBody);
-                
-            } catch (software.amazon.awssdk.services.bedrockruntime.model.ThrottlingException e) {
-                logger.warning("Bedrock API: Rate limit exceeded");
-                return AIResponse.failure("Rate limit exceeded. Please try again later.");
-                
-            } catch (software.amazon.awssdk.services.bedrockruntime.model.ValidationException e) {
-                logger.severe("Bedrock API: Validation error - " + e.getMessage());
-                return AIResponse.failure("Invalid request: " + e.getMessage());
-                
-            } catch (software.amazon.awssdk.services.bedrockruntime.model.ServiceQuotaExceededException e) {
-                logger.warning("Bedrock API: Service quota exceeded");
-                return AIResponse.failure("Service quota exceeded. Contact administrator.");
-                
-            } catch (Exception e) {
-                logger.severe("Bedrock API error: " + e.getMessage());
-                e.printStackTrace();
-                return AIResponse.failure("Unexpected error: " + e.getMessage());
-            }
+        long queuedNanos = System.nanoTime();
+        return requestExecutor.submitAsync(getProviderName(), () -> {
+            long startNanos = metrics.recordSince(Stage.QUEUE_WAIT, queuedNanos);
+            
+            // Create Bedrock request
+            InvokeModelRequest request = InvokeModelRequest.builder()
+                    .modelId(model)
+                    .contentType("application/json")
+                    .accept("application/json")
+                    .body(buildClaudeRequest(message, conversationHistory))
+                    .build();
+            long sentNanos = metrics.recordSince(Stage.REQUEST_BUILD, startNanos);
+            
+            // Invoke model; the SDK future completes on its own response threads
+            CompletableFuture<InvokeModelResponse> call = bedrockClient.invokeModel(request);
+            CompletableFuture<AIResponse> future = call.handle((response, throwable) -> {
+                long receivedNanos = metrics.recordSince(Stage.NETWORK, sentNanos);
+                if (throwable != null) {
+                    return handleError(throwable);
+                }
+                AIResponse parsed = parseClaudeResponse(response.body());
+                metrics.recordSince(Stage.PARSE, receivedNanos);
+                return parsed;
+            });
+            
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+            return future;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        if (!initialized || !isConfigured()) {
+            return CompletableFuture.completedFuture(
+                AIResponse.failure("Bedrock provider is not properly configured")
+            );
+        }
+        
+        long queuedNanos = System.nanoTime();
+        return requestExecutor.submitAsync(getProviderName(), () -> {
+            long startNanos = metrics.recordSince(Stage.QUEUE_WAIT, queuedNanos);
+            InvokeModelWithResponseStreamRequest request = InvokeModelWithResponseStreamRequest.builder()
+                    .modelId(model)
+                    .contentType("application/json")
+                    .accept("application/json")
+                    .body(buildClaudeRequest(message, conversationHistory))
+                    .build();
+            long sentNanos = metrics.recordSince(Stage.REQUEST_BUILD, startNanos);
+            
+            // Chunks are delivered one at a time, in order, by the SDK's event stream subscriber
+            StreamState state = new StreamState();
+            InvokeModelWithResponseStreamResponseHandler handler = InvokeModelWithResponseStreamResponseHandler.builder()
+                    .onResponse(response -> metrics.recordSince(Stage.NETWORK, sentNanos))
+                    .subscriber(InvokeModelWithResponseStreamResponseHandler.Visitor.builder()
+                            .onChunk(chunk -> handleStreamChunk(chunk.bytes(), state, onDelta))
+                            .build())
+                    .build();
+            
+            CompletableFuture<Void> call = bedrockClient.invokeModelWithResponseStream(request, handler);
+            CompletableFuture<AIResponse> future = call.handle((ignored, throwable) -> {
+                if (throwable != null) {
+                    return handleError(throwable);
+                }
+                metrics.record(Stage.PARSE, state.parseNanos);
+                return AIResponse.success(state.content.toString(), state.inputTokens + state.outputTokens);
+            });
+            
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+            return future;
         });
     }
     
     /**
-     * Build request JSON for Claude model
+     * Apply one streamed Claude event to the stream state
      */
-    private JsonObject buildClaudeRequest(String message, List<ConversationMessage> conversationHistory) {
-        JsonObject json = new JsonObject();
+    private void handleStreamChunk(SdkBytes chunk, StreamState state, Consumer<String> onDelta) {
+        StreamEvent event;
+        long startNanos = System.nanoTime();
+        try {
+            event = STREAM_EVENT.read(chunk.asInputStream(), new StreamEvent());
+        } catch (IOException e) {
+            // The chunk is already in memory
+            throw new UncheckedIOException(e);
+        }
+        state.parseNanos += System.nanoTime() - startNanos;
         
-        // Add system prompt
-        json.addProperty("system", SYSTEM_PROMPT);
+        switch (event.type) {
+            case "message_start":
+                state.inputTokens = event.inputTokens;
+                break;
+            case "content_block_delta":
+                if (event.text != null && !event.text.isEmpty()) {
+                    state.content.append(event.text);
+                    onDelta.accept(event.text);
+                }
+                break;
+            case "message_delta":
+                state.outputTokens = event.outputTokens;
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Fields read from one streamed Claude event
+     */
+    static final class StreamEvent {
+        String type = "";
+        String text;
+        int inputTokens;
+        int outputTokens;
+    }
+    
+    /**
+     * Accumulated text and token counts of a streamed response
+     */
+    private static final class StreamState {
+        private final StringBuilder content = new StringBuilder();
+        private int inputTokens;
+        private int outputTokens;
+        private long parseNanos;
+    }
+    
+    /**
+     * Map a failed Bedrock call to a failure response
+     */
+    private AIResponse handleError(Throwable throwable) {
+        Throwable cause = throwable;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
         
-        // Build messages array
-        JsonArray messages = new JsonArray();
+        if (cause instanceof ThrottlingException) {
+            logger.warning("Bedrock API: Rate limit exceeded");
+            return AIResponse.failure("Rate limit exceeded. Please try again later.", AIResponse.ErrorType.RATE_LIMITED);
+            
+        } else if (cause instanceof ValidationException) {
+            logger.severe("Bedrock API: Validation error - " + cause.getMessage());
+            return AIResponse.failure("Invalid request: " + cause.getMessage(), AIResponse.ErrorType.INVALID_REQUEST);
+            
+        } else if (cause instanceof ServiceQuotaExceededException) {
+            logger.warning("Bedrock API: Service quota exceeded");
+            return AIResponse.failure("Service quota exceeded. Contact administrator.", AIResponse.ErrorType.QUOTA_EXCEEDED);
+            
+        } else if (cause instanceof AccessDeniedException) {
+            logger.severe("Bedrock API: Access denied - " + cause.getMessage());
+            return AIResponse.failure("Access denied. Contact administrator.", AIResponse.ErrorType.AUTHENTICATION);
+            
+        } else if (cause instanceof ModelTimeoutException) {
+            logger.warning("Bedrock API: Model timed out");
+            return AIResponse.failure("The model took too long to respond.", AIResponse.ErrorType.TIMEOUT);
+            
+        } else if (cause instanceof InternalServerException || cause instanceof ServiceUnavailableException
+                || cause instanceof ModelNotReadyException) {
+            logger.warning("Bedrock API: Service unavailable - " + cause.getMessage());
+            return AIResponse.failure("Bedrock service unavailable", AIResponse.ErrorType.SERVER_ERROR);
+            
+        } else if (cause instanceof CancellationException) {
+            return AIResponse.failure("Request cancelled", AIResponse.ErrorType.CANCELLED);
+            
+        } else if (isTimeout(cause)) {
+            logger.warning("Bedrock API: Request timed out - " + cause.getMessage());
+            return AIResponse.failure("Bedrock request timed out", AIResponse.ErrorType.TIMEOUT);
+            
+        } else if (cause instanceof SdkClientException || cause instanceof IOException
+                || cause.getCause() instanceof IOException) {
+            // Connection reset or refused, or no connection free in the pool; the SDK no longer retries these
+            logger.warning("Bedrock API: Network error - " + cause.getMessage());
+            return AIResponse.failure("Network error: " + cause.getMessage(), AIResponse.ErrorType.NETWORK);
+        }
         
-        // Add conversation history
-        if (conversationHistory != null) {
-            for (ConversationMessage msg : conversationHistory) {
-                JsonObject historyMessage = new JsonObject();
-                historyMessage.addProperty("role", msg.getRole());
+        logger.log(Level.SEVERE, "Bedrock API error: " + cause.getMessage(), cause);
+        return AIResponse.failure("Unexpected error: " + cause.getMessage());
+    }
+    
+    /**
+     * Check whether a failure, or anything that caused it, is a timeout
+     * Covers the SDK's call timeouts, socket read timeouts and the connection pool's acquire timeout
+     */
+    private static boolean isTimeout(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiCallTimeoutException || cause instanceof ApiCallAttemptTimeoutException
+                    || cause instanceof InterruptedIOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Build the request body for Claude model
+     * The JSON is written once into a byte array of its exact size, which the SDK sends without copying
+     */
+    SdkBytes buildClaudeRequest(String message, List<ConversationMessage> conversationHistory) {
+        try {
+            return SdkBytes.fromByteArrayUnsafe(JsonRequestBody.toByteArray(writer -> {
+                writer.beginObject();
                 
-                // Claude expects content as array
-                JsonArray contentArray = new JsonArray();
-                JsonObject textContent = new JsonObject();
-                textContent.addProperty("type", "text");
-                textContent.addProperty("text", msg.getContent());
-                contentArray.add(textContent);
+                // Claude only accepts system text at the top level
+                StringBuilder system = null;
+                if (conversationHistory != null) {
+                    for (ConversationMessage msg : conversationHistory) {
+                        if (msg.isSummary()) {
+                            if (system == null) {
+                                system = new StringBuilder(SYSTEM_PROMPT);
+                            }
+                            system.append("\n\nSummary of the earlier conversation: ").append(msg.getContent());
+                        }
+                    }
+                }
+                if (system != null) {
+                    writer.name("system").value(system.toString());
+                } else {
+                    writer.name("system").jsonValue(SYSTEM_PROMPT_JSON);
+                }
                 
-                historyMessage.add("content", contentArray);
-                messages.add(historyMessage);
-            }
+                writer.name("messages").beginArray();
+                
+                // Add conversation history
+                if (conversationHistory != null) {
+                    for (ConversationMessage msg : conversationHistory) {
+                        if (!msg.isSummary()) {
+                            writeMessage(writer, msg.getRole(), msg.getContent());
+                        }
+                    }
+                }
+                
+                // Add current user message
+                writeMessage(writer, "user", message);
+                
+                writer.endArray();
+                writer.name("max_tokens").value(512);
+                writer.name("temperature").value(0.7);
+                writer.name("anthropic_version").value("bedrock-2023-05-31");
+                writer.endObject();
+            }));
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
         }
-        
-        // Add current user message
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        
-        JsonArray contentArray = new JsonArray();
-        JsonObject textContent = new JsonObject();
-        textContent.addProperty("type", "text");
-        textContent.addProperty("text", message);
-        contentArray.add(textContent);
-        
-        userMessage.add("content", contentArray);
-        messages.add(userMessage);
-        
-        json.add("messages", messages);
-        json.addProperty("max_tokens", 512);
-        json.addProperty("temperature", 0.7);
-        json.addProperty("anthropic_version", "bedrock-2023-05-31");
-        
-        return json;
+    }
+    
+    /**
+     * Write one message; Claude expects content as array
+     */
+    private static void writeMessage(JsonWriter writer, String role, String text) throws IOException {
+        writer.beginObject();
+        writer.name("role").value(role);
+        writer.name("content").beginArray();
+        writer.beginObject();
+        writer.name("type").value("text");
+        writer.name("text").value(text);
+        writer.endObject();
+        writer.endArray();
+        writer.endObject();
     }
     
     /**
      * Parse response from Claude model
+     * The body is read in place from the SDK's buffer
      */
-    private AIResponse parseClaudeResponse(String responseBody) {
+    private AIResponse parseClaudeResponse(SdkBytes responseBody) {
         try {
-            JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
-            
-            // Extract content from Claude response format
-            JsonArray contentArray = json.getAsJsonArray("content");
-            String content = contentArray.get(0).getAsJsonObject()
-                    .get("text").getAsString();
-            
-            // Extract token usage
-            int tokensUsed = 0;
-            if (json.has("usage")) {
-                JsonObject usage = json.getAsJsonObject("usage");
-                int inputTokens = usage.has("input_tokens") ? usage.get("input_tokens").getAsInt() : 0;
-                int outputTokens = usage.has("output_tokens") ? usage.get("output_tokens").getAsInt() : 0;
-                tokensUsed = inputTokens + outputTokens;
+            Completion completion = COMPLETION.read(responseBody.asInputStream(), new Completion());
+            if (completion.content == null) {
+                throw new JsonParseException("Response has no text content");
             }
-            
-            return AIResponse.success(content, tokensUsed);
+            return AIResponse.success(completion.content, completion.inputTokens + completion.outputTokens);
             
         } catch (Exception e) {
             logger.severe("Failed to parse Bedrock response: " + e.getMessage());
-            return AIResponse.failure("Failed to parse response: " + e.getMessage());
+            return AIResponse.failure("Failed to parse response: " + e.getMessage(), AIResponse.ErrorType.SERVER_ERROR);
         }
     }
     
+    /**
+     * Fields read from a Claude response
+     */
+    static final class Completion {
+        String content;
+        int inputTokens;
+        int outputTokens;
+    }
+    
     @Override
     public void shutdown() {
         if (bedrockClient != null) {
@@ -0,0 +1,441 @@
+package me.drendov.MOBChatBot.ai.providers;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.ai.json.JsonExtractor;
+import me.drendov.MOBChatBot.ai.json.JsonRequestBody;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import me.drendov.MOBChatBot.metrics.ProviderMetrics;
+import me.drendov.MOBChatBot.metrics.Stage;
+import okhttp3.*;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ollama provider implementation for local models using the /api/chat endpoint
+ * Streamed replies arrive as newline-delimited JSON. Every request carries keep_alive so the model
+ * stays loaded between requests, and the model is loaded in the background when the provider starts.
+ */
+public class OllamaProvider implements AIProvider {
+    
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String SYSTEM_PROMPT = "You are a helpful Minecraft companion. Keep responses brief and Minecraft-focused.";
+    // Encoded once; written into every request as is
+    private static final String SYSTEM_MESSAGE_JSON =
+        "{\"role\":\"system\",\"content\":" + JsonRequestBody.encode(SYSTEM_PROMPT) + "}";
+    
+    // A full reply and a streamed chunk have the same shape; only these fields are read
+    static final JsonExtractor<Chunk> CHUNK = JsonExtractor.<Chunk>builder()
+            .on("message.content", (reader, chunk) -> chunk.content = reader.nextString())
+            .on("prompt_eval_count", (reader, chunk) -> chunk.promptTokens = reader.nextInt())
+            .on("eval_count", (reader, chunk) -> chunk.replyTokens = reader.nextInt())
+            .on("done", (reader, chunk) -> chunk.done = reader.nextBoolean())
+            .on("error", (reader, chunk) -> chunk.error = reader.nextString())
+            .build();
+    
+    private final Logger logger;
+    private final AIRequestExecutor requestExecutor;
+    private final ProviderMetrics metrics;
+    private final OkHttpClient httpClient;
+    private final String baseUrl;
+    private final String chatUrl;
+    private final String model;
+    private final int maxTokens;
+    private final String keepAlive;
+    // Fields that are the same in every request, encoded once
+    private final String modelJson;
+    private final String keepAliveJson;
+    private final String optionsJson;
+    
+    private boolean initialized = false;
+    
+    /**
+     * @param httpClients Shared HTTP client the provider's own client is derived from
+     * @param metrics Registry the provider records its stage latencies in
+     * @param baseUrl Ollama server address, e.g. http://localhost:11434
+     * @param maxTokens Longest reply to generate
+     * @param keepAlive How long the server keeps the model loaded after a request, e.g. "30m" or a number of
+     *                  seconds; -1 keeps it loaded
+     * @param maxConcurrentRequests Requests the server runs in parallel; more are never put on the wire
+     * @param connectTimeoutSeconds Longest wait to open a connection
+     * @param requestTimeoutSeconds Longest wait for the next piece of a reply; local models can be slow to start
+     * @param callTimeoutSeconds Longest time for a whole request; 0 for no limit
+     */
+    public OllamaProvider(Logger logger, AIRequestExecutor requestExecutor, HttpClientManager httpClients,
+                          MetricsRegistry metrics,
+                          String baseUrl, String model, int maxTokens, String keepAlive, int maxConcurrentRequests,
+                          int connectTimeoutSeconds, int requestTimeoutSeconds, int callTimeoutSeconds) {
+        this.logger = logger;
+        this.requestExecutor = requestExecutor;
+        this.metrics = metrics.forProvider("Ollama", model);
+        this.baseUrl = baseUrl;
+        this.chatUrl = baseUrl.replaceAll("/+$", "") + "/api/chat";
+        this.model = model;
+        this.maxTokens = maxTokens;
+        this.keepAlive = keepAlive;
+        this.modelJson = model != null ? JsonRequestBody.encode(model) : null;
+        this.keepAliveJson = encodeKeepAlive(keepAlive);
+        this.optionsJson = "{\"num_predict\":" + maxTokens + ",\"temperature\":0.7}";
+        
+        // Match the server's parallelism; every call goes to the same host
+        this.httpClient = httpClients.newClient(maxConcurrentRequests, maxConcurrentRequests,
+                connectTimeoutSeconds, requestTimeoutSeconds, callTimeoutSeconds);
+    }
+    
+    /**
+     * Encode keep_alive for a request body
+     * Ollama parses a string as a duration with a unit, so a plain number such as -1 is sent as a number of seconds
+     */
+    static String encodeKeepAlive(String keepAlive) {
+        if (keepAlive == null) {
+            return null;
+        }
+        String trimmed = keepAlive.trim();
+        return trimmed.matches("-?\\d+") ? trimmed : JsonRequestBody.encode(trimmed);
+    }
+    
+    @Override
+    public boolean initialize() {
+        if (!isConfigured()) {
+            logger.warning("Ollama provider is not properly configured!");
+            return false;
+        }
+        
+        initialized = true;
+        preloadModel();
+        logger.info("Ollama provider initialized successfully with model: " + model + " at " + baseUrl);
+        return true;
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return HttpUrl.parse(chatUrl) != null &&
+               model != null && !model.isEmpty() &&
+               maxTokens > 0;
+    }
+    
+    @Override
+    public String getProviderName() {
+        return "Ollama";
+    }
+    
+    @Override
+    public String getModelName() {
+        return model;
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return SYSTEM_PROMPT;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        if (!initialized || !isConfigured()) {
+            return CompletableFuture.completedFuture(
+                AIResponse.failure("Ollama provider is not properly configured")
+            );
+        }
+        
+        long queuedNanos = System.nanoTime();
+        return requestExecutor.submitAsync(getProviderName(), () -> {
+            long startNanos = metrics.recordSince(Stage.QUEUE_WAIT, queuedNanos);
+            Request request = buildRequest(buildRequestBody(message, conversationHistory, false));
+            metrics.recordSince(Stage.REQUEST_BUILD, startNanos);
+            return enqueue(httpClient.newCall(request), this::parseSuccessResponse);
+        });
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        if (!initialized || !isConfigured()) {
+            return CompletableFuture.completedFuture(
+                AIResponse.failure("Ollama provider is not properly configured")
+            );
+        }
+        
+        long queuedNanos = System.nanoTime();
+        return requestExecutor.submitAsync(getProviderName(), () -> {
+            long startNanos = metrics.recordSince(Stage.QUEUE_WAIT, queuedNanos);
+            Request request = buildRequest(buildRequestBody(message, conversationHistory, true));
+            metrics.recordSince(Stage.REQUEST_BUILD, startNanos);
+            return enqueue(httpClient.newCall(request), body -> readChunkStream(body, onDelta));
+        });
+    }
+    
+    /**
+     * Ask the server to load the model now so the first player does not wait for it
+     * A chat request without messages only loads the model
+     */
+    private void preloadModel() {
+        RequestBody body = new JsonRequestBody(JSON, writer -> {
+            writer.beginObject();
+            writer.name("model").jsonValue(modelJson);
+            writer.name("messages").beginArray().endArray();
+            writer.name("keep_alive").jsonValue(keepAliveJson);
+            writer.endObject();
+        });
+        
+        httpClient.newCall(buildRequest(body)).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                logger.warning("Could not reach Ollama at " + baseUrl + ": " + e.getMessage());
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (response.isSuccessful()) {
+                        logger.info("Ollama model " + model + " loaded");
+                    } else {
+                        logger.warning("Ollama could not load model " + model + " (code: " + response.code() + ")");
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Create the HTTP request for a chat payload
+     */
+    private Request buildRequest(RequestBody body) {
+        return new Request.Builder()
+                .url(chatUrl)
+                .post(body)
+                .build();
+    }
+    
+    /**
+     * Enqueue a call on the OkHttp dispatcher and complete the returned future from its callback
+     * Cancelling the future cancels the underlying call
+     */
+    private CompletableFuture<AIResponse> enqueue(Call call, BodyReader reader) {
+        CompletableFuture<AIResponse> future = new CompletableFuture<>();
+        future.whenComplete((response, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        
+        long sentNanos = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (future.isCancelled()) {
+                    return;
+                }
+                logger.severe("Ollama network error: " + e.getMessage());
+                future.complete(networkFailure(call, e));
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                metrics.recordSince(Stage.NETWORK, sentNanos);
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        future.complete(handleErrorResponse(response));
+                        return;
+                    }
+                    
+                    future.complete(reader.read(response.body()));
+                    
+                } catch (IOException e) {
+                    if (future.isCancelled()) {
+                        return;
+                    }
+                    logger.severe("Ollama network error: " + e.getMessage());
+                    future.complete(networkFailure(call, e));
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "Ollama unexpected error", e);
+                    future.complete(AIResponse.failure("Unexpected error: " + e.getMessage()));
+                }
+            }
+        });
+        
+        return future;
+    }
+    
+    /**
+     * Build the request body for the Ollama chat API
+     * The JSON is written straight to the connection when the request is sent
+     */
+    private RequestBody buildRequestBody(String message, List<ConversationMessage> conversationHistory, boolean stream) {
+        return new JsonRequestBody(JSON, writer -> {
+            writer.beginObject();
+            writer.name("model").jsonValue(modelJson);
+            writer.name("stream").value(stream);
+            writer.name("keep_alive").jsonValue(keepAliveJson);
+            writer.name("options").jsonValue(optionsJson);
+            
+            writer.name("messages").beginArray();
+            
+            // Add system prompt
+            writer.jsonValue(SYSTEM_MESSAGE_JSON);
+            
+            // Add conversation history
+            if (conversationHistory != null) {
+                for (ConversationMessage msg : conversationHistory) {
+                    writeMessage(writer, msg.getRole(), msg.getContent());
+                }
+            }
+            
+            // Add current user message
+            writeMessage(writer, "user", message);
+            
+            writer.endArray();
+            writer.endObject();
+        });
+    }
+    
+    private static void writeMessage(JsonWriter writer, String role, String content) throws IOException {
+        writer.beginObject();
+        writer.name("role").value(role);
+        writer.name("content").value(content);
+        writer.endObject();
+    }
+    
+    /**
+     * Parse successful response from the Ollama chat API
+     * The body is parsed as it arrives from the connection
+     */
+    private AIResponse parseSuccessResponse(ResponseBody body) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            Chunk reply = CHUNK.read(body.byteStream(), new Chunk());
+            metrics.recordSince(Stage.PARSE, startNanos);
+            if (reply.content == null) {
+                throw new JsonParseException("Response has no message content");
+            }
+            return AIResponse.success(reply.content, reply.promptTokens + reply.replyTokens);
+            
+        } catch (JsonParseException e) {
+            logger.severe("Failed to parse Ollama response: " + e.getMessage());
+            return AIResponse.failure("Failed to parse response: " + e.getMessage(), AIResponse.ErrorType.SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * Read a newline-delimited JSON stream of chat chunks
+     * Each text delta is passed to the callback as soon as its line arrives; the last chunk has done set
+     */
+    private AIResponse readChunkStream(ResponseBody body, Consumer<String> onDelta) throws IOException {
+        StringBuilder content = new StringBuilder();
+        long parseNanos = 0;
+        
+        BufferedSource source = body.source();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            
+            long chunkStartNanos = System.nanoTime();
+            Chunk chunk = CHUNK.read(line, new Chunk());
+            parseNanos += System.nanoTime() - chunkStartNanos;
+            
+            // Errors after the stream has started arrive as a chunk of their own
+            if (chunk.error != null) {
+                logger.warning("Ollama stream error: " + chunk.error);
+                return AIResponse.failure("Ollama error: " + chunk.error, AIResponse.ErrorType.SERVER_ERROR);
+            }
+            
+            if (chunk.content != null && !chunk.content.isEmpty()) {
+                content.append(chunk.content);
+                onDelta.accept(chunk.content);
+            }
+            
+            // Prompt and reply token counts are reported on the final chunk
+            if (chunk.done) {
+                metrics.record(Stage.PARSE, parseNanos);
+                return AIResponse.success(content.toString(), chunk.promptTokens + chunk.replyTokens);
+            }
+        }
+        
+        // The server closed the stream without a final chunk
+        return AIResponse.failure("Ollama stream ended early", AIResponse.ErrorType.NETWORK);
+    }
+    
+    /**
+     * Fields read from a reply or from one streamed chunk
+     */
+    static final class Chunk {
+        String content;
+        String error;
+        int promptTokens;
+        int replyTokens;
+        boolean done;
+    }
+    
+    /**
+     * Handle error response from the Ollama server
+     */
+    private AIResponse handleErrorResponse(Response response) throws IOException {
+        int code = response.code();
+        String errorBody = response.body() != null ? response.body().string() : "No error details";
+        
+        String errorMessage;
+        AIResponse.ErrorType errorType;
+        switch (code) {
+            case 404:
+                errorMessage = "Model " + model + " is not available on the Ollama server";
+                errorType = AIResponse.ErrorType.INVALID_REQUEST;
+                logger.warning("Ollama: model " + model + " not found; pull it with 'ollama pull " + model + "'");
+                break;
+            case 429:
+            case 503:
+                // The server's request queue is full
+                errorMessage = "Ollama server is busy";
+                errorType = AIResponse.ErrorType.RATE_LIMITED;
+                logger.warning("Ollama: server is busy (code: " + code + ")");
+                break;
+            default:
+                errorMessage = "Ollama error (code: " + code + ")";
+                errorType = code >= 500 ? AIResponse.ErrorType.SERVER_ERROR : AIResponse.ErrorType.INVALID_REQUEST;
+                logger.warning("Ollama error " + code + ": " + errorBody);
+        }
+        
+        return AIResponse.failure(errorMessage, errorType);
+    }
+    
+    /**
+     * Describe a failed call
+     * Calls are only cancelled here when their future is, so a cancelled call with a live future hit its call timeout
+     */
+    private AIResponse networkFailure(Call call, IOException e) {
+        AIResponse.ErrorType errorType = e instanceof InterruptedIOException || call.isCanceled()
+            ? AIResponse.ErrorType.TIMEOUT
+            : AIResponse.ErrorType.NETWORK;
+        return AIResponse.failure("Network error: " + e.getMessage(), errorType);
+    }
+    
+    /**
+     * Turns a successful response body into an AIResponse
+     */
+    @FunctionalInterface
+    private interface BodyReader {
+        AIResponse read(ResponseBody body) throws IOException;
+    }
+    
+    @Override
+    public void shutdown() {
+        // The connection pool is shared and stays open
+        if (httpClient != null) {
+            httpClient.dispatcher().executorService().shutdown();
+        }
+        initialized = false;
+        logger.info("Ollama provider shut down");
+    }
+}
@@ -1,16 +1,27 @@
 package me.drendov.MOBChatBot.ai.providers;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIRequestExecutor;
 import me.drendov.MOBChatBot.ai.AIResponse;
 import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.RateLimitStatus;
+import me.drendov.MOBChatBot.ai.http.HttpClientManager;
+import me.drendov.MOBChatBot.ai.json.JsonExtractor;
+import me.drendov.MOBChatBot.ai.json.JsonRequestBody;
+import me.drendov.MOBChatBot.metrics.MetricsRegistry;
+import me.drendov.MOBChatBot.metrics.ProviderMetrics;
+import me.drendov.MOBChatBot.metrics.Stage;
 import okhttp3.*;
+import okio.BufferedSource;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -18,28 +29,60 @@ import java.util.logging.Logger;
  */
 public class OpenAIProvider implements AIProvider {
     
-    private static final String API_URL = "https://api.openai.com/v1/chat/completions";
+    public static final String DEFAULT_API_URL = "https://api.openai.com/v1/chat/completions";
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     private static final String SYSTEM_PROMPT = "You are a helpful Minecraft companion. Keep responses brief and Minecraft-focused.";
+    // Encoded once; written into every request as is
+    private static final String SYSTEM_MESSAGE_JSON =
+        "{\"role\":\"system\",\"content\":" + JsonRequestBody.encode(SYSTEM_PROMPT) + "}";
+    
+    // Only the reply text and token usage are read from responses; everything else is skipped
+    static final JsonExtractor<Completion> COMPLETION = JsonExtractor.<Completion>builder()
+            .on("choices.0.message.content", (reader, completion) -> completion.content = reader.nextString())
+            .on("usage.total_tokens", (reader, completion) -> completion.totalTokens = reader.nextInt())
+            .build();
+    static final JsonExtractor<Completion> CHUNK = JsonExtractor.<Completion>builder()
+            .on("choices.0.delta.content", (reader, completion) -> completion.content = reader.nextString())
+            .on("usage.total_tokens", (reader, completion) -> completion.totalTokens = reader.nextInt())
+            .on("error.message", (reader, completion) -> completion.error = reader.nextString())
+            .build();
     
     private final Logger logger;
+    private final AIRequestExecutor requestExecutor;
+    private final ProviderMetrics metrics;
+    private final HttpClientManager httpClients;
     private final OkHttpClient httpClient;
+    private final String apiUrl;
     private final String apiKey;
     private final String model;
+    private final String modelJson;
     private final int maxTokens;
     
     private boolean initialized = false;
     
-    public OpenAIProvider(Logger logger, String apiKey, String model, int maxTokens) {
+    /**
+     * @param httpClients Shared HTTP client the provider's own client is derived from
+     * @param metrics Registry the provider records its stage latencies in
+     * @param apiUrl Chat Completions endpoint, normally {@link #DEFAULT_API_URL}
+     * @param connectTimeoutSeconds Longest wait to open a connection
+     * @param readTimeoutSeconds Longest wait for the next bytes of a reply
+     * @param callTimeoutSeconds Longest time for a whole request, streamed replies included; 0 for no limit
+     */
+    public OpenAIProvider(Logger logger, AIRequestExecutor requestExecutor, HttpClientManager httpClients,
+                          MetricsRegistry metrics,
+                          String apiUrl, String apiKey, String model, int maxTokens, int maxRequests, int maxRequestsPerHost,
+                          int connectTimeoutSeconds, int readTimeoutSeconds, int callTimeoutSeconds) {
         this.logger = logger;
+        this.requestExecutor = requestExecutor;
+        this.metrics = metrics.forProvider("OpenAI", model);
+        this.httpClients = httpClients;
+        this.apiUrl = apiUrl;
         this.apiKey = apiKey;
         this.model = model;
+        this.modelJson = model != null ? JsonRequestBody.encode(model) : null;
         this.maxTokens = maxTokens;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-                .readTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-                .writeTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-                .build();
+        this.httpClient = httpClients.newClient(maxRequests, maxRequestsPerHost,
+                connectTimeoutSeconds, readTimeoutSeconds, callTimeoutSeconds);
     }
     
     @Override
@@ -50,6 +93,7 @@ public class OpenAIProvider implements AIProvider {
         }
         
         initialized = true;
+        httpClients.prewarm(httpClient, apiUrl, getProviderName());
         logger.info("OpenAI provider initialized successfully with model: " + model);
         return true;
     }
@@ -67,6 +111,16 @@ public class OpenAIProvider implements AIProvider {
         return "OpenAI";
     }
     
+    @Override
+    public String getModelName() {
+        return model;
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return SYSTEM_PROMPT;
+    }
+    
     @Override
     public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
         if (!initialized || !isConfigured()) {
@@ -75,107 +129,209 @@ public class OpenAIProvider implements AIProvider {
             );
         }
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Build the request JSON
-                JsonObject requestJson = buildRequestJson(message, conversationHistory);
-                
-                // Create HTTP request
-                RequestBody body = RequestBody.create(requestJson.toString(), JSON);
-                Request request = new Request.Builder()
-                        .url(API_URL)
-                        .addHeader("Authorization", "Bearer " + apiKey)
-                        .addHeader("Content-Type", "application/json")
-                        .post(body)
-                        .build();
-                
-                // Execute request
-                try (Response response = httpClient.newCall(request).execute()) {
+        long queuedNanos = System.nanoTime();
+        return requestExecutor.submitAsync(getProviderName(), () -> {
+            long startNanos = metrics.recordSince(Stage.QUEUE_WAIT, queuedNanos);
+            Request request = buildRequest(buildRequestBody(message, conversationHistory, false));
+            metrics.recordSince(Stage.REQUEST_BUILD, startNanos);
+            return enqueue(httpClient.newCall(request), this::parseSuccessResponse);
+        });
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        if (!initialized || !isConfigured()) {
+            return CompletableFuture.completedFuture(
+                AIResponse.failure("OpenAI provider is not properly configured")
+            );
+        }
+        
+        long queuedNanos = System.nanoTime();
+        return requestExecutor.submitAsync(getProviderName(), () -> {
+            long startNanos = metrics.recordSince(Stage.QUEUE_WAIT, queuedNanos);
+            Request request = buildRequest(buildRequestBody(message, conversationHistory, true));
+            metrics.recordSince(Stage.REQUEST_BUILD, startNanos);
+            return enqueue(httpClient.newCall(request), body -> readEventStream(body, onDelta));
+        });
+    }
+    
+    /**
+     * Create the HTTP request for a Chat Completions payload
+     */
+    private Request buildRequest(RequestBody body) {
+        return new Request.Builder()
+                .url(apiUrl)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .post(body)
+                .build();
+    }
+    
+    /**
+     * Enqueue a call on the OkHttp dispatcher and complete the returned future from its callback
+     * Cancelling the future cancels the underlying call
+     */
+    private CompletableFuture<AIResponse> enqueue(Call call, BodyReader reader) {
+        CompletableFuture<AIResponse> future = new CompletableFuture<>();
+        future.whenComplete((response, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        
+        long sentNanos = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (future.isCancelled()) {
+                    return;
+                }
+                logger.severe("OpenAI API network error: " + e.getMessage());
+                future.complete(networkFailure(call, e));
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                metrics.recordSince(Stage.NETWORK, sentNanos);
+                try (response) {
                     if (!response.isSuccessful()) {
-                        return handleErrorResponse(response);
+                        future.complete(handleErrorResponse(response));
+                        return;
                     }
                     
                     // Parse response
-                    String responseBody = response.body().string();
-                    return parseSuccessResponse(responseBody);
+                    future.complete(reader.read(response.body()).withRateLimit(readRateLimit(response)));
+                    
+                } catch (IOException e) {
+                    if (future.isCancelled()) {
+                        return;
+                    }
+                    logger.severe("OpenAI API network error: " + e.getMessage());
+                    future.complete(networkFailure(call, e));
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "OpenAI API unexpected error", e);
+                    future.complete(AIResponse.failure("Unexpected error: " + e.getMessage()));
                 }
-                
-            } catch (IOException e) {
-                logger.severe("OpenAI API network error: " + e.getMessage());
-                return AIResponse.failure("Network error: " + e.getMessage());
-            } catch (Exception e) {
-                logger.severe("OpenAI API unexpected error: " + e.getMessage());
-                e.printStackTrace();
-                return AIResponse.failure("Unexpected error: " + e.getMessage());
             }
         });
+        
+        return future;
     }
     
     /**
-     * Build the JSON request for OpenAI Chat Completions API
+     * Build the request body for OpenAI Chat Completions API
+     * The JSON is written straight to the connection when the request is sent
      */
-    private JsonObject buildRequestJson(String message, List<ConversationMessage> conversationHistory) {
-        JsonObject json = new JsonObject();
-        json.addProperty("model", model);
-        json.addProperty("max_tokens", maxTokens);
-        json.addProperty("temperature", 0.7);
-        
-        // Build messages array
-        JsonArray messages = new JsonArray();
-        
-        // Add system prompt
-        JsonObject systemMessage = new JsonObject();
-        systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", SYSTEM_PROMPT);
-        messages.add(systemMessage);
-        
-        // Add conversation history
-        if (conversationHistory != null) {
-            for (ConversationMessage msg : conversationHistory) {
-                JsonObject historyMessage = new JsonObject();
-                historyMessage.addProperty("role", msg.getRole());
-                historyMessage.addProperty("content", msg.getContent());
-                messages.add(historyMessage);
+    RequestBody buildRequestBody(String message, List<ConversationMessage> conversationHistory, boolean stream) {
+        return new JsonRequestBody(JSON, writer -> {
+            writer.beginObject();
+            writer.name("model").jsonValue(modelJson);
+            writer.name("max_tokens").value(maxTokens);
+            writer.name("temperature").value(0.7);
+            
+            if (stream) {
+                writer.name("stream").value(true);
+                
+                // Ask for a final chunk carrying token usage
+                writer.name("stream_options").beginObject();
+                writer.name("include_usage").value(true);
+                writer.endObject();
             }
-        }
-        
-        // Add current user message
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", message);
-        messages.add(userMessage);
-        
-        json.add("messages", messages);
-        
-        return json;
+            
+            writer.name("messages").beginArray();
+            
+            // Add system prompt
+            writer.jsonValue(SYSTEM_MESSAGE_JSON);
+            
+            // Add conversation history
+            if (conversationHistory != null) {
+                for (ConversationMessage msg : conversationHistory) {
+                    writeMessage(writer, msg.getRole(), msg.getContent());
+                }
+            }
+            
+            // Add current user message
+            writeMessage(writer, "user", message);
+            
+            writer.endArray();
+            writer.endObject();
+        });
+    }
+    
+    private static void writeMessage(JsonWriter writer, String role, String content) throws IOException {
+        writer.beginObject();
+        writer.name("role").value(role);
+        writer.name("content").value(content);
+        writer.endObject();
     }
     
     /**
      * Parse successful response from OpenAI API
+     * The body is parsed as it arrives from the connection
      */
-    private AIResponse parseSuccessResponse(String responseBody) {
+    private AIResponse parseSuccessResponse(ResponseBody body) throws IOException {
+        long startNanos = System.nanoTime();
         try {
-            JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
+            Completion completion = COMPLETION.read(body.byteStream(), new Completion());
+            metrics.recordSince(Stage.PARSE, startNanos);
+            if (completion.content == null) {
+                throw new JsonParseException("Response has no message content");
+            }
+            return AIResponse.success(completion.content, completion.totalTokens);
             
-            // Extract content
-            String content = json.getAsJsonArray("choices")
-                    .get(0).getAsJsonObject()
-                    .getAsJsonObject("message")
-                    .get("content").getAsString();
+        } catch (JsonParseException e) {
+            logger.severe("Failed to parse OpenAI response: " + e.getMessage());
+            return AIResponse.failure("Failed to parse response: " + e.getMessage(), AIResponse.ErrorType.SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * Read a server-sent event stream of completion chunks
+     * Each text delta is passed to the callback as soon as its event arrives; the stream ends with a [DONE] event
+     */
+    private AIResponse readEventStream(ResponseBody body, Consumer<String> onDelta) throws IOException {
+        StringBuilder content = new StringBuilder();
+        int tokensUsed = 0;
+        long parseNanos = 0;
+        
+        BufferedSource source = body.source();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
             
-            // Extract token usage
-            int tokensUsed = 0;
-            if (json.has("usage")) {
-                tokensUsed = json.getAsJsonObject("usage")
-                        .get("total_tokens").getAsInt();
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                metrics.record(Stage.PARSE, parseNanos);
+                return AIResponse.success(content.toString(), tokensUsed);
             }
             
-            return AIResponse.success(content, tokensUsed);
+            long chunkStartNanos = System.nanoTime();
+            Completion chunk = CHUNK.read(data, new Completion());
+            parseNanos += System.nanoTime() - chunkStartNanos;
             
-        } catch (Exception e) {
-            logger.severe("Failed to parse OpenAI response: " + e.getMessage());
-            return AIResponse.failure("Failed to parse response: " + e.getMessage());
+            // Errors after the stream has started arrive as an event of their own
+            if (chunk.error != null) {
+                logger.warning("OpenAI API stream error: " + chunk.error);
+                return AIResponse.failure("OpenAI error: " + chunk.error, AIResponse.ErrorType.SERVER_ERROR);
+            }
+            
+            // Extract text delta
+            if (chunk.content != null && !chunk.content.isEmpty()) {
+                content.append(chunk.content);
+                onDelta.accept(chunk.content);
+            }
+            
+            // Usage arrives on the last chunk
+            if (chunk.totalTokens > 0) {
+                tokensUsed = chunk.totalTokens;
+            }
         }
+        
+        // The server closed the stream without a [DONE] event
+        return AIResponse.failure("OpenAI stream ended early", AIResponse.ErrorType.NETWORK);
     }
     
     /**
@@ -186,34 +342,101 @@ public class OpenAIProvider implements AIProvider {
         String errorBody = response.body() != null ? response.body().string() : "No error details";
         
         String errorMessage;
+        AIResponse.ErrorType errorType;
         switch (code) {
             case 401:
+            case 403:
                 errorMessage = "Invalid API key";
+                errorType = AIResponse.ErrorType.AUTHENTICATION;
                 logger.warning("OpenAI API: Invalid API key");
                 break;
             case 429:
-                errorMessage = "Rate limit exceeded";
-                logger.warning("OpenAI API: Rate limit exceeded");
+                // Out of credit is reported as a 429 too, but waiting will not fix it
+                if (errorBody.contains("insufficient_quota")) {
+                    errorMessage = "API quota exhausted";
+                    errorType = AIResponse.ErrorType.QUOTA_EXCEEDED;
+                    logger.warning("OpenAI API: Quota exhausted");
+                } else {
+                    errorMessage = "Rate limit exceeded";
+                    errorType = AIResponse.ErrorType.RATE_LIMITED;
+                    logger.warning("OpenAI API: Rate limit exceeded");
+                }
+                break;
+            case 408:
+                errorMessage = "OpenAI request timed out";
+                errorType = AIResponse.ErrorType.TIMEOUT;
+                logger.warning("OpenAI API: Request timed out");
                 break;
             case 500:
             case 502:
             case 503:
+            case 504:
                 errorMessage = "OpenAI service unavailable";
+                errorType = AIResponse.ErrorType.SERVER_ERROR;
                 logger.warning("OpenAI API: Service unavailable (code: " + code + ")");
                 break;
             default:
                 errorMessage = "API error (code: " + code + ")";
+                errorType = code >= 500 ? AIResponse.ErrorType.SERVER_ERROR : AIResponse.ErrorType.INVALID_REQUEST;
                 logger.warning("OpenAI API error " + code + ": " + errorBody);
         }
         
-        return AIResponse.failure(errorMessage);
+        return AIResponse.failure(errorMessage, errorType).withRateLimit(readRateLimit(response));
+    }
+    
+    /**
+     * Read the rate limit headers OpenAI sends with every response
+     */
+    private RateLimitStatus readRateLimit(Response response) {
+        long retryAfterMillis = RateLimitStatus.parseCount(response.header("retry-after-ms"));
+        if (retryAfterMillis < 0) {
+            retryAfterMillis = RateLimitStatus.parseDuration(response.header("retry-after"));
+        }
+        
+        return new RateLimitStatus(
+            RateLimitStatus.parseCount(response.header("x-ratelimit-limit-requests")),
+            RateLimitStatus.parseCount(response.header("x-ratelimit-limit-tokens")),
+            RateLimitStatus.parseCount(response.header("x-ratelimit-remaining-requests")),
+            RateLimitStatus.parseCount(response.header("x-ratelimit-remaining-tokens")),
+            RateLimitStatus.parseDuration(response.header("x-ratelimit-reset-requests")),
+            RateLimitStatus.parseDuration(response.header("x-ratelimit-reset-tokens")),
+            retryAfterMillis
+        );
+    }
+    
+    /**
+     * Describe a failed call
+     * Calls are only cancelled here when their future is, so a cancelled call with a live future hit its call timeout
+     */
+    private AIResponse networkFailure(Call call, IOException e) {
+        AIResponse.ErrorType errorType = e instanceof InterruptedIOException || call.isCanceled()
+            ? AIResponse.ErrorType.TIMEOUT
+            : AIResponse.ErrorType.NETWORK;
+        return AIResponse.failure("Network error: " + e.getMessage(), errorType);
+    }
+    
+    /**
+     * Fields read from a completion or from one streamed chunk
+     */
+    static final class Completion {
+        String content;
+        String error;
+        int totalTokens;
+    }
+    
+    /**
+     * Turns a successful response body into an AIResponse
+     */
+    @FunctionalInterface
+    private interface BodyReader {
+        AIResponse read(ResponseBody body) throws IOException;
     }
     
     @Override
     public void shutdown() {
+        // The connection pool is shared and stays open
         if (httpClient != null) {
             httpClient.dispatcher().executorService().shutdown();
-            httpClient.connectionPool().evictAll();
         }
         initialized = false;
         logger.info("OpenAI provider shut down");
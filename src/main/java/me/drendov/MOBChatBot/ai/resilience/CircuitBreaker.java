@@ -0,0 +1,283 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker for one provider
+ * While closed, the outcomes of the last window-size calls are kept. Once enough calls have been seen and
+ * either the share of failures or the share of slow calls reaches its threshold, the breaker opens and calls
+ * fail at once. After the open period a few trial calls are let through (half-open); if they do well the
+ * breaker closes, otherwise it opens again. Guarded by its own lock.
+ */
+public class CircuitBreaker {
+    
+    /**
+     * Breaker state
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+    
+    /** Returned by {@link #tryAcquire} when the call is refused */
+    public static final long REJECTED = -1;
+    
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+    
+    private final String providerName;
+    private final Logger logger;
+    private final LongAdder rejectedCount = new LongAdder();
+    
+    private int minimumCalls;
+    private double failureRateThreshold;
+    private double slowCallRateThreshold;
+    private long slowCallNanos;
+    private long openNanos;
+    private int halfOpenCalls;
+    
+    // Sliding window of call outcomes, closed state only
+    private byte[] window;
+    private int windowHead = 0;
+    private int windowCount = 0;
+    private int windowFailures = 0;
+    private int windowSlowCalls = 0;
+    
+    private State state = State.CLOSED;
+    // Bumped on every transition so results of calls started in an earlier state are not counted
+    private long generation = 0;
+    private long openedAtNanos;
+    private int trialPermits;
+    private int trialResults;
+    private int trialFailures;
+    private int trialSlowCalls;
+    private long openedCount = 0;
+    
+    /**
+     * @param providerName Provider the breaker protects, used in log messages
+     * @param config Plugin configuration
+     * @param logger Plugin logger
+     */
+    public CircuitBreaker(String providerName, ConfigManager config, Logger logger) {
+        this.providerName = providerName;
+        this.logger = logger;
+        configure(config);
+    }
+    
+    /**
+     * Apply thresholds from a reloaded configuration
+     * The current state is kept; the window starts over if its size changed
+     */
+    public synchronized void configure(ConfigManager config) {
+        this.minimumCalls = config.getCircuitBreakerMinimumCalls();
+        this.failureRateThreshold = config.getCircuitBreakerFailureRateThreshold() / 100.0;
+        this.slowCallRateThreshold = config.getCircuitBreakerSlowCallRateThreshold() / 100.0;
+        this.slowCallNanos = TimeUnit.SECONDS.toNanos(config.getCircuitBreakerSlowCallSeconds());
+        this.openNanos = TimeUnit.SECONDS.toNanos(config.getCircuitBreakerOpenSeconds());
+        this.halfOpenCalls = config.getCircuitBreakerHalfOpenCalls();
+        
+        if (window == null || window.length != config.getCircuitBreakerWindowSize()) {
+            window = new byte[config.getCircuitBreakerWindowSize()];
+            clearWindow();
+        }
+    }
+    
+    /**
+     * Ask to make a call
+     * @return A permit to pass back with the call's outcome, or {@link #REJECTED} if the call must fail fast
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openedAtNanos >= openNanos) {
+            transitionTo(State.HALF_OPEN, now);
+            logger.info(providerName + " circuit half-open: letting " + halfOpenCalls + " trial calls through");
+        }
+        
+        switch (state) {
+            case CLOSED:
+                return generation;
+            case HALF_OPEN:
+                if (trialPermits > 0) {
+                    trialPermits--;
+                    return generation;
+                }
+                break;
+            default:
+                break;
+        }
+        rejectedCount.increment();
+        return REJECTED;
+    }
+    
+    /**
+     * Record the outcome of a permitted call
+     * @param permit Value returned by {@link #tryAcquire}
+     * @param failed Whether the call failed because of the provider
+     * @param durationNanos How long the call took
+     */
+    public synchronized void onResult(long permit, boolean failed, long durationNanos) {
+        if (permit != generation) {
+            return;
+        }
+        boolean slow = durationNanos >= slowCallNanos;
+        
+        if (state == State.CLOSED) {
+            record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+            if (windowCount >= minimumCalls && (failureRate() >= failureRateThreshold || slowCallRate() >= slowCallRateThreshold)) {
+                open(String.format("%.0f%% of the last %d calls failed, %.0f%% were slow",
+                    failureRate() * 100, windowCount, slowCallRate() * 100));
+            }
+        } else if (state == State.HALF_OPEN) {
+            trialResults++;
+            if (failed) {
+                trialFailures++;
+            }
+            if (slow) {
+                trialSlowCalls++;
+            }
+            if (trialResults >= halfOpenCalls) {
+                double trialFailureRate = trialFailures / (double) trialResults;
+                double trialSlowRate = trialSlowCalls / (double) trialResults;
+                if (trialFailureRate >= failureRateThreshold || trialSlowRate >= slowCallRateThreshold) {
+                    open(trialFailures + " of " + trialResults + " trial calls failed, " + trialSlowCalls + " were slow");
+                } else {
+                    transitionTo(State.CLOSED, System.nanoTime());
+                    logger.info(providerName + " circuit closed: trial calls succeeded");
+                }
+            }
+        }
+    }
+    
+    /**
+     * Give back a permit whose call says nothing about the provider, e.g. a cancelled or rejected-as-busy call
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            trialPermits++;
+        }
+    }
+    
+    public String getProviderName() {
+        return providerName;
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    /**
+     * Get the share of failed calls in the current window
+     * @return Fraction between 0 and 1
+     */
+    public synchronized double getFailureRate() {
+        return failureRate();
+    }
+    
+    /**
+     * Get the share of slow calls in the current window
+     * @return Fraction between 0 and 1
+     */
+    public synchronized double getSlowCallRate() {
+        return slowCallRate();
+    }
+    
+    /**
+     * Get the number of calls in the current window
+     */
+    public synchronized int getWindowCount() {
+        return windowCount;
+    }
+    
+    /**
+     * Get the time left before an open breaker lets trial calls through
+     * @return Seconds, or 0 if the breaker is not open
+     */
+    public synchronized long getSecondsUntilHalfOpen() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toSeconds(openNanos - (System.nanoTime() - openedAtNanos)));
+    }
+    
+    /**
+     * Get the number of times the breaker has opened
+     */
+    public synchronized long getOpenedCount() {
+        return openedCount;
+    }
+    
+    /**
+     * Get the number of calls failed fast while the breaker was open
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+    
+    private void open(String reason) {
+        transitionTo(State.OPEN, System.nanoTime());
+        openedCount++;
+        logger.warning(providerName + " circuit opened: " + reason + "; failing fast for "
+            + TimeUnit.NANOSECONDS.toSeconds(openNanos) + "s");
+    }
+    
+    private void transitionTo(State newState, long now) {
+        state = newState;
+        generation++;
+        switch (newState) {
+            case OPEN:
+                openedAtNanos = now;
+                break;
+            case HALF_OPEN:
+                trialPermits = halfOpenCalls;
+                trialResults = 0;
+                trialFailures = 0;
+                trialSlowCalls = 0;
+                break;
+            case CLOSED:
+                clearWindow();
+                break;
+        }
+    }
+    
+    private void record(byte outcome) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowHead];
+            if ((evicted & FAILED) != 0) {
+                windowFailures--;
+            }
+            if ((evicted & SLOW) != 0) {
+                windowSlowCalls--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowHead] = outcome;
+        windowHead = (windowHead + 1) % window.length;
+        if ((outcome & FAILED) != 0) {
+            windowFailures++;
+        }
+        if ((outcome & SLOW) != 0) {
+            windowSlowCalls++;
+        }
+    }
+    
+    private void clearWindow() {
+        windowHead = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+    }
+    
+    private double failureRate() {
+        return windowCount == 0 ? 0 : windowFailures / (double) windowCount;
+    }
+    
+    private double slowCallRate() {
+        return windowCount == 0 ? 0 : windowSlowCalls / (double) windowCount;
+    }
+}
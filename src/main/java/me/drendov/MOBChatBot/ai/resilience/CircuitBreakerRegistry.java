@@ -0,0 +1,49 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * One circuit breaker per provider, kept across provider rebuilds so a reload does not close an open breaker
+ */
+public class CircuitBreakerRegistry {
+    
+    private final Logger logger;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    
+    private volatile ConfigManager config;
+    
+    public CircuitBreakerRegistry(Logger logger, ConfigManager config) {
+        this.logger = logger;
+        this.config = config;
+    }
+    
+    /**
+     * Apply thresholds from a reloaded configuration
+     */
+    public void configure(ConfigManager config) {
+        this.config = config;
+        for (CircuitBreaker breaker : breakers.values()) {
+            breaker.configure(config);
+        }
+    }
+    
+    /**
+     * Get a provider's breaker, creating it on first use
+     */
+    public CircuitBreaker get(String providerName) {
+        return breakers.computeIfAbsent(providerName, name -> new CircuitBreaker(name, config, logger));
+    }
+    
+    /**
+     * Get every breaker created so far
+     */
+    public List<CircuitBreaker> getBreakers() {
+        return new ArrayList<>(breakers.values());
+    }
+}
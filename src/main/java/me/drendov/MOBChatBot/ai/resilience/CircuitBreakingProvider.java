@@ -0,0 +1,115 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * AIProvider decorator that fails fast while the provider's circuit breaker is open
+ * Call durations include any wait for admission, so a provider that keeps us throttled also counts as slow
+ */
+public class CircuitBreakingProvider implements AIProvider {
+    
+    private final AIProvider delegate;
+    private final CircuitBreaker breaker;
+    private final ConfigManager config;
+    
+    /**
+     * @param delegate Provider to protect
+     * @param breaker The provider's breaker
+     * @param config Plugin configuration
+     */
+    public CircuitBreakingProvider(AIProvider delegate, CircuitBreaker breaker, ConfigManager config) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.config = config;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return execute(() -> delegate.sendMessage(message, conversationHistory));
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        return execute(() -> delegate.streamMessage(message, conversationHistory, onDelta));
+    }
+    
+    private CompletableFuture<AIResponse> execute(Supplier<CompletableFuture<AIResponse>> call) {
+        if (!config.isCircuitBreakerEnabled()) {
+            return call.get();
+        }
+        
+        long permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            return CompletableFuture.completedFuture(
+                AIResponse.failure(config.getErrorMessage(), AIResponse.ErrorType.UNAVAILABLE));
+        }
+        
+        long startNanos = System.nanoTime();
+        CompletableFuture<AIResponse> upstream;
+        try {
+            upstream = call.get();
+        } catch (Throwable t) {
+            upstream = CompletableFuture.failedFuture(t);
+        }
+        
+        upstream.whenComplete((response, throwable) -> {
+            long duration = System.nanoTime() - startNanos;
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+                if (cause instanceof CancellationException) {
+                    breaker.release(permit);
+                } else {
+                    breaker.onResult(permit, true, duration);
+                }
+            } else if (response.isSuccess() || response.getErrorType().isProviderFault()) {
+                breaker.onResult(permit, !response.isSuccess(), duration);
+            } else {
+                breaker.release(permit);
+            }
+        });
+        return upstream;
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,287 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * AIProvider decorator that sends a second, identical request when the first is slower than usual
+ * The hedge fires once the first request has run longer than a percentile of recent latency; whichever
+ * answers first wins and the other is cancelled. For streams the first one to produce text wins.
+ * Hedges are limited to a fraction of traffic and also draw on the shared retry budget.
+ */
+public class HedgingProvider implements AIProvider {
+    
+    private static final int LATENCY_WINDOW = 200;
+    private static final int PRIMARY = 0;
+    private static final int HEDGE = 1;
+    private static final int NO_WINNER = -1;
+    
+    private final AIProvider primary;
+    private final AIProvider hedgeTarget;
+    private final ConfigManager config;
+    private final RetryBudget hedgeBudget;
+    private final RetryBudget retryBudget;
+    private final ScheduledExecutorService scheduler;
+    private final Logger logger;
+    
+    // Full responses and time to first text are tracked apart; they differ by the length of the answer
+    private final LatencyTracker responseLatency = new LatencyTracker(LATENCY_WINDOW);
+    private final LatencyTracker firstTextLatency = new LatencyTracker(LATENCY_WINDOW);
+    
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    
+    /**
+     * @param primary Provider every request is sent to first
+     * @param hedgeTarget Provider that receives the hedge; may be the same as primary
+     * @param config Plugin configuration
+     * @param hedgeBudget Caps hedges to the configured fraction of traffic
+     * @param retryBudget Shared cap on all extra attempts
+     * @param scheduler Timer used to fire hedges
+     * @param logger Plugin logger
+     */
+    public HedgingProvider(AIProvider primary, AIProvider hedgeTarget, ConfigManager config, RetryBudget hedgeBudget,
+                           RetryBudget retryBudget, ScheduledExecutorService scheduler, Logger logger) {
+        this.primary = primary;
+        this.hedgeTarget = hedgeTarget;
+        this.config = config;
+        this.hedgeBudget = hedgeBudget;
+        this.retryBudget = retryBudget;
+        this.scheduler = scheduler;
+        this.logger = logger;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        if (!config.isHedgingEnabled()) {
+            return primary.sendMessage(message, conversationHistory);
+        }
+        return new HedgedCall(responseLatency, null) {
+            @Override
+            CompletableFuture<AIResponse> start(AIProvider provider, Consumer<String> onDelta) {
+                return provider.sendMessage(message, conversationHistory);
+            }
+        }.run();
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        if (!config.isHedgingEnabled()) {
+            return primary.streamMessage(message, conversationHistory, onDelta);
+        }
+        return new HedgedCall(firstTextLatency, onDelta) {
+            @Override
+            CompletableFuture<AIResponse> start(AIProvider provider, Consumer<String> attemptDelta) {
+                return provider.streamMessage(message, conversationHistory, attemptDelta);
+            }
+        }.run();
+    }
+    
+    /**
+     * Get the hedge delay for a latency window
+     * @return Delay in milliseconds, or -1 while there are too few samples to judge
+     */
+    private long hedgeDelay(LatencyTracker latency) {
+        if (latency.getSampleCount() < config.getHedgingMinSamples()) {
+            return -1;
+        }
+        return Math.max(config.getHedgingMinDelayMillis(), latency.getPercentile(config.getHedgingPercentile()));
+    }
+    
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+    
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+    
+    /**
+     * One request and its possible hedge
+     */
+    private abstract class HedgedCall {
+        private final LatencyTracker latency;
+        private final Consumer<String> onDelta;
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        private final AtomicReferenceArray<CompletableFuture<AIResponse>> attempts = new AtomicReferenceArray<>(2);
+        private final AtomicInteger winner = new AtomicInteger(NO_WINNER);
+        private volatile ScheduledFuture<?> hedgeTimer;
+        
+        private HedgedCall(LatencyTracker latency, Consumer<String> onDelta) {
+            this.latency = latency;
+            this.onDelta = onDelta;
+        }
+        
+        abstract CompletableFuture<AIResponse> start(AIProvider provider, Consumer<String> attemptDelta);
+        
+        CompletableFuture<AIResponse> run() {
+            result.whenComplete((response, throwable) -> {
+                if (result.isCancelled()) {
+                    cancelAttempt(PRIMARY);
+                    cancelAttempt(HEDGE);
+                }
+                ScheduledFuture<?> timer = hedgeTimer;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            });
+            
+            hedgeBudget.recordRequest();
+            launch(PRIMARY, primary);
+            
+            long delay = hedgeDelay(latency);
+            if (delay >= 0 && !result.isDone()) {
+                try {
+                    hedgeTimer = scheduler.schedule(this::fireHedge, delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the primary request carries on alone
+                }
+            }
+            return result;
+        }
+        
+        private void fireHedge() {
+            if (result.isDone() || winner.get() != NO_WINNER) {
+                return;
+            }
+            if (!hedgeBudget.tryAcquire() || !retryBudget.tryAcquire()) {
+                return;
+            }
+            hedgesSent.increment();
+            logger.fine(primary.getProviderName() + " request is slow, sending hedge to " + hedgeTarget.getProviderName());
+            launch(HEDGE, hedgeTarget);
+        }
+        
+        private void launch(int index, AIProvider provider) {
+            Consumer<String> attemptDelta = onDelta == null ? null : delta -> {
+                if (claim(index)) {
+                    onDelta.accept(delta);
+                }
+            };
+            
+            CompletableFuture<AIResponse> attempt;
+            try {
+                attempt = start(provider, attemptDelta);
+            } catch (Throwable t) {
+                attempt = CompletableFuture.failedFuture(t);
+            }
+            attempts.set(index, attempt);
+            if (result.isDone()) {
+                attempt.cancel(true);
+                return;
+            }
+            
+            attempt.whenComplete((response, throwable) -> onAttemptComplete(index, response, throwable));
+        }
+        
+        private void onAttemptComplete(int index, AIResponse response, Throwable throwable) {
+            boolean succeeded = throwable == null && response.isSuccess();
+            if (succeeded) {
+                claim(index);
+            }
+            
+            int currentWinner = winner.get();
+            if (currentWinner != NO_WINNER && currentWinner != index) {
+                // The loser finishing (or being cancelled) changes nothing
+                return;
+            }
+            if (currentWinner == NO_WINNER && isOtherPending(index)) {
+                // This attempt failed before producing anything; wait for the other one
+                return;
+            }
+            
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(response);
+            }
+        }
+        
+        /**
+         * Make an attempt the winner if there is none yet, cancelling the other
+         * @return true if the attempt is the winner
+         */
+        private boolean claim(int index) {
+            if (winner.compareAndSet(NO_WINNER, index)) {
+                cancelAttempt(1 - index);
+                ScheduledFuture<?> timer = hedgeTimer;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                
+                latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                if (index == HEDGE) {
+                    hedgesWon.increment();
+                }
+                return true;
+            }
+            return winner.get() == index;
+        }
+        
+        private boolean isOtherPending(int index) {
+            CompletableFuture<AIResponse> other = attempts.get(1 - index);
+            if (other != null) {
+                return !other.isDone();
+            }
+            // The hedge may still fire for a failed primary only if the timer has not run yet;
+            // it is not worth waiting for, so the failure is reported now
+            return false;
+        }
+        
+        private void cancelAttempt(int index) {
+            CompletableFuture<AIResponse> attempt = attempts.get(index);
+            if (attempt != null && !attempt.isDone()) {
+                attempt.cancel(true);
+            }
+        }
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return primary.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return primary.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return primary.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return primary.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return primary.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        primary.shutdown();
+        if (hedgeTarget != primary) {
+            hedgeTarget.shutdown();
+        }
+    }
+}
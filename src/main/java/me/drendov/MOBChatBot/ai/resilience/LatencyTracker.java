@@ -0,0 +1,63 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of recent request latencies
+ * Percentiles are recomputed from a sorted copy at most once per batch of new samples
+ */
+public class LatencyTracker {
+    
+    private static final int RECOMPUTE_EVERY = 10;
+    
+    private final long[] samples;
+    private int next = 0;
+    private int count = 0;
+    private int sinceSort = 0;
+    private long[] sorted = new long[0];
+    
+    /**
+     * @param windowSize Number of most recent samples kept
+     */
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+    
+    /**
+     * Record one request's latency
+     */
+    public synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceSort++;
+    }
+    
+    /**
+     * Get the number of samples in the window
+     */
+    public synchronized int getSampleCount() {
+        return count;
+    }
+    
+    /**
+     * Get a latency percentile over the window
+     * @param percentile Percentile between 0 and 100
+     * @return Latency in milliseconds, or -1 with no samples
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        if (sorted.length != count || sinceSort >= RECOMPUTE_EVERY) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sinceSort = 0;
+        }
+        
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,104 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps extra upstream attempts (retries, hedges) to a fraction of recent traffic
+ * so that during an outage they cannot multiply the load on a struggling provider
+ * Counts are kept in one-second buckets over a sliding ten-second window
+ */
+public class RetryBudget {
+    
+    private static final int WINDOW_SECONDS = 10;
+    
+    private final long[] requests = new long[WINDOW_SECONDS];
+    private final long[] extras = new long[WINDOW_SECONDS];
+    private final long[] bucketSecond = new long[WINDOW_SECONDS];
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    
+    private double ratio;
+    private int minPerSecond;
+    
+    /**
+     * @param ratio Extra attempts allowed per first attempt over the window
+     * @param minPerSecond Extra attempts always allowed per second, however little traffic there is
+     */
+    public RetryBudget(double ratio, int minPerSecond) {
+        configure(ratio, minPerSecond);
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     */
+    public synchronized void configure(double ratio, int minPerSecond) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+    }
+    
+    /**
+     * Record a first attempt, which earns budget for extra attempts
+     */
+    public synchronized void recordRequest() {
+        requests[bucket(currentSecond())]++;
+    }
+    
+    /**
+     * Try to spend budget on one extra attempt
+     * @return true if the attempt may be made
+     */
+    public synchronized boolean tryAcquire() {
+        long second = currentSecond();
+        bucket(second);
+        
+        long totalRequests = 0;
+        long totalExtras = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (second - bucketSecond[i] < WINDOW_SECONDS) {
+                totalRequests += requests[i];
+                totalExtras += extras[i];
+            }
+        }
+        
+        double allowed = Math.max((double) minPerSecond * WINDOW_SECONDS, totalRequests * ratio);
+        if (totalExtras + 1 > allowed) {
+            denied.increment();
+            return false;
+        }
+        extras[bucket(second)]++;
+        granted.increment();
+        return true;
+    }
+    
+    /**
+     * Get the number of extra attempts the budget has allowed
+     */
+    public long getGrantedCount() {
+        return granted.sum();
+    }
+    
+    /**
+     * Get the number of extra attempts refused because the budget was spent
+     */
+    public long getDeniedCount() {
+        return denied.sum();
+    }
+    
+    /**
+     * Find the bucket for a second, clearing it if it still holds an older second
+     */
+    private int bucket(long second) {
+        int index = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        if (bucketSecond[index] != second) {
+            bucketSecond[index] = second;
+            requests[index] = 0;
+            extras[index] = 0;
+        }
+        return index;
+    }
+    
+    private static long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+}
@@ -0,0 +1,217 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.ai.RateLimitStatus;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * AIProvider decorator that retries transient failures with exponential backoff and full jitter
+ * Retries are scheduled on a timer rather than slept on a thread, draw on a shared retry budget,
+ * and stop as soon as the caller cancels
+ */
+public class RetryingProvider implements AIProvider {
+    
+    private final AIProvider delegate;
+    private final ConfigManager config;
+    private final RetryBudget budget;
+    private final ScheduledExecutorService scheduler;
+    private final Logger logger;
+    
+    /**
+     * @param delegate Provider to retry against
+     * @param config Plugin configuration
+     * @param budget Shared cap on retries
+     * @param scheduler Timer used to run delayed attempts
+     * @param logger Plugin logger
+     */
+    public RetryingProvider(AIProvider delegate, ConfigManager config, RetryBudget budget,
+                            ScheduledExecutorService scheduler, Logger logger) {
+        this.delegate = delegate;
+        this.config = config;
+        this.budget = budget;
+        this.scheduler = scheduler;
+        this.logger = logger;
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return execute(() -> delegate.sendMessage(message, conversationHistory), null);
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        // Once text has reached the player, a retry would repeat it
+        AtomicBoolean streamed = new AtomicBoolean(false);
+        Consumer<String> tracked = delta -> {
+            streamed.set(true);
+            onDelta.accept(delta);
+        };
+        return execute(() -> delegate.streamMessage(message, conversationHistory, tracked), streamed);
+    }
+    
+    /**
+     * Run the first attempt and schedule retries until one succeeds or retrying stops making sense
+     * @param streamed Set once any text has been delivered, or null for non-streaming calls
+     */
+    private CompletableFuture<AIResponse> execute(Supplier<CompletableFuture<AIResponse>> call, AtomicBoolean streamed) {
+        CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<AIResponse>> current = new AtomicReference<>();
+        
+        // Cancelling the caller's future cancels whichever attempt is running
+        result.whenComplete((response, throwable) -> {
+            if (result.isCancelled()) {
+                CompletableFuture<AIResponse> attempt = current.get();
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            }
+        });
+        
+        if (config.isRetryEnabled()) {
+            budget.recordRequest();
+        }
+        attempt(call, streamed, result, current, 1);
+        return result;
+    }
+    
+    private void attempt(Supplier<CompletableFuture<AIResponse>> call, AtomicBoolean streamed,
+                         CompletableFuture<AIResponse> result,
+                         AtomicReference<CompletableFuture<AIResponse>> current, int attempt) {
+        // Cancelled while waiting for this attempt
+        if (result.isDone()) {
+            return;
+        }
+        
+        CompletableFuture<AIResponse> future;
+        try {
+            future = call.get();
+        } catch (Throwable t) {
+            future = CompletableFuture.failedFuture(t);
+        }
+        current.set(future);
+        if (result.isCancelled()) {
+            future.cancel(true);
+            return;
+        }
+        
+        future.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+            
+            long delayMillis = retryDelay(response, attempt, streamed);
+            if (delayMillis < 0 || result.isDone()) {
+                result.complete(response);
+                return;
+            }
+            
+            logger.fine(String.format(
+                "%s request failed (%s), retrying in %dms (attempt %d of %d)",
+                delegate.getProviderName(), response.getErrorType(), delayMillis, attempt + 1, config.getRetryMaxAttempts()
+            ));
+            try {
+                scheduler.schedule(() -> attempt(call, streamed, result, current, attempt + 1),
+                        delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; report the failure we already have
+                result.complete(response);
+            }
+        });
+    }
+    
+    /**
+     * Decide whether to retry a response
+     * @return Delay before the next attempt in milliseconds, or -1 to stop
+     */
+    private long retryDelay(AIResponse response, int attempt, AtomicBoolean streamed) {
+        if (response.isSuccess() || !config.isRetryEnabled() || attempt >= config.getRetryMaxAttempts()) {
+            return -1;
+        }
+        if (!isRetryable(response.getErrorType()) || (streamed != null && streamed.get())) {
+            return -1;
+        }
+        
+        long maxDelay = config.getRetryMaxDelayMillis();
+        
+        // Full jitter: anywhere between zero and the exponential ceiling
+        long ceiling = Math.min(maxDelay, config.getRetryBaseDelayMillis() << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        
+        // Never come back sooner than the provider asked
+        RateLimitStatus rateLimit = response.getRateLimit();
+        if (rateLimit != null && rateLimit.getRetryAfterMillis() > 0) {
+            if (rateLimit.getRetryAfterMillis() > maxDelay) {
+                return -1;
+            }
+            delay = Math.max(delay, rateLimit.getRetryAfterMillis());
+        }
+        
+        // Checked last so budget is only spent on retries that will happen
+        if (!budget.tryAcquire()) {
+            logger.fine(delegate.getProviderName() + " retry skipped: retry budget exhausted");
+            return -1;
+        }
+        return delay;
+    }
+    
+    /**
+     * Failures that may go away on their own
+     */
+    static boolean isRetryable(AIResponse.ErrorType errorType) {
+        switch (errorType) {
+            case RATE_LIMITED:
+            case TIMEOUT:
+            case NETWORK:
+            case SERVER_ERROR:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,25 @@
+package me.drendov.MOBChatBot.ai.routing;
+
+import java.util.List;
+
+/**
+ * Send each request to the provider expected to answer soonest
+ * The cost of a provider is its requests in flight, plus this one, times its moving average latency.
+ * A provider with no latency measured yet counts as answering in a millisecond, so it is tried straight away.
+ */
+public class LeastLoadedPolicy implements RoutingPolicy {
+    
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> candidates) {
+        ProviderEndpoint best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (ProviderEndpoint endpoint : candidates) {
+            double cost = (endpoint.getOutstanding() + 1) * Math.max(1, endpoint.getEwmaLatencyMillis());
+            if (cost < bestCost) {
+                best = endpoint;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+}
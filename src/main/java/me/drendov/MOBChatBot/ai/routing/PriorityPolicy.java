@@ -0,0 +1,14 @@
+package me.drendov.MOBChatBot.ai.routing;
+
+import java.util.List;
+
+/**
+ * Send everything to the highest-priority provider that is available, failing over down the list
+ */
+public class PriorityPolicy implements RoutingPolicy {
+    
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> candidates) {
+        return candidates.get(0);
+    }
+}
@@ -0,0 +1,174 @@
+package me.drendov.MOBChatBot.ai.routing;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One provider behind the router, with the load and health figures routing decisions are made from
+ * A provider that fails repeatedly is ejected for a while. Once the ejection has passed a single
+ * probe request is let through: success puts it back in rotation, failure ejects it again for twice as long.
+ */
+public class ProviderEndpoint {
+    
+    /**
+     * Routing state of an endpoint
+     */
+    public enum State {
+        HEALTHY,
+        EJECTED,
+        PROBING
+    }
+    
+    // Weight of the newest sample in the moving average of latency
+    private static final double EWMA_ALPHA = 0.2;
+    
+    private final AIProvider provider;
+    private final int priority;
+    private final int weight;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    
+    // Guarded by this
+    private State state = State.HEALTHY;
+    private int consecutiveFailures = 0;
+    private long ejectedUntilNanos;
+    private long ejectionNanos = 0;
+    private double ewmaLatencyMillis = 0;
+    private long ejections = 0;
+    
+    // Running weight for smooth weighted round-robin, guarded by the policy
+    int currentWeight = 0;
+    
+    /**
+     * @param provider The provider requests are sent to
+     * @param priority Lower values are preferred by priority routing
+     * @param weight Share of traffic under weighted routing
+     */
+    public ProviderEndpoint(AIProvider provider, int priority, int weight) {
+        this.provider = provider;
+        this.priority = priority;
+        this.weight = weight;
+    }
+    
+    /**
+     * Check whether the endpoint may be offered a request now
+     */
+    synchronized boolean isSelectable(long now) {
+        return state == State.HEALTHY || (state == State.EJECTED && now - ejectedUntilNanos >= 0);
+    }
+    
+    /**
+     * Claim the endpoint for a request
+     * An ejected endpoint whose rest is over takes the request as its single probe; any other caller is refused
+     * @return HEALTHY for an ordinary request, PROBING for the probe, or null if the request may not be sent here
+     */
+    synchronized State tryReserve(long now) {
+        if (state == State.EJECTED && now - ejectedUntilNanos >= 0) {
+            state = State.PROBING;
+        } else if (state != State.HEALTHY) {
+            return null;
+        }
+        outstanding.incrementAndGet();
+        return state;
+    }
+    
+    /**
+     * Claim the endpoint for a request even though it is ejected, when there is nowhere else to send it
+     */
+    synchronized void reserveWhileEjected() {
+        outstanding.incrementAndGet();
+    }
+    
+    /**
+     * Record a request that completed without a provider fault
+     * @return true if this brought the endpoint back into rotation
+     */
+    synchronized boolean onSuccess(long latencyMillis) {
+        outstanding.decrementAndGet();
+        ewmaLatencyMillis = ewmaLatencyMillis == 0
+            ? latencyMillis
+            : EWMA_ALPHA * latencyMillis + (1 - EWMA_ALPHA) * ewmaLatencyMillis;
+        consecutiveFailures = 0;
+        ejectionNanos = 0;
+        
+        boolean recovered = state != State.HEALTHY;
+        state = State.HEALTHY;
+        return recovered;
+    }
+    
+    /**
+     * Record a request that failed because of the provider
+     * A failed probe ejects the endpoint again; otherwise it is ejected after enough failures in a row
+     * @return true if this ejected the endpoint
+     */
+    synchronized boolean onFailure(long now, boolean probe, int failureThreshold, long baseEjectionNanos,
+                                   long maxEjectionNanos) {
+        outstanding.decrementAndGet();
+        consecutiveFailures++;
+        
+        if ((probe && state == State.PROBING) || (state == State.HEALTHY && consecutiveFailures >= failureThreshold)) {
+            ejectionNanos = ejectionNanos == 0 ? baseEjectionNanos : Math.min(maxEjectionNanos, ejectionNanos * 2);
+            ejectedUntilNanos = now + ejectionNanos;
+            state = State.EJECTED;
+            ejections++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Record a request that ended without saying anything about the provider's health, e.g. a cancellation
+     * @param probe Whether the request was the endpoint's probe
+     */
+    synchronized void onNeutral(boolean probe) {
+        outstanding.decrementAndGet();
+        if (probe && state == State.PROBING) {
+            // Let the next request probe instead
+            state = State.EJECTED;
+        }
+    }
+    
+    public AIProvider getProvider() {
+        return provider;
+    }
+    
+    public String getName() {
+        return provider.getProviderName();
+    }
+    
+    public int getPriority() {
+        return priority;
+    }
+    
+    public int getWeight() {
+        return weight;
+    }
+    
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    public synchronized double getEwmaLatencyMillis() {
+        return ewmaLatencyMillis;
+    }
+    
+    public synchronized long getEjections() {
+        return ejections;
+    }
+    
+    /**
+     * Get the time left until an ejected endpoint is probed
+     * @return Seconds, or 0 if the endpoint is not resting
+     */
+    public synchronized long getSecondsUntilProbe() {
+        if (state != State.EJECTED) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toSeconds(ejectedUntilNanos - System.nanoTime()));
+    }
+}
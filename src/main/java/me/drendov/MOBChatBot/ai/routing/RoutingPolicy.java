@@ -0,0 +1,34 @@
+package me.drendov.MOBChatBot.ai.routing;
+
+import java.util.List;
+
+/**
+ * Chooses which provider a request is sent to
+ */
+public interface RoutingPolicy {
+    
+    /**
+     * Pick one of the candidates
+     * @param candidates Endpoints that may take the request, in priority order; never empty
+     * @return The chosen endpoint
+     */
+    ProviderEndpoint select(List<ProviderEndpoint> candidates);
+    
+    /**
+     * Create the policy named in the configuration
+     * @param name "priority", "weighted" or "least-loaded"
+     * @return The policy, or null if the name is not known
+     */
+    static RoutingPolicy forName(String name) {
+        switch (name.toLowerCase()) {
+            case "priority":
+                return new PriorityPolicy();
+            case "weighted":
+                return new WeightedRoundRobinPolicy();
+            case "least-loaded":
+                return new LeastLoadedPolicy();
+            default:
+                return null;
+        }
+    }
+}
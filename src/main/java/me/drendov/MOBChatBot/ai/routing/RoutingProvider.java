@@ -0,0 +1,347 @@
+package me.drendov.MOBChatBot.ai.routing;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * AIProvider that spreads requests over several providers
+ * Each request goes to the provider the routing policy picks among the healthy ones. If that provider fails
+ * before any text has been streamed, the request moves on to the next provider it has not tried yet.
+ * Providers that keep failing are ejected and later probed back in (see {@link ProviderEndpoint}).
+ * When every provider is ejected, requests are still sent rather than failed outright.
+ */
+public class RoutingProvider implements AIProvider {
+    
+    private final List<ProviderEndpoint> endpoints;
+    private final RoutingPolicy policy;
+    private final ConfigManager config;
+    private final Logger logger;
+    private final String name;
+    private final String modelName;
+    
+    /**
+     * @param endpoints Providers to route between; must not be empty
+     * @param policy Picks a provider for each request
+     * @param config Plugin configuration
+     * @param logger Plugin logger
+     */
+    public RoutingProvider(List<ProviderEndpoint> endpoints, RoutingPolicy policy, ConfigManager config, Logger logger) {
+        List<ProviderEndpoint> sorted = new ArrayList<>(endpoints);
+        sorted.sort(Comparator.comparingInt(ProviderEndpoint::getPriority));
+        this.endpoints = Collections.unmodifiableList(sorted);
+        this.policy = policy;
+        this.config = config;
+        this.logger = logger;
+        
+        List<String> names = new ArrayList<>();
+        List<String> models = new ArrayList<>();
+        for (ProviderEndpoint endpoint : this.endpoints) {
+            names.add(endpoint.getName());
+            models.add(endpoint.getProvider().getModelName());
+        }
+        this.name = String.join("+", names);
+        this.modelName = String.join("+", models);
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return new RoutedCall(policy, (provider, onDelta) -> provider.sendMessage(message, conversationHistory), null).run();
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        return new RoutedCall(policy, (provider, attemptDelta) -> provider.streamMessage(message, conversationHistory, attemptDelta),
+            onDelta).run();
+    }
+    
+    /**
+     * Get a view of this router that sends each request to the least loaded provider, whatever the configured policy
+     * Used as the hedge target, so a hedge tends to go to a different provider than the slow request
+     */
+    public AIProvider leastLoadedView() {
+        RoutingProvider router = this;
+        RoutingPolicy leastLoaded = new LeastLoadedPolicy();
+        return new AIProvider() {
+            @Override
+            public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+                return router.new RoutedCall(leastLoaded,
+                    (provider, onDelta) -> provider.sendMessage(message, conversationHistory), null).run();
+            }
+            
+            @Override
+            public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                               Consumer<String> onDelta) {
+                return router.new RoutedCall(leastLoaded,
+                    (provider, attemptDelta) -> provider.streamMessage(message, conversationHistory, attemptDelta), onDelta).run();
+            }
+            
+            @Override
+            public boolean isConfigured() {
+                return router.isConfigured();
+            }
+            
+            @Override
+            public String getProviderName() {
+                return router.getProviderName();
+            }
+            
+            @Override
+            public String getModelName() {
+                return router.getModelName();
+            }
+            
+            @Override
+            public String getSystemPrompt() {
+                return router.getSystemPrompt();
+            }
+            
+            @Override
+            public boolean initialize() {
+                return true;
+            }
+            
+            @Override
+            public void shutdown() {
+                // Owned by the router
+            }
+        };
+    }
+    
+    /**
+     * Get the providers behind this router, in priority order
+     */
+    public List<ProviderEndpoint> getEndpoints() {
+        return endpoints;
+    }
+    
+    /**
+     * Check whether another provider might succeed where this one failed
+     */
+    private static boolean shouldFailOver(AIResponse.ErrorType errorType) {
+        return errorType != AIResponse.ErrorType.INVALID_REQUEST && errorType != AIResponse.ErrorType.CANCELLED;
+    }
+    
+    /**
+     * Starts a request on one provider
+     */
+    @FunctionalInterface
+    private interface Attempt {
+        CompletableFuture<AIResponse> start(AIProvider provider, Consumer<String> onDelta);
+    }
+    
+    /**
+     * One request and the providers it has tried
+     */
+    private final class RoutedCall {
+        private final RoutingPolicy routingPolicy;
+        private final Attempt attempt;
+        private final Consumer<String> onDelta;
+        private final List<ProviderEndpoint> tried = new ArrayList<>();
+        private final AtomicBoolean streamed = new AtomicBoolean(false);
+        private final CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        private volatile CompletableFuture<AIResponse> current;
+        // Whether the endpoint last reserved took the request as its probe
+        private boolean probing;
+        
+        private RoutedCall(RoutingPolicy routingPolicy, Attempt attempt, Consumer<String> onDelta) {
+            this.routingPolicy = routingPolicy;
+            this.attempt = attempt;
+            this.onDelta = onDelta;
+            result.whenComplete((response, throwable) -> {
+                CompletableFuture<AIResponse> inFlight = current;
+                if (result.isCancelled() && inFlight != null) {
+                    inFlight.cancel(true);
+                }
+            });
+        }
+        
+        private CompletableFuture<AIResponse> run() {
+            // There is always an untried provider for the first attempt
+            tryNext();
+            return result;
+        }
+        
+        /**
+         * Send the request to the next provider
+         * @return false if there is no provider left worth trying
+         */
+        private boolean tryNext() {
+            ProviderEndpoint endpoint = reserve();
+            if (endpoint == null) {
+                return false;
+            }
+            tried.add(endpoint);
+            boolean probe = probing;
+            
+            Consumer<String> attemptDelta = onDelta == null ? null : delta -> {
+                streamed.set(true);
+                onDelta.accept(delta);
+            };
+            
+            long startNanos = System.nanoTime();
+            CompletableFuture<AIResponse> upstream;
+            try {
+                upstream = attempt.start(endpoint.getProvider(), attemptDelta);
+            } catch (Throwable t) {
+                upstream = CompletableFuture.failedFuture(t);
+            }
+            current = upstream;
+            if (result.isCancelled()) {
+                upstream.cancel(true);
+            }
+            
+            upstream.whenComplete((response, throwable) -> {
+                long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                if (!record(endpoint, probe, response, throwable, latencyMillis) || result.isDone()) {
+                    return;
+                }
+                if (!streamed.get() && tryNext()) {
+                    logger.fine(endpoint.getName() + " request failed, trying another provider");
+                } else if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(response);
+                }
+            });
+            return true;
+        }
+        
+        /**
+         * Pick and claim a provider this request has not tried
+         * Healthy providers come first; if every untried provider is ejected, the one the policy picks is used anyway
+         */
+        private ProviderEndpoint reserve() {
+            List<ProviderEndpoint> untried = new ArrayList<>(endpoints);
+            untried.removeAll(tried);
+            if (untried.isEmpty()) {
+                return null;
+            }
+            
+            List<ProviderEndpoint> candidates = new ArrayList<>(untried);
+            while (!candidates.isEmpty()) {
+                long now = System.nanoTime();
+                candidates.removeIf(endpoint -> !endpoint.isSelectable(now));
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                ProviderEndpoint chosen = routingPolicy.select(candidates);
+                ProviderEndpoint.State reserved = chosen.tryReserve(now);
+                if (reserved != null) {
+                    probing = reserved == ProviderEndpoint.State.PROBING;
+                    return chosen;
+                }
+                candidates.remove(chosen);
+            }
+            
+            if (!tried.isEmpty()) {
+                // Failing over to an ejected provider would only fail again
+                return null;
+            }
+            ProviderEndpoint fallback = routingPolicy.select(untried);
+            fallback.reserveWhileEjected();
+            probing = false;
+            return fallback;
+        }
+        
+        /**
+         * Update the provider's health from the outcome of an attempt
+         * @return true if the request should fail over or finish, false if the outcome was already delivered
+         */
+        private boolean record(ProviderEndpoint endpoint, boolean probe, AIResponse response, Throwable throwable,
+                               long latencyMillis) {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+                if (cause instanceof CancellationException) {
+                    endpoint.onNeutral(probe);
+                    result.cancel(false);
+                    return false;
+                }
+                recordFailure(endpoint, probe);
+                return true;
+            }
+            
+            if (response.isSuccess()) {
+                if (endpoint.onSuccess(latencyMillis)) {
+                    logger.info(endpoint.getName() + " is back in rotation");
+                }
+                result.complete(response);
+                return false;
+            }
+            
+            if (response.getErrorType().isProviderFault()) {
+                recordFailure(endpoint, probe);
+            } else {
+                endpoint.onNeutral(probe);
+            }
+            if (!shouldFailOver(response.getErrorType())) {
+                result.complete(response);
+                return false;
+            }
+            return true;
+        }
+        
+        private void recordFailure(ProviderEndpoint endpoint, boolean probe) {
+            long baseEjection = TimeUnit.SECONDS.toNanos(config.getRoutingEjectionSeconds());
+            long maxEjection = TimeUnit.SECONDS.toNanos(config.getRoutingMaxEjectionSeconds());
+            if (endpoint.onFailure(System.nanoTime(), probe, config.getRoutingFailureThreshold(), baseEjection, maxEjection)) {
+                logger.warning(endpoint.getName() + " is failing and has been taken out of rotation for "
+                    + endpoint.getSecondsUntilProbe() + "s");
+            }
+        }
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        for (ProviderEndpoint endpoint : endpoints) {
+            if (endpoint.getProvider().isConfigured()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public String getProviderName() {
+        return name;
+    }
+    
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return endpoints.get(0).getProvider().getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        // Every endpoint was initialized before it was added
+        return true;
+    }
+    
+    @Override
+    public void shutdown() {
+        for (ProviderEndpoint endpoint : endpoints) {
+            endpoint.getProvider().shutdown();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package me.drendov.MOBChatBot.ai.routing;
+
+import java.util.List;
+
+/**
+ * Spread requests across providers in proportion to their weights
+ * Uses smooth weighted round-robin, which interleaves picks instead of sending runs to the heaviest
+ * provider: every pick adds each candidate's weight to its running total, takes the largest total
+ * and subtracts the sum of the weights from the winner.
+ */
+public class WeightedRoundRobinPolicy implements RoutingPolicy {
+    
+    @Override
+    public synchronized ProviderEndpoint select(List<ProviderEndpoint> candidates) {
+        ProviderEndpoint best = null;
+        int totalWeight = 0;
+        for (ProviderEndpoint endpoint : candidates) {
+            endpoint.currentWeight += endpoint.getWeight();
+            totalWeight += endpoint.getWeight();
+            if (best == null || endpoint.currentWeight > best.currentWeight) {
+                best = endpoint;
+            }
+        }
+        best.currentWeight -= totalWeight;
+        return best;
+    }
+}
@@ -0,0 +1,69 @@
+package me.drendov.MOBChatBot.commands;
+
+import me.drendov.MOBChatBot.MOBChatBot;
+import me.drendov.MOBChatBot.ai.cache.ResponseCache;
+import me.drendov.MOBChatBot.utils.MessageUtils;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Cache command handler
+ * Shows response cache statistics and flushes the cache
+ */
+public class CacheCommand implements CommandExecutor {
+    
+    private final MOBChatBot plugin;
+    
+    public CacheCommand(MOBChatBot plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission("mobchatbot.admin")) {
+            MessageUtils.reply(sender, "You don't have permission to use this command!", true);
+            return true;
+        }
+        
+        ResponseCache cache = plugin.getResponseCache();
+        String action = args.length > 0 ? args[0].toLowerCase() : "stats";
+        
+        switch (action) {
+            case "stats":
+                MessageUtils.reply(sender, String.format(
+                    "Response cache: %s, %d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                    cache.isEnabled() ? "enabled" : "disabled",
+                    cache.size(),
+                    cache.getHits(),
+                    cache.getMisses(),
+                    cache.getHitRate() * 100,
+                    cache.getEvictions()
+                ), false);
+                MessageUtils.reply(sender, String.format(
+                    "Coalescing: %d duplicate requests shared an in-flight call, %d in flight",
+                    plugin.getRequestCoalescer().getDeduplicatedCount(),
+                    plugin.getRequestCoalescer().getInFlightCount()
+                ), false);
+                if (cache.isPersistent()) {
+                    MessageUtils.reply(sender, String.format(
+                        "Disk cache: %s, %d entries, %d KB, %d hits served from disk",
+                        cache.isDiskLoaded() ? "loaded" : "loading",
+                        cache.getDiskSize(),
+                        cache.getDiskBytes() / 1024,
+                        cache.getDiskHits()
+                    ), false);
+                }
+                break;
+            case "flush":
+                int removed = cache.clear();
+                MessageUtils.reply(sender, "Response cache flushed (" + removed + " entries removed)", false);
+                plugin.getLogger().info("Response cache flushed by " + sender.getName());
+                break;
+            default:
+                MessageUtils.reply(sender, "Usage: /" + label + " <stats|flush>", true);
+        }
+        
+        return true;
+    }
+}
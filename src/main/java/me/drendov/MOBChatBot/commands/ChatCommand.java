@@ -3,13 +3,19 @@ package me.drendov.MOBChatBot.commands;
 import me.drendov.MOBChatBot.MOBChatBot;
 import me.drendov.MOBChatBot.ai.AIProvider;
 import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+import me.drendov.MOBChatBot.metrics.ChatStats;
+import me.drendov.MOBChatBot.metrics.LatencyHistogram;
+import me.drendov.MOBChatBot.ratelimit.PlayerRateLimiter;
 import me.drendov.MOBChatBot.utils.MessageUtils;
+import me.drendov.MOBChatBot.utils.SentenceChunker;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main chat command handler
@@ -49,16 +55,57 @@ public class ChatCommand implements CommandExecutor {
             return true;
         }
         
+        // Enforce cooldown and daily quota before anything is sent upstream
+        if (!player.hasPermission("mobchatbot.bypass-limits") && !checkRateLimit(player)) {
+            return true;
+        }
+        
         // Combine args into message
         String message = String.join(" ", args);
         
+        // Previous turns give the AI context for follow-up questions
+        List<ConversationMessage> history = plugin.getConversationManager()
+            .getContext(player.getUniqueId(), aiProvider.getSystemPrompt(), message);
+        
         // Send typing indicator
         MessageUtils.sendMessage(player, "Thinking...");
         
+        // Reply time and token use feed the rolling stats; delivery time is recorded for all providers together
+        LatencyHistogram delivery = plugin.getMetrics().getDelivery();
+        ChatStats stats = plugin.getChatStats();
+        long requestedNanos = System.nanoTime();
+        
+        // Stream sentences to the player as they are generated
+        if (plugin.getConfigManager().isStreamResponses()) {
+            SentenceChunker chunker = new SentenceChunker(
+                chunk -> player.sendMessage(MessageUtils.formatAIResponse(chunk))
+            );
+            
+            aiProvider.streamMessage(message, history, chunker::append)
+                .whenComplete((response, throwable) -> stats.recordChat(
+                    player.getUniqueId(), player.getName(), System.nanoTime() - requestedNanos, response))
+                .thenAccept(response -> {
+                    long startNanos = System.nanoTime();
+                    chunker.flush();
+                    handleAIResponse(player, message, response, true);
+                    delivery.record(System.nanoTime() - startNanos);
+                })
+                .exceptionally(throwable -> {
+                    plugin.getLogger().severe("Error processing AI request: " + throwable.getMessage());
+                    MessageUtils.sendError(player, plugin.getConfigManager().getErrorMessage());
+                    return null;
+                });
+            return true;
+        }
+        
         // Send to AI provider asynchronously
-        aiProvider.sendMessage(message, new ArrayList<>())
+        aiProvider.sendMessage(message, history)
+            .whenComplete((response, throwable) -> stats.recordChat(
+                player.getUniqueId(), player.getName(), System.nanoTime() - requestedNanos, response))
             .thenAccept(response -> {
-                handleAIResponse(player, response);
+                long startNanos = System.nanoTime();
+                handleAIResponse(player, message, response, false);
+                delivery.record(System.nanoTime() - startNanos);
             })
             .exceptionally(throwable -> {
                 plugin.getLogger().severe("Error processing AI request: " + throwable.getMessage());
@@ -69,21 +116,55 @@ public class ChatCommand implements CommandExecutor {
         return true;
     }
     
+    /**
+     * Take one message from the player's allowance
+     * @return true if the request may be sent; otherwise the player has been told why not
+     */
+    private boolean checkRateLimit(Player player) {
+        long result = plugin.getRateLimiter().tryAcquire(player.getUniqueId());
+        if (result == PlayerRateLimiter.ALLOWED) {
+            return true;
+        }
+        
+        if (result == PlayerRateLimiter.QUOTA_EXHAUSTED) {
+            MessageUtils.sendError(player, plugin.getConfigManager().getLimitReachedMessage()
+                .replace("{limit}", String.valueOf(plugin.getRateLimiter().getDailyQuota())));
+        } else {
+            long seconds = Math.max(1, (result + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            MessageUtils.sendError(player, plugin.getConfigManager().getCooldownMessage()
+                .replace("{seconds}", String.valueOf(seconds)));
+        }
+        return false;
+    }
+    
     /**
      * Handle the AI response and send it to the player
+     * @param streamed true if the content has already been delivered chunk by chunk
      */
-    private void handleAIResponse(Player player, AIResponse response) {
+    private void handleAIResponse(Player player, String message, AIResponse response, boolean streamed) {
         if (response.isSuccess()) {
+            // Remember the exchange for follow-up questions
+            plugin.getConversationManager().addExchange(player.getUniqueId(), message, response.getContent());
+            
             // Send the AI's response to the player
-            String formattedResponse = MessageUtils.formatAIResponse(response.getContent());
-            player.sendMessage(formattedResponse);
+            if (!streamed) {
+                String formattedResponse = MessageUtils.formatAIResponse(response.getContent());
+                player.sendMessage(formattedResponse);
+            }
             
             // Log token usage
-            plugin.getLogger().info(String.format(
-                "Player %s - AI response delivered (%d tokens used)",
-                player.getName(),
-                response.getTokensUsed()
-            ));
+            if (response.isCached()) {
+                plugin.getLogger().info(String.format(
+                    "Player %s - AI response delivered from cache or a shared request",
+                    player.getName()
+                ));
+            } else {
+                plugin.getLogger().info(String.format(
+                    "Player %s - AI response delivered (%d tokens used)",
+                    player.getName(),
+                    response.getTokensUsed()
+                ));
+            }
         } else {
             // Send error message
             MessageUtils.sendError(player, "AI Error: " + response.getErrorMessage());
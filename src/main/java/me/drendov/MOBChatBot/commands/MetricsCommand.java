@@ -0,0 +1,134 @@
+package me.drendov.MOBChatBot.commands;
+
+import me.drendov.MOBChatBot.MOBChatBot;
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.DrainableProvider;
+import me.drendov.MOBChatBot.ai.cache.ResponseCache;
+import me.drendov.MOBChatBot.metrics.LatencyHistogram;
+import me.drendov.MOBChatBot.metrics.ProviderMetrics;
+import me.drendov.MOBChatBot.metrics.Stage;
+import me.drendov.MOBChatBot.utils.MessageUtils;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metrics command handler
+ * Shows request counts, failures and stage latencies per provider, or writes the Prometheus metrics file
+ */
+public class MetricsCommand implements CommandExecutor {
+    
+    private final MOBChatBot plugin;
+    
+    public MetricsCommand(MOBChatBot plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission("mobchatbot.admin")) {
+            MessageUtils.reply(sender, "You don't have permission to use this command!", true);
+            return true;
+        }
+        
+        String action = args.length > 0 ? args[0].toLowerCase() : "show";
+        switch (action) {
+            case "show":
+                showMetrics(sender);
+                return true;
+            case "export":
+                exportMetrics(sender);
+                return true;
+            default:
+                MessageUtils.reply(sender, "Usage: /mobchatmetrics [show|export]", true);
+                return true;
+        }
+    }
+    
+    private void showMetrics(CommandSender sender) {
+        boolean any = false;
+        for (ProviderMetrics metrics : plugin.getMetrics().getProviders()) {
+            if (metrics.getRequests() == 0) {
+                continue;
+            }
+            any = true;
+            
+            MessageUtils.reply(sender, String.format(
+                "%s (%s): %d requests, %d failed, %d tokens, %d in flight",
+                metrics.getProvider(),
+                metrics.getModel(),
+                metrics.getRequests(),
+                metrics.getErrors(),
+                metrics.getTokens(),
+                metrics.getInFlight()
+            ), false);
+            
+            List<String> failures = new ArrayList<>();
+            for (AIResponse.ErrorType type : AIResponse.ErrorType.values()) {
+                long count = metrics.getErrors(type);
+                if (count > 0) {
+                    failures.add(type.name().toLowerCase() + " " + count);
+                }
+            }
+            if (!failures.isEmpty()) {
+                MessageUtils.reply(sender, "  failures: " + String.join(", ", failures), true);
+            }
+            
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram.Snapshot snapshot = metrics.getHistogram(stage).snapshot();
+                if (snapshot.getCount() > 0) {
+                    MessageUtils.reply(sender, String.format(
+                        "  %s: p50 %.0f ms, p95 %.0f ms, p99 %.0f ms over %d",
+                        stage.getLabel(),
+                        snapshot.getPercentileMillis(0.50),
+                        snapshot.getPercentileMillis(0.95),
+                        snapshot.getPercentileMillis(0.99),
+                        snapshot.getCount()
+                    ), false);
+                }
+            }
+        }
+        
+        if (!any) {
+            MessageUtils.reply(sender, "No requests have been sent to a provider yet", false);
+        }
+        
+        LatencyHistogram.Snapshot delivery = plugin.getMetrics().getDelivery().snapshot();
+        if (delivery.getCount() > 0) {
+            MessageUtils.reply(sender, String.format(
+                "Delivery to players: p50 %.0f ms, p95 %.0f ms, p99 %.0f ms over %d",
+                delivery.getPercentileMillis(0.50),
+                delivery.getPercentileMillis(0.95),
+                delivery.getPercentileMillis(0.99),
+                delivery.getCount()
+            ), false);
+        }
+        
+        ResponseCache cache = plugin.getResponseCache();
+        AIProvider provider = plugin.getAIProvider();
+        int inFlight = provider instanceof DrainableProvider ? ((DrainableProvider) provider).getInFlight() : 0;
+        MessageUtils.reply(sender, String.format(
+            "Cache hit rate %.1f%%, %d requests in flight, %d queued",
+            cache.getHitRate() * 100,
+            inFlight,
+            plugin.getRequestExecutor().getQueueDepth()
+        ), false);
+    }
+    
+    private void exportMetrics(CommandSender sender) {
+        // Written off the main thread; the reply follows once the file is in place
+        plugin.getMetricsExporter().exportFile().whenComplete((file, throwable) -> {
+            if (throwable != null) {
+                MessageUtils.reply(sender, "Failed to write metrics file: " + throwable.getMessage(), true);
+            } else if (file == null) {
+                MessageUtils.reply(sender, "The Prometheus metrics file is disabled (metrics.prometheus-file.enabled)", true);
+            } else {
+                MessageUtils.reply(sender, "Metrics written to " + file.getPath(), false);
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package me.drendov.MOBChatBot.commands;
+
+import me.drendov.MOBChatBot.MOBChatBot;
+import me.drendov.MOBChatBot.ai.admission.AdmissionController;
+import me.drendov.MOBChatBot.ai.resilience.CircuitBreaker;
+import me.drendov.MOBChatBot.utils.MessageUtils;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * Providers command handler
+ * Shows each provider's circuit breaker state and current admission rates
+ */
+public class ProvidersCommand implements CommandExecutor {
+    
+    private final MOBChatBot plugin;
+    
+    public ProvidersCommand(MOBChatBot plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission("mobchatbot.admin")) {
+            MessageUtils.reply(sender, "You don't have permission to use this command!", true);
+            return true;
+        }
+        
+        List<CircuitBreaker> breakers = plugin.getCircuitBreakers().getBreakers();
+        if (breakers.isEmpty()) {
+            MessageUtils.reply(sender, "No provider is active", true);
+            return true;
+        }
+        
+        AdmissionController admission = plugin.getAdmissionController();
+        for (CircuitBreaker breaker : breakers) {
+            String name = breaker.getProviderName();
+            String state = breaker.getState().name().toLowerCase().replace('_', '-');
+            if (breaker.getState() == CircuitBreaker.State.OPEN) {
+                state += " (trial calls in " + breaker.getSecondsUntilHalfOpen() + "s)";
+            }
+            
+            MessageUtils.reply(sender, String.format(
+                "%s: circuit %s, %.0f%% failed and %.0f%% slow of the last %d calls, opened %d times, %d calls failed fast",
+                name,
+                state,
+                breaker.getFailureRate() * 100,
+                breaker.getSlowCallRate() * 100,
+                breaker.getWindowCount(),
+                breaker.getOpenedCount(),
+                breaker.getRejectedCount()
+            ), breaker.getState() != CircuitBreaker.State.CLOSED);
+            MessageUtils.reply(sender, String.format(
+                "  admission %.1f requests/s%s%s",
+                admission.getRequestsPerSecond(name),
+                admission.getTokensPerMinute(name) > 0 ? String.format(", %.0f tokens/min", admission.getTokensPerMinute(name)) : "",
+                admission.isPaused(name) ? ", paused by the provider" : ""
+            ), false);
+        }
+        return true;
+    }
+}
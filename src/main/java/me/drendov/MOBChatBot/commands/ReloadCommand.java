@@ -51,6 +51,12 @@ public class ReloadCommand implements CommandExecutor {
             } else {
                 plugin.getLogger().warning("No AI provider is active!");
             }
+            plugin.getLogger().info(String.format(
+                "AI requests: %d active, %d queued, %d rejected since startup",
+                plugin.getRequestExecutor().getActiveCalls(),
+                plugin.getRequestExecutor().getQueueDepth(),
+                plugin.getRequestExecutor().getRejectedCount()
+            ));
             
         } catch (Exception e) {
             String errorMsg = "Error reloading configuration: " + e.getMessage();
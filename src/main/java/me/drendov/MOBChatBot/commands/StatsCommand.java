@@ -0,0 +1,94 @@
+package me.drendov.MOBChatBot.commands;
+
+import me.drendov.MOBChatBot.MOBChatBot;
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.DrainableProvider;
+import me.drendov.MOBChatBot.metrics.ChatStats;
+import me.drendov.MOBChatBot.metrics.LatencyHistogram;
+import me.drendov.MOBChatBot.metrics.ProviderMetrics;
+import me.drendov.MOBChatBot.utils.MessageUtils;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Stats command handler
+ * Shows how the bot has performed over the last few minutes: chat rate, latency, failures, token use and load
+ */
+public class StatsCommand implements CommandExecutor {
+    
+    private static final int TOP_PLAYERS = 5;
+    
+    private final MOBChatBot plugin;
+    
+    public StatsCommand(MOBChatBot plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission("mobchatbot.admin")) {
+            MessageUtils.reply(sender, "You don't have permission to use this command!", true);
+            return true;
+        }
+        
+        ChatStats stats = plugin.getChatStats();
+        long chats = stats.getChats().sum();
+        long failed = stats.getFailures().sum();
+        MessageUtils.reply(sender, String.format(
+            "Last %.0f minutes: %.1f chats/min, %.1f%% failed, %d refused by rate limits",
+            stats.getChats().getWindowMinutes(),
+            stats.getChats().perMinute(),
+            chats > 0 ? 100.0 * failed / chats : 0,
+            plugin.getRateLimiter().getRecentRejections().sum()
+        ), failed > 0);
+        
+        LatencyHistogram.Snapshot latency = stats.getLatency().snapshot();
+        if (latency.getCount() > 0) {
+            MessageUtils.reply(sender, String.format(
+                "Reply time: p50 %.0f ms, p95 %.0f ms, p99 %.0f ms",
+                latency.getPercentileMillis(0.50),
+                latency.getPercentileMillis(0.95),
+                latency.getPercentileMillis(0.99)
+            ), false);
+        }
+        
+        AIProvider provider = plugin.getAIProvider();
+        int inFlight = provider instanceof DrainableProvider ? ((DrainableProvider) provider).getInFlight() : 0;
+        MessageUtils.reply(sender, String.format(
+            "Load: %d in flight, %d waiting for a provider slot, %d waiting for admission",
+            inFlight,
+            plugin.getRequestExecutor().getQueueDepth(),
+            plugin.getAdmissionController().getQueueDepth()
+        ), false);
+        
+        for (ProviderMetrics metrics : plugin.getMetrics().getProviders()) {
+            long requests = metrics.getRecentRequests().sum();
+            if (requests == 0) {
+                continue;
+            }
+            long failures = metrics.getRecentFailures().sum();
+            MessageUtils.reply(sender, String.format(
+                "%s (%s): %.1f requests/min, %.0f tokens/min, %.1f%% failed",
+                metrics.getProvider(),
+                metrics.getModel(),
+                metrics.getRecentRequests().perMinute(),
+                metrics.getRecentTokens().perMinute(),
+                100.0 * failures / requests
+            ), false);
+        }
+        
+        List<ChatStats.PlayerTokens> top = stats.getTopPlayers(TOP_PLAYERS);
+        if (!top.isEmpty()) {
+            StringJoiner players = new StringJoiner(", ");
+            for (ChatStats.PlayerTokens player : top) {
+                players.add(player.getName() + " " + player.getTokens());
+            }
+            MessageUtils.reply(sender, "Top players by tokens: " + players, false);
+        }
+        return true;
+    }
+}
@@ -1,9 +1,11 @@
 package me.drendov.MOBChatBot.config;
 
 import me.drendov.MOBChatBot.MOBChatBot;
+import me.drendov.MOBChatBot.ai.providers.OpenAIProvider;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Manages plugin configuration
@@ -12,29 +14,135 @@ import java.util.logging.Level;
 public class ConfigManager {
     
     private final MOBChatBot plugin;
+    private final Logger logger;
     private FileConfiguration config;
     
     // AI Provider settings
     private boolean openAIEnabled;
+    private String openAIApiUrl;
     private String openAIApiKey;
     private String openAIModel;
     private int openAIMaxTokens;
+    private int openAIMaxRequests;
+    private int openAIMaxRequestsPerHost;
+    private int openAIConnectTimeoutSeconds;
+    private int openAIReadTimeoutSeconds;
+    private int openAICallTimeoutSeconds;
     
     private boolean bedrockEnabled;
     private String bedrockRegion;
+    private String bedrockEndpointUrl;
     private String bedrockAccessKey;
     private String bedrockSecretKey;
     private String bedrockModel;
+    private int bedrockMaxConcurrency;
+    private int bedrockConnectionAcquisitionTimeoutSeconds;
+    private int bedrockConnectionTtlSeconds;
     
     private boolean ollamaEnabled;
     private String ollamaBaseUrl;
     private String ollamaModel;
+    private int ollamaMaxTokens;
+    private String ollamaKeepAlive;
+    private int ollamaRequestTimeoutSeconds;
+    private int ollamaConnectTimeoutSeconds;
+    private int ollamaCallTimeoutSeconds;
+    
+    // HTTP connection settings
+    private int httpMaxIdleConnections;
+    private int httpKeepAliveSeconds;
+    private boolean http2Enabled;
+    private boolean httpPrewarmEnabled;
     
     // General settings
     private int maxMessagesPerPlayer;
     private int cooldownSeconds;
     private String botName;
     private String systemPrompt;
+    private boolean streamResponses;
+    
+    // Conversation settings
+    private int maxHistoryTokensPerPlayer;
+    private int promptTokenBudget;
+    private long maxTotalHistoryTokens;
+    private int conversationIdleTimeoutMinutes;
+    private boolean clearConversationOnQuit;
+    private boolean summarizeEnabled;
+    private int summarizeThresholdMessages;
+    private int summarizeTurns;
+    
+    // Rate limit settings
+    private boolean rateLimitEnabled;
+    private int rateLimitBurst;
+    private int rateLimitDailyQuota;
+    
+    // Response cache settings
+    private boolean cacheEnabled;
+    private int cacheMaxEntries;
+    private int cacheTtlMinutes;
+    private boolean cachePersistentEnabled;
+    private int cachePersistentMaxSizeMb;
+    
+    // Retry settings
+    private boolean retryEnabled;
+    private int retryMaxAttempts;
+    private long retryBaseDelayMillis;
+    private long retryMaxDelayMillis;
+    private double retryBudgetRatio;
+    private int retryBudgetMinPerSecond;
+    
+    // Hedging settings
+    private boolean hedgingEnabled;
+    private double hedgingPercentile;
+    private long hedgingMinDelayMillis;
+    private double hedgingMaxRatio;
+    private int hedgingMinSamples;
+    
+    // Routing settings
+    private String routingPolicy;
+    private int routingFailureThreshold;
+    private int routingEjectionSeconds;
+    private int routingMaxEjectionSeconds;
+    private int openAIRoutingPriority;
+    private int bedrockRoutingPriority;
+    private int ollamaRoutingPriority;
+    private int openAIRoutingWeight;
+    private int bedrockRoutingWeight;
+    private int ollamaRoutingWeight;
+    
+    // Circuit breaker settings
+    private boolean circuitBreakerEnabled;
+    private int circuitBreakerWindowSize;
+    private int circuitBreakerMinimumCalls;
+    private int circuitBreakerFailureRateThreshold;
+    private int circuitBreakerSlowCallSeconds;
+    private int circuitBreakerSlowCallRateThreshold;
+    private int circuitBreakerOpenSeconds;
+    private int circuitBreakerHalfOpenCalls;
+    
+    // Metrics export settings
+    private boolean metricsFileEnabled;
+    private String metricsFilePath;
+    private int metricsFileIntervalSeconds;
+    private boolean metricsHttpEnabled;
+    private String metricsHttpBind;
+    private int metricsHttpPort;
+    
+    // Admission control settings
+    private boolean admissionEnabled;
+    private double admissionInitialRequestsPerSecond;
+    private double admissionMaxRequestsPerSecond;
+    private int admissionInitialTokensPerMinute;
+    private int admissionMaxTokensPerMinute;
+    private int admissionMaxWaitSeconds;
+    
+    // Request execution settings
+    private int workerThreads;
+    private int maxQueuedRequests;
+    private int openAIMaxConcurrentRequests;
+    private int bedrockMaxConcurrentRequests;
+    private int ollamaMaxConcurrentRequests;
+    private int shutdownTimeoutSeconds;
     
     // Messages
     private String messagePrefix;
@@ -42,9 +150,21 @@ public class ConfigManager {
     private String limitReachedMessage;
     private String errorMessage;
     private String noProviderMessage;
+    private String busyMessage;
     
     public ConfigManager(MOBChatBot plugin) {
         this.plugin = plugin;
+        this.logger = plugin != null ? plugin.getLogger() : null;
+    }
+    
+    /**
+     * Create a configuration backed by the given settings instead of the plugin's config.yml
+     * Used by tools that run the providers outside a server, such as the load test
+     */
+    public ConfigManager(FileConfiguration config, Logger logger) {
+        this.plugin = null;
+        this.logger = logger;
+        this.config = config;
     }
     
     /**
@@ -52,35 +172,68 @@ public class ConfigManager {
      * Creates default config if it doesn't exist
      */
     public void loadConfig() {
-        // Save default config if it doesn't exist
-        plugin.saveDefaultConfig();
-        
-        // Reload config from disk
-        plugin.reloadConfig();
-        config = plugin.getConfig();
+        if (plugin != null) {
+            // Save default config if it doesn't exist
+            plugin.saveDefaultConfig();
+            
+            // Reload config from disk
+            plugin.reloadConfig();
+            config = plugin.getConfig();
+        }
         
-        plugin.getLogger().info("Loading configuration...");
+        logger.info("Loading configuration...");
         
         // Load AI provider settings
         loadAIProviderSettings();
         
+        // Load HTTP connection settings
+        loadHttpSettings();
+        
         // Load general settings
         loadGeneralSettings();
         
+        // Load conversation settings
+        loadConversationSettings();
+        
+        // Load rate limit settings
+        loadRateLimitSettings();
+        
+        // Load response cache settings
+        loadCacheSettings();
+        
+        // Load request execution settings
+        loadExecutionSettings();
+        
+        // Load admission control settings
+        loadAdmissionSettings();
+        
+        // Load retry settings
+        loadRetrySettings();
+        loadHedgingSettings();
+        
+        // Load provider routing settings
+        loadRoutingSettings();
+        loadCircuitBreakerSettings();
+        
+        // Load metrics export settings
+        loadMetricsSettings();
+        
         // Load messages
         loadMessages();
         
         // Validate configuration
         validateConfig();
         
-        plugin.getLogger().info("Configuration loaded successfully!");
+        logger.info("Configuration loaded successfully!");
     }
     
     /**
      * Reload configuration from disk
      */
     public void reloadConfig() {
-        plugin.reloadConfig();
+        if (plugin != null) {
+            plugin.reloadConfig();
+        }
         loadConfig();
     }
     
@@ -90,27 +243,57 @@ public class ConfigManager {
     private void loadAIProviderSettings() {
         // OpenAI
         openAIEnabled = config.getBoolean("ai-providers.openai.enabled", false);
+        openAIApiUrl = config.getString("ai-providers.openai.api-url", OpenAIProvider.DEFAULT_API_URL);
         openAIApiKey = config.getString("ai-providers.openai.api-key", "");
         openAIModel = config.getString("ai-providers.openai.model", "gpt-3.5-turbo");
         openAIMaxTokens = config.getInt("ai-providers.openai.max-tokens", 150);
+        openAIMaxRequests = config.getInt("ai-providers.openai.max-requests", 64);
+        openAIMaxRequestsPerHost = config.getInt("ai-providers.openai.max-requests-per-host", 32);
+        openAIConnectTimeoutSeconds = config.getInt("ai-providers.openai.connect-timeout-seconds", 5);
+        openAIReadTimeoutSeconds = config.getInt("ai-providers.openai.read-timeout-seconds", 30);
+        openAICallTimeoutSeconds = config.getInt("ai-providers.openai.call-timeout-seconds", 60);
         
         // Bedrock
         bedrockEnabled = config.getBoolean("ai-providers.bedrock.enabled", false);
         bedrockRegion = config.getString("ai-providers.bedrock.region", "us-east-1");
+        bedrockEndpointUrl = config.getString("ai-providers.bedrock.endpoint-url", "");
         bedrockAccessKey = config.getString("ai-providers.bedrock.access-key", "");
         bedrockSecretKey = config.getString("ai-providers.bedrock.secret-key", "");
         bedrockModel = config.getString("ai-providers.bedrock.model", "claude-3-haiku");
+        bedrockMaxConcurrency = config.getInt("ai-providers.bedrock.max-concurrency", 50);
+        bedrockConnectionAcquisitionTimeoutSeconds = config.getInt("ai-providers.bedrock.connection-acquisition-timeout-seconds", 10);
+        bedrockConnectionTtlSeconds = config.getInt("ai-providers.bedrock.connection-ttl-seconds", 60);
         
         // Ollama
         ollamaEnabled = config.getBoolean("ai-providers.ollama.enabled", false);
         ollamaBaseUrl = config.getString("ai-providers.ollama.base-url", "http://localhost:11434");
         ollamaModel = config.getString("ai-providers.ollama.model", "llama2");
+        ollamaMaxTokens = config.getInt("ai-providers.ollama.max-tokens", 150);
+        ollamaKeepAlive = config.getString("ai-providers.ollama.keep-alive", "30m");
+        ollamaRequestTimeoutSeconds = config.getInt("ai-providers.ollama.request-timeout-seconds", 120);
+        ollamaConnectTimeoutSeconds = config.getInt("ai-providers.ollama.connect-timeout-seconds", 2);
+        ollamaCallTimeoutSeconds = config.getInt("ai-providers.ollama.call-timeout-seconds", 0);
         
-        plugin.getLogger().info("AI Providers - OpenAI: " + openAIEnabled + 
+        logger.info("AI Providers - OpenAI: " + openAIEnabled + 
                               ", Bedrock: " + bedrockEnabled + 
                               ", Ollama: " + ollamaEnabled);
     }
     
+    /**
+     * Load shared HTTP connection settings from config
+     */
+    private void loadHttpSettings() {
+        httpMaxIdleConnections = config.getInt("http.max-idle-connections", 16);
+        httpKeepAliveSeconds = config.getInt("http.keep-alive-seconds", 300);
+        http2Enabled = config.getBoolean("http.http2", true);
+        httpPrewarmEnabled = config.getBoolean("http.prewarm", true);
+        
+        logger.info("HTTP Settings - Idle Connections: " + httpMaxIdleConnections + 
+                              ", Keep-Alive: " + httpKeepAliveSeconds + "s" +
+                              ", HTTP/2: " + http2Enabled + 
+                              ", Prewarm: " + httpPrewarmEnabled);
+    }
+    
     /**
      * Load general settings from config
      */
@@ -120,9 +303,182 @@ public class ConfigManager {
         botName = config.getString("general.bot-name", "MOBChat");
         systemPrompt = config.getString("general.system-prompt", 
             "You are a helpful assistant in a Minecraft server. Keep responses concise and fun.");
+        streamResponses = config.getBoolean("general.stream-responses", true);
+        
+        logger.info("General Settings - Max Messages: " + maxMessagesPerPlayer + 
+                              ", Cooldown: " + cooldownSeconds + "s" +
+                              ", Streaming: " + streamResponses);
+    }
+    
+    /**
+     * Load conversation history settings from config
+     */
+    private void loadConversationSettings() {
+        maxHistoryTokensPerPlayer = config.getInt("conversation.max-tokens-per-player", 1000);
+        promptTokenBudget = config.getInt("conversation.prompt-token-budget", 1500);
+        maxTotalHistoryTokens = config.getLong("conversation.max-total-tokens", 200000);
+        conversationIdleTimeoutMinutes = config.getInt("conversation.idle-timeout-minutes", 30);
+        clearConversationOnQuit = config.getBoolean("conversation.clear-on-quit", true);
+        summarizeEnabled = config.getBoolean("conversation.summarize.enabled", false);
+        summarizeThresholdMessages = config.getInt("conversation.summarize.threshold-messages", 8);
+        summarizeTurns = config.getInt("conversation.summarize.turns", 2);
+        
+        logger.info("Conversation Settings - Tokens Per Player: " + maxHistoryTokensPerPlayer + 
+                              ", Total Tokens: " + maxTotalHistoryTokens + 
+                              ", Idle Timeout: " + conversationIdleTimeoutMinutes + "m");
+    }
+    
+    /**
+     * Load rate limit settings from config
+     */
+    private void loadRateLimitSettings() {
+        rateLimitEnabled = config.getBoolean("rate-limit.enabled", true);
+        rateLimitBurst = config.getInt("rate-limit.burst", 1);
+        rateLimitDailyQuota = config.getInt("rate-limit.daily-quota", 0);
+        
+        logger.info("Rate Limit Settings - Enabled: " + rateLimitEnabled + 
+                              ", Burst: " + rateLimitBurst + 
+                              ", Daily Quota: " + (rateLimitDailyQuota > 0 ? rateLimitDailyQuota : "unlimited"));
+    }
+    
+    /**
+     * Load response cache settings from config
+     */
+    private void loadCacheSettings() {
+        cacheEnabled = config.getBoolean("cache.enabled", true);
+        cacheMaxEntries = config.getInt("cache.max-entries", 500);
+        cacheTtlMinutes = config.getInt("cache.ttl-minutes", 60);
+        cachePersistentEnabled = config.getBoolean("cache.persistent.enabled", false);
+        cachePersistentMaxSizeMb = config.getInt("cache.persistent.max-size-mb", 16);
+        
+        logger.info("Cache Settings - Enabled: " + cacheEnabled + 
+                              ", Max Entries: " + cacheMaxEntries + 
+                              ", TTL: " + cacheTtlMinutes + "m" +
+                              ", Persistent: " + cachePersistentEnabled + 
+                              " (" + cachePersistentMaxSizeMb + " MB)");
+    }
+    
+    /**
+     * Load request execution settings from config
+     */
+    private void loadExecutionSettings() {
+        workerThreads = config.getInt("execution.worker-threads", 8);
+        maxQueuedRequests = config.getInt("execution.max-queued-requests", 20);
+        openAIMaxConcurrentRequests = config.getInt("execution.max-concurrent-requests.openai", 32);
+        bedrockMaxConcurrentRequests = config.getInt("execution.max-concurrent-requests.bedrock", 32);
+        ollamaMaxConcurrentRequests = config.getInt("execution.max-concurrent-requests.ollama", 1);
+        shutdownTimeoutSeconds = config.getInt("execution.shutdown-timeout-seconds", 10);
+        
+        logger.info("Execution Settings - Worker Threads: " + workerThreads + 
+                              ", Max Queued: " + maxQueuedRequests);
+    }
+    
+    /**
+     * Load admission control settings from config
+     */
+    private void loadAdmissionSettings() {
+        admissionEnabled = config.getBoolean("admission.enabled", true);
+        admissionInitialRequestsPerSecond = config.getDouble("admission.initial-requests-per-second", 5.0);
+        admissionMaxRequestsPerSecond = config.getDouble("admission.max-requests-per-second", 50.0);
+        admissionInitialTokensPerMinute = config.getInt("admission.initial-tokens-per-minute", 90000);
+        admissionMaxTokensPerMinute = config.getInt("admission.max-tokens-per-minute", 2000000);
+        admissionMaxWaitSeconds = config.getInt("admission.max-wait-seconds", 30);
+        
+        logger.info("Admission Settings - Enabled: " + admissionEnabled + 
+                              ", Requests/s: " + admissionInitialRequestsPerSecond + 
+                              " (max " + admissionMaxRequestsPerSecond + ")" +
+                              ", Tokens/min: " + admissionInitialTokensPerMinute + 
+                              " (max " + admissionMaxTokensPerMinute + ")");
+    }
+    
+    /**
+     * Load retry settings from config
+     */
+    private void loadRetrySettings() {
+        retryEnabled = config.getBoolean("retry.enabled", true);
+        retryMaxAttempts = config.getInt("retry.max-attempts", 3);
+        retryBaseDelayMillis = config.getLong("retry.base-delay-millis", 250);
+        retryMaxDelayMillis = config.getLong("retry.max-delay-millis", 5000);
+        retryBudgetRatio = config.getDouble("retry.budget.ratio", 0.2);
+        retryBudgetMinPerSecond = config.getInt("retry.budget.min-per-second", 1);
+        
+        logger.info("Retry Settings - Enabled: " + retryEnabled + 
+                              ", Max Attempts: " + retryMaxAttempts + 
+                              ", Backoff: " + retryBaseDelayMillis + "-" + retryMaxDelayMillis + "ms" +
+                              ", Budget: " + (int) (retryBudgetRatio * 100) + "%");
+    }
+    
+    /**
+     * Load request hedging settings from config
+     */
+    private void loadHedgingSettings() {
+        hedgingEnabled = config.getBoolean("hedging.enabled", false);
+        hedgingPercentile = config.getDouble("hedging.percentile", 95);
+        hedgingMinDelayMillis = config.getLong("hedging.min-delay-millis", 500);
+        hedgingMaxRatio = config.getDouble("hedging.max-ratio", 0.05);
+        hedgingMinSamples = config.getInt("hedging.min-samples", 20);
+        
+        logger.info("Hedging Settings - Enabled: " + hedgingEnabled + 
+                              ", Percentile: p" + hedgingPercentile + 
+                              ", Min Delay: " + hedgingMinDelayMillis + "ms" +
+                              ", Max Ratio: " + (int) (hedgingMaxRatio * 100) + "%");
+    }
+    
+    /**
+     * Load provider routing settings from config
+     */
+    private void loadRoutingSettings() {
+        routingPolicy = config.getString("routing.policy", "priority").toLowerCase();
+        routingFailureThreshold = config.getInt("routing.failure-threshold", 3);
+        routingEjectionSeconds = config.getInt("routing.ejection-seconds", 30);
+        routingMaxEjectionSeconds = config.getInt("routing.max-ejection-seconds", 300);
+        openAIRoutingPriority = config.getInt("routing.priority.openai", 1);
+        bedrockRoutingPriority = config.getInt("routing.priority.bedrock", 2);
+        ollamaRoutingPriority = config.getInt("routing.priority.ollama", 3);
+        openAIRoutingWeight = config.getInt("routing.weight.openai", 1);
+        bedrockRoutingWeight = config.getInt("routing.weight.bedrock", 1);
+        ollamaRoutingWeight = config.getInt("routing.weight.ollama", 1);
         
-        plugin.getLogger().info("General Settings - Max Messages: " + maxMessagesPerPlayer + 
-                              ", Cooldown: " + cooldownSeconds + "s");
+        logger.info("Routing Settings - Policy: " + routingPolicy + 
+                              ", Failure Threshold: " + routingFailureThreshold + 
+                              ", Ejection: " + routingEjectionSeconds + "-" + routingMaxEjectionSeconds + "s");
+    }
+    
+    /**
+     * Load circuit breaker settings from config
+     */
+    private void loadCircuitBreakerSettings() {
+        circuitBreakerEnabled = config.getBoolean("circuit-breaker.enabled", true);
+        circuitBreakerWindowSize = config.getInt("circuit-breaker.window-size", 20);
+        circuitBreakerMinimumCalls = config.getInt("circuit-breaker.minimum-calls", 10);
+        circuitBreakerFailureRateThreshold = config.getInt("circuit-breaker.failure-rate-threshold", 50);
+        circuitBreakerSlowCallSeconds = config.getInt("circuit-breaker.slow-call-seconds", 10);
+        circuitBreakerSlowCallRateThreshold = config.getInt("circuit-breaker.slow-call-rate-threshold", 80);
+        circuitBreakerOpenSeconds = config.getInt("circuit-breaker.open-seconds", 30);
+        circuitBreakerHalfOpenCalls = config.getInt("circuit-breaker.half-open-calls", 3);
+        
+        logger.info("Circuit Breaker Settings - Enabled: " + circuitBreakerEnabled + 
+                              ", Window: " + circuitBreakerWindowSize + " calls" +
+                              ", Failure Rate: " + circuitBreakerFailureRateThreshold + "%" +
+                              ", Slow Calls: " + circuitBreakerSlowCallRateThreshold + "% over " + circuitBreakerSlowCallSeconds + "s" +
+                              ", Open: " + circuitBreakerOpenSeconds + "s");
+    }
+    
+    /**
+     * Load metrics export settings from config
+     */
+    private void loadMetricsSettings() {
+        metricsFileEnabled = config.getBoolean("metrics.prometheus-file.enabled", false);
+        metricsFilePath = config.getString("metrics.prometheus-file.path", "metrics.prom");
+        metricsFileIntervalSeconds = config.getInt("metrics.prometheus-file.interval-seconds", 15);
+        metricsHttpEnabled = config.getBoolean("metrics.prometheus-http.enabled", false);
+        metricsHttpBind = config.getString("metrics.prometheus-http.bind", "127.0.0.1");
+        metricsHttpPort = config.getInt("metrics.prometheus-http.port", 9464);
+        
+        logger.info("Metrics Settings - File: " + metricsFileEnabled + 
+                              " (" + metricsFilePath + ", every " + metricsFileIntervalSeconds + "s)" +
+                              ", HTTP: " + metricsHttpEnabled + 
+                              " (" + metricsHttpBind + ":" + metricsHttpPort + ")");
     }
     
     /**
@@ -138,6 +494,8 @@ public class ConfigManager {
             "An error occurred while processing your message. Please try again.");
         noProviderMessage = config.getString("messages.no-provider", 
             "No AI provider is currently enabled. Contact an administrator.");
+        busyMessage = config.getString("messages.busy", 
+            "The bot is busy right now. Please try again in a moment.");
     }
     
     /**
@@ -147,32 +505,347 @@ public class ConfigManager {
         boolean hasEnabledProvider = openAIEnabled || bedrockEnabled || ollamaEnabled;
         
         if (!hasEnabledProvider) {
-            plugin.getLogger().warning("No AI provider is enabled! The plugin will not function properly.");
-            plugin.getLogger().warning("Please enable at least one provider in config.yml");
+            logger.warning("No AI provider is enabled! The plugin will not function properly.");
+            logger.warning("Please enable at least one provider in config.yml");
         }
         
         if (openAIEnabled && (openAIApiKey == null || openAIApiKey.isEmpty() || openAIApiKey.equals("your-api-key-here"))) {
-            plugin.getLogger().warning("OpenAI is enabled but no API key is configured!");
+            logger.warning("OpenAI is enabled but no API key is configured!");
         }
         
         if (bedrockEnabled && (bedrockAccessKey == null || bedrockAccessKey.isEmpty() || bedrockAccessKey.equals("your-access-key"))) {
-            plugin.getLogger().warning("Bedrock is enabled but credentials are not configured!");
+            logger.warning("Bedrock is enabled but credentials are not configured!");
+        }
+        
+        if (openAIApiUrl == null || openAIApiUrl.isEmpty()) {
+            logger.warning("openai.api-url is empty! Using " + OpenAIProvider.DEFAULT_API_URL);
+            openAIApiUrl = OpenAIProvider.DEFAULT_API_URL;
+        }
+        
+        if (bedrockEndpointUrl == null) {
+            bedrockEndpointUrl = "";
+        }
+        
+        // Ollama takes a number of seconds, or a duration string that always has a unit
+        if (ollamaKeepAlive == null
+                || !ollamaKeepAlive.trim().matches("-?\\d+|-?(\\d+(\\.\\d+)?(ns|us|µs|ms|s|m|h))+")) {
+            logger.warning("ollama.keep-alive must be a number of seconds or a duration such as \"30m\"! Setting to 30m.");
+            ollamaKeepAlive = "30m";
+        }
+        
+        if (ollamaRequestTimeoutSeconds < 1) {
+            logger.warning("ollama.request-timeout-seconds must be at least 1! Setting to 120.");
+            ollamaRequestTimeoutSeconds = 120;
+        }
+        
+        if (openAIConnectTimeoutSeconds < 1 || ollamaConnectTimeoutSeconds < 1) {
+            logger.warning("connect-timeout-seconds must be at least 1! Using the defaults.");
+            openAIConnectTimeoutSeconds = openAIConnectTimeoutSeconds < 1 ? 5 : openAIConnectTimeoutSeconds;
+            ollamaConnectTimeoutSeconds = ollamaConnectTimeoutSeconds < 1 ? 2 : ollamaConnectTimeoutSeconds;
+        }
+        
+        if (openAIReadTimeoutSeconds < 1) {
+            logger.warning("openai.read-timeout-seconds must be at least 1! Setting to 30.");
+            openAIReadTimeoutSeconds = 30;
+        }
+        
+        if (openAICallTimeoutSeconds < 0 || ollamaCallTimeoutSeconds < 0) {
+            logger.warning("call-timeout-seconds cannot be negative! Setting to 0 (no limit).");
+            openAICallTimeoutSeconds = Math.max(0, openAICallTimeoutSeconds);
+            ollamaCallTimeoutSeconds = Math.max(0, ollamaCallTimeoutSeconds);
+        }
+        
+        if (httpMaxIdleConnections < 1) {
+            logger.warning("http.max-idle-connections must be at least 1! Setting to 16.");
+            httpMaxIdleConnections = 16;
+        }
+        
+        if (httpKeepAliveSeconds < 1) {
+            logger.warning("http.keep-alive-seconds must be at least 1! Setting to 300.");
+            httpKeepAliveSeconds = 300;
         }
         
         if (maxMessagesPerPlayer < 0) {
-            plugin.getLogger().warning("max-messages-per-player cannot be negative! Setting to 10.");
+            logger.warning("max-messages-per-player cannot be negative! Setting to 10.");
             maxMessagesPerPlayer = 10;
         }
         
         if (cooldownSeconds < 0) {
-            plugin.getLogger().warning("cooldown-seconds cannot be negative! Setting to 5.");
+            logger.warning("cooldown-seconds cannot be negative! Setting to 5.");
             cooldownSeconds = 5;
         }
         
+        if (maxHistoryTokensPerPlayer < 0) {
+            logger.warning("conversation.max-tokens-per-player cannot be negative! Setting to 1000.");
+            maxHistoryTokensPerPlayer = 1000;
+        }
+        
+        if (promptTokenBudget <= 0) {
+            logger.warning("conversation.prompt-token-budget must be positive! Setting to 1500.");
+            promptTokenBudget = 1500;
+        }
+        
+        if (maxTotalHistoryTokens < 0) {
+            logger.warning("conversation.max-total-tokens cannot be negative! Setting to 200000.");
+            maxTotalHistoryTokens = 200000;
+        }
+        
+        if (conversationIdleTimeoutMinutes <= 0) {
+            logger.warning("conversation.idle-timeout-minutes must be positive! Setting to 30.");
+            conversationIdleTimeoutMinutes = 30;
+        }
+        
+        if (summarizeTurns <= 0) {
+            logger.warning("conversation.summarize.turns must be positive! Setting to 2.");
+            summarizeTurns = 2;
+        }
+        
+        if (summarizeThresholdMessages < summarizeTurns * 2 + 2) {
+            logger.warning("conversation.summarize.threshold-messages must leave one exchange after summarizing! Setting to " + 
+                                     (summarizeTurns * 2 + 2) + ".");
+            summarizeThresholdMessages = summarizeTurns * 2 + 2;
+        }
+        
+        if (summarizeEnabled && summarizeThresholdMessages > maxMessagesPerPlayer) {
+            logger.warning("conversation.summarize.threshold-messages is above max-messages-per-player; summaries will never run.");
+        }
+        
+        if (rateLimitBurst < 1) {
+            logger.warning("rate-limit.burst must be at least 1! Setting to 1.");
+            rateLimitBurst = 1;
+        }
+        
+        if (rateLimitDailyQuota < 0) {
+            logger.warning("rate-limit.daily-quota cannot be negative! Setting to 0 (unlimited).");
+            rateLimitDailyQuota = 0;
+        }
+        
+        if (cacheMaxEntries < 0) {
+            logger.warning("cache.max-entries cannot be negative! Setting to 500.");
+            cacheMaxEntries = 500;
+        }
+        
+        if (cacheTtlMinutes <= 0) {
+            logger.warning("cache.ttl-minutes must be positive! Setting to 60.");
+            cacheTtlMinutes = 60;
+        }
+        
+        if (cachePersistentMaxSizeMb <= 0) {
+            logger.warning("cache.persistent.max-size-mb must be positive! Setting to 16.");
+            cachePersistentMaxSizeMb = 16;
+        }
+        
         if (openAIMaxTokens <= 0) {
-            plugin.getLogger().warning("OpenAI max-tokens must be positive! Setting to 150.");
+            logger.warning("OpenAI max-tokens must be positive! Setting to 150.");
             openAIMaxTokens = 150;
         }
+        
+        if (openAIMaxRequests <= 0) {
+            logger.warning("OpenAI max-requests must be positive! Setting to 64.");
+            openAIMaxRequests = 64;
+        }
+        
+        if (openAIMaxRequestsPerHost <= 0) {
+            logger.warning("OpenAI max-requests-per-host must be positive! Setting to 32.");
+            openAIMaxRequestsPerHost = 32;
+        }
+        
+        if (bedrockMaxConcurrency <= 0) {
+            logger.warning("Bedrock max-concurrency must be positive! Setting to 50.");
+            bedrockMaxConcurrency = 50;
+        }
+        
+        if (bedrockConnectionAcquisitionTimeoutSeconds <= 0) {
+            logger.warning("Bedrock connection-acquisition-timeout-seconds must be positive! Setting to 10.");
+            bedrockConnectionAcquisitionTimeoutSeconds = 10;
+        }
+        
+        if (bedrockConnectionTtlSeconds <= 0) {
+            logger.warning("Bedrock connection-ttl-seconds must be positive! Setting to 60.");
+            bedrockConnectionTtlSeconds = 60;
+        }
+        
+        if (workerThreads <= 0) {
+            logger.warning("execution.worker-threads must be positive! Setting to 8.");
+            workerThreads = 8;
+        }
+        
+        if (maxQueuedRequests < 0) {
+            logger.warning("execution.max-queued-requests cannot be negative! Setting to 20.");
+            maxQueuedRequests = 20;
+        }
+        
+        if (openAIMaxConcurrentRequests <= 0) {
+            logger.warning("execution.max-concurrent-requests.openai must be positive! Setting to 32.");
+            openAIMaxConcurrentRequests = 32;
+        }
+        
+        if (bedrockMaxConcurrentRequests <= 0) {
+            logger.warning("execution.max-concurrent-requests.bedrock must be positive! Setting to 32.");
+            bedrockMaxConcurrentRequests = 32;
+        }
+        
+        if (ollamaMaxConcurrentRequests <= 0) {
+            logger.warning("execution.max-concurrent-requests.ollama must be positive! Setting to 1.");
+            ollamaMaxConcurrentRequests = 1;
+        }
+        
+        if (shutdownTimeoutSeconds < 0) {
+            logger.warning("execution.shutdown-timeout-seconds cannot be negative! Setting to 10.");
+            shutdownTimeoutSeconds = 10;
+        }
+        
+        if (admissionMaxRequestsPerSecond <= 0) {
+            logger.warning("admission.max-requests-per-second must be positive! Setting to 50.");
+            admissionMaxRequestsPerSecond = 50.0;
+        }
+        
+        if (admissionInitialRequestsPerSecond <= 0 || admissionInitialRequestsPerSecond > admissionMaxRequestsPerSecond) {
+            logger.warning("admission.initial-requests-per-second must be between 0 and the maximum! " +
+                "Setting to " + Math.min(5.0, admissionMaxRequestsPerSecond) + ".");
+            admissionInitialRequestsPerSecond = Math.min(5.0, admissionMaxRequestsPerSecond);
+        }
+        
+        if (admissionInitialTokensPerMinute < 0) {
+            logger.warning("admission.initial-tokens-per-minute cannot be negative! Setting to 0 (no token pacing).");
+            admissionInitialTokensPerMinute = 0;
+        }
+        
+        if (admissionMaxTokensPerMinute < admissionInitialTokensPerMinute) {
+            logger.warning("admission.max-tokens-per-minute cannot be below the initial budget! " +
+                "Setting to " + admissionInitialTokensPerMinute + ".");
+            admissionMaxTokensPerMinute = admissionInitialTokensPerMinute;
+        }
+        
+        if (admissionMaxWaitSeconds <= 0) {
+            logger.warning("admission.max-wait-seconds must be positive! Setting to 30.");
+            admissionMaxWaitSeconds = 30;
+        }
+        
+        if (retryMaxAttempts < 1) {
+            logger.warning("retry.max-attempts must be at least 1! Setting to 3.");
+            retryMaxAttempts = 3;
+        }
+        
+        if (retryBaseDelayMillis <= 0) {
+            logger.warning("retry.base-delay-millis must be positive! Setting to 250.");
+            retryBaseDelayMillis = 250;
+        }
+        
+        if (retryMaxDelayMillis < retryBaseDelayMillis) {
+            logger.warning("retry.max-delay-millis cannot be below the base delay! Setting to " +
+                retryBaseDelayMillis + ".");
+            retryMaxDelayMillis = retryBaseDelayMillis;
+        }
+        
+        if (retryBudgetRatio < 0) {
+            logger.warning("retry.budget.ratio cannot be negative! Setting to 0.2.");
+            retryBudgetRatio = 0.2;
+        }
+        
+        if (retryBudgetMinPerSecond < 0) {
+            logger.warning("retry.budget.min-per-second cannot be negative! Setting to 1.");
+            retryBudgetMinPerSecond = 1;
+        }
+        
+        if (hedgingPercentile <= 0 || hedgingPercentile >= 100) {
+            logger.warning("hedging.percentile must be between 0 and 100! Setting to 95.");
+            hedgingPercentile = 95;
+        }
+        
+        if (hedgingMinDelayMillis < 0) {
+            logger.warning("hedging.min-delay-millis cannot be negative! Setting to 500.");
+            hedgingMinDelayMillis = 500;
+        }
+        
+        if (hedgingMaxRatio < 0 || hedgingMaxRatio > 1) {
+            logger.warning("hedging.max-ratio must be between 0 and 1! Setting to 0.05.");
+            hedgingMaxRatio = 0.05;
+        }
+        
+        if (hedgingMinSamples < 1) {
+            logger.warning("hedging.min-samples must be at least 1! Setting to 20.");
+            hedgingMinSamples = 20;
+        }
+        
+        if (!routingPolicy.equals("priority") && !routingPolicy.equals("weighted") && !routingPolicy.equals("least-loaded")) {
+            logger.warning("routing.policy must be priority, weighted or least-loaded! Setting to priority.");
+            routingPolicy = "priority";
+        }
+        
+        if (routingFailureThreshold < 1) {
+            logger.warning("routing.failure-threshold must be at least 1! Setting to 3.");
+            routingFailureThreshold = 3;
+        }
+        
+        if (routingEjectionSeconds < 1) {
+            logger.warning("routing.ejection-seconds must be at least 1! Setting to 30.");
+            routingEjectionSeconds = 30;
+        }
+        
+        if (routingMaxEjectionSeconds < routingEjectionSeconds) {
+            logger.warning("routing.max-ejection-seconds cannot be below the ejection time! Setting to " +
+                routingEjectionSeconds + ".");
+            routingMaxEjectionSeconds = routingEjectionSeconds;
+        }
+        
+        if (openAIRoutingWeight < 1 || bedrockRoutingWeight < 1 || ollamaRoutingWeight < 1) {
+            logger.warning("routing.weight values must be at least 1! Setting invalid ones to 1.");
+            openAIRoutingWeight = Math.max(1, openAIRoutingWeight);
+            bedrockRoutingWeight = Math.max(1, bedrockRoutingWeight);
+            ollamaRoutingWeight = Math.max(1, ollamaRoutingWeight);
+        }
+        
+        if (circuitBreakerWindowSize < 1) {
+            logger.warning("circuit-breaker.window-size must be at least 1! Setting to 20.");
+            circuitBreakerWindowSize = 20;
+        }
+        
+        if (circuitBreakerMinimumCalls < 1 || circuitBreakerMinimumCalls > circuitBreakerWindowSize) {
+            logger.warning("circuit-breaker.minimum-calls must be between 1 and the window size! Setting to " +
+                circuitBreakerWindowSize + ".");
+            circuitBreakerMinimumCalls = circuitBreakerWindowSize;
+        }
+        
+        if (circuitBreakerFailureRateThreshold < 1 || circuitBreakerFailureRateThreshold > 100) {
+            logger.warning("circuit-breaker.failure-rate-threshold must be between 1 and 100! Setting to 50.");
+            circuitBreakerFailureRateThreshold = 50;
+        }
+        
+        if (circuitBreakerSlowCallSeconds < 1) {
+            logger.warning("circuit-breaker.slow-call-seconds must be at least 1! Setting to 10.");
+            circuitBreakerSlowCallSeconds = 10;
+        }
+        
+        if (circuitBreakerSlowCallRateThreshold < 1 || circuitBreakerSlowCallRateThreshold > 100) {
+            logger.warning("circuit-breaker.slow-call-rate-threshold must be between 1 and 100! Setting to 80.");
+            circuitBreakerSlowCallRateThreshold = 80;
+        }
+        
+        if (circuitBreakerOpenSeconds < 1) {
+            logger.warning("circuit-breaker.open-seconds must be at least 1! Setting to 30.");
+            circuitBreakerOpenSeconds = 30;
+        }
+        
+        if (circuitBreakerHalfOpenCalls < 1) {
+            logger.warning("circuit-breaker.half-open-calls must be at least 1! Setting to 3.");
+            circuitBreakerHalfOpenCalls = 3;
+        }
+        
+        if (metricsFilePath == null || metricsFilePath.isEmpty()) {
+            logger.warning("metrics.prometheus-file.path is empty! Setting to metrics.prom.");
+            metricsFilePath = "metrics.prom";
+        }
+        
+        if (metricsFileIntervalSeconds < 1) {
+            logger.warning("metrics.prometheus-file.interval-seconds must be at least 1! Setting to 15.");
+            metricsFileIntervalSeconds = 15;
+        }
+        
+        if (metricsHttpPort < 1 || metricsHttpPort > 65535) {
+            logger.warning("metrics.prometheus-http.port must be between 1 and 65535! Setting to 9464.");
+            metricsHttpPort = 9464;
+        }
     }
     
     // Getters for AI Provider settings
@@ -181,6 +854,10 @@ public class ConfigManager {
         return openAIEnabled;
     }
     
+    public String getOpenAIApiUrl() {
+        return openAIApiUrl;
+    }
+    
     public String getOpenAIApiKey() {
         return openAIApiKey;
     }
@@ -193,6 +870,26 @@ public class ConfigManager {
         return openAIMaxTokens;
     }
     
+    public int getOpenAIMaxRequests() {
+        return openAIMaxRequests;
+    }
+    
+    public int getOpenAIMaxRequestsPerHost() {
+        return openAIMaxRequestsPerHost;
+    }
+    
+    public int getOpenAIConnectTimeoutSeconds() {
+        return openAIConnectTimeoutSeconds;
+    }
+    
+    public int getOpenAIReadTimeoutSeconds() {
+        return openAIReadTimeoutSeconds;
+    }
+    
+    public int getOpenAICallTimeoutSeconds() {
+        return openAICallTimeoutSeconds;
+    }
+    
     public boolean isBedrockEnabled() {
         return bedrockEnabled;
     }
@@ -201,6 +898,13 @@ public class ConfigManager {
         return bedrockRegion;
     }
     
+    /**
+     * Get the Bedrock endpoint to use instead of the region's, or an empty string for the region's own
+     */
+    public String getBedrockEndpointUrl() {
+        return bedrockEndpointUrl;
+    }
+    
     public String getBedrockAccessKey() {
         return bedrockAccessKey;
     }
@@ -213,6 +917,18 @@ public class ConfigManager {
         return bedrockModel;
     }
     
+    public int getBedrockMaxConcurrency() {
+        return bedrockMaxConcurrency;
+    }
+    
+    public int getBedrockConnectionAcquisitionTimeoutSeconds() {
+        return bedrockConnectionAcquisitionTimeoutSeconds;
+    }
+    
+    public int getBedrockConnectionTtlSeconds() {
+        return bedrockConnectionTtlSeconds;
+    }
+    
     public boolean isOllamaEnabled() {
         return ollamaEnabled;
     }
@@ -225,6 +941,44 @@ public class ConfigManager {
         return ollamaModel;
     }
     
+    public int getOllamaMaxTokens() {
+        return ollamaMaxTokens;
+    }
+    
+    public String getOllamaKeepAlive() {
+        return ollamaKeepAlive;
+    }
+    
+    public int getOllamaRequestTimeoutSeconds() {
+        return ollamaRequestTimeoutSeconds;
+    }
+    
+    public int getOllamaConnectTimeoutSeconds() {
+        return ollamaConnectTimeoutSeconds;
+    }
+    
+    public int getOllamaCallTimeoutSeconds() {
+        return ollamaCallTimeoutSeconds;
+    }
+    
+    // Getters for HTTP connection settings
+    
+    public int getHttpMaxIdleConnections() {
+        return httpMaxIdleConnections;
+    }
+    
+    public int getHttpKeepAliveSeconds() {
+        return httpKeepAliveSeconds;
+    }
+    
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+    
+    public boolean isHttpPrewarmEnabled() {
+        return httpPrewarmEnabled;
+    }
+    
     // Getters for general settings
     
     public int getMaxMessagesPerPlayer() {
@@ -243,6 +997,297 @@ public class ConfigManager {
         return systemPrompt;
     }
     
+    public boolean isStreamResponses() {
+        return streamResponses;
+    }
+    
+    // Getters for conversation settings
+    
+    public int getMaxHistoryTokensPerPlayer() {
+        return maxHistoryTokensPerPlayer;
+    }
+    
+    public int getPromptTokenBudget() {
+        return promptTokenBudget;
+    }
+    
+    public long getMaxTotalHistoryTokens() {
+        return maxTotalHistoryTokens;
+    }
+    
+    public int getConversationIdleTimeoutMinutes() {
+        return conversationIdleTimeoutMinutes;
+    }
+    
+    public boolean isClearConversationOnQuit() {
+        return clearConversationOnQuit;
+    }
+    
+    public boolean isSummarizeEnabled() {
+        return summarizeEnabled;
+    }
+    
+    public int getSummarizeThresholdMessages() {
+        return summarizeThresholdMessages;
+    }
+    
+    public int getSummarizeTurns() {
+        return summarizeTurns;
+    }
+    
+    // Getters for rate limit settings
+    
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+    
+    public int getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+    
+    public int getRateLimitDailyQuota() {
+        return rateLimitDailyQuota;
+    }
+    
+    // Getters for response cache settings
+    
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+    
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+    
+    public int getCacheTtlMinutes() {
+        return cacheTtlMinutes;
+    }
+    
+    public boolean isCachePersistentEnabled() {
+        return cachePersistentEnabled;
+    }
+    
+    public int getCachePersistentMaxSizeMb() {
+        return cachePersistentMaxSizeMb;
+    }
+    
+    // Getters for request execution settings
+    
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+    
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+    
+    /**
+     * Get the concurrent request cap for a provider
+     * @param providerName Provider identifier (e.g., "OpenAI", "Bedrock")
+     */
+    public int getMaxConcurrentRequests(String providerName) {
+        switch (providerName.toLowerCase()) {
+            case "openai":
+                return openAIMaxConcurrentRequests;
+            case "bedrock":
+                return bedrockMaxConcurrentRequests;
+            case "ollama":
+                return ollamaMaxConcurrentRequests;
+            default:
+                return 1;
+        }
+    }
+    
+    public int getShutdownTimeoutSeconds() {
+        return shutdownTimeoutSeconds;
+    }
+    
+    // Getters for admission control settings
+    
+    public boolean isAdmissionEnabled() {
+        return admissionEnabled;
+    }
+    
+    public double getAdmissionInitialRequestsPerSecond() {
+        return admissionInitialRequestsPerSecond;
+    }
+    
+    public double getAdmissionMaxRequestsPerSecond() {
+        return admissionMaxRequestsPerSecond;
+    }
+    
+    public int getAdmissionInitialTokensPerMinute() {
+        return admissionInitialTokensPerMinute;
+    }
+    
+    public int getAdmissionMaxTokensPerMinute() {
+        return admissionMaxTokensPerMinute;
+    }
+    
+    public int getAdmissionMaxWaitSeconds() {
+        return admissionMaxWaitSeconds;
+    }
+    
+    // Getters for retry settings
+    
+    public boolean isRetryEnabled() {
+        return retryEnabled;
+    }
+    
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+    
+    public long getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+    
+    public long getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+    
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+    
+    public int getRetryBudgetMinPerSecond() {
+        return retryBudgetMinPerSecond;
+    }
+    
+    // Getters for hedging settings
+    
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+    
+    public double getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+    
+    public long getHedgingMinDelayMillis() {
+        return hedgingMinDelayMillis;
+    }
+    
+    public double getHedgingMaxRatio() {
+        return hedgingMaxRatio;
+    }
+    
+    public int getHedgingMinSamples() {
+        return hedgingMinSamples;
+    }
+    
+    // Getters for routing settings
+    
+    public String getRoutingPolicy() {
+        return routingPolicy;
+    }
+    
+    public int getRoutingFailureThreshold() {
+        return routingFailureThreshold;
+    }
+    
+    public int getRoutingEjectionSeconds() {
+        return routingEjectionSeconds;
+    }
+    
+    public int getRoutingMaxEjectionSeconds() {
+        return routingMaxEjectionSeconds;
+    }
+    
+    /**
+     * Get a provider's place in priority routing; lower is preferred
+     * @param providerName Provider identifier (e.g., "OpenAI", "Bedrock")
+     */
+    public int getRoutingPriority(String providerName) {
+        switch (providerName.toLowerCase()) {
+            case "openai":
+                return openAIRoutingPriority;
+            case "bedrock":
+                return bedrockRoutingPriority;
+            case "ollama":
+                return ollamaRoutingPriority;
+            default:
+                return Integer.MAX_VALUE;
+        }
+    }
+    
+    /**
+     * Get a provider's share of traffic in weighted routing
+     * @param providerName Provider identifier (e.g., "OpenAI", "Bedrock")
+     */
+    public int getRoutingWeight(String providerName) {
+        switch (providerName.toLowerCase()) {
+            case "openai":
+                return openAIRoutingWeight;
+            case "bedrock":
+                return bedrockRoutingWeight;
+            case "ollama":
+                return ollamaRoutingWeight;
+            default:
+                return 1;
+        }
+    }
+    
+    // Getters for circuit breaker settings
+    
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+    
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+    
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+    
+    public int getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+    
+    public int getCircuitBreakerSlowCallSeconds() {
+        return circuitBreakerSlowCallSeconds;
+    }
+    
+    public int getCircuitBreakerSlowCallRateThreshold() {
+        return circuitBreakerSlowCallRateThreshold;
+    }
+    
+    public int getCircuitBreakerOpenSeconds() {
+        return circuitBreakerOpenSeconds;
+    }
+    
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+    
+    // Getters for metrics export settings
+    
+    public boolean isMetricsFileEnabled() {
+        return metricsFileEnabled;
+    }
+    
+    public String getMetricsFilePath() {
+        return metricsFilePath;
+    }
+    
+    public int getMetricsFileIntervalSeconds() {
+        return metricsFileIntervalSeconds;
+    }
+    
+    public boolean isMetricsHttpEnabled() {
+        return metricsHttpEnabled;
+    }
+    
+    public String getMetricsHttpBind() {
+        return metricsHttpBind;
+    }
+    
+    public int getMetricsHttpPort() {
+        return metricsHttpPort;
+    }
+    
     // Getters for messages
     
     public String getMessagePrefix() {
@@ -265,6 +1310,10 @@ public class ConfigManager {
         return noProviderMessage;
     }
     
+    public String getBusyMessage() {
+        return busyMessage;
+    }
+    
     /**
      * Check if at least one AI provider is enabled
      */
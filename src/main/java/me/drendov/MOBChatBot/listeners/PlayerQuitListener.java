@@ -0,0 +1,25 @@
+package me.drendov.MOBChatBot.listeners;
+
+import me.drendov.MOBChatBot.MOBChatBot;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Releases per-player state when a player leaves the server
+ */
+public class PlayerQuitListener implements Listener {
+    
+    private final MOBChatBot plugin;
+    
+    public PlayerQuitListener(MOBChatBot plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        if (plugin.getConfigManager().isClearConversationOnQuit()) {
+            plugin.getConversationManager().clearConversation(event.getPlayer().getUniqueId());
+        }
+    }
+}
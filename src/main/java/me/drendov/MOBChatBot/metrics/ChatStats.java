@@ -0,0 +1,118 @@
+package me.drendov.MOBChatBot.metrics;
+
+import me.drendov.MOBChatBot.ai.AIResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rolling figures for chats as players see them: how many, how fast, how many failed, and who used the most tokens
+ * Everything is kept in sliding windows that are updated as chats finish, so reading the figures costs the
+ * same however busy the server is.
+ */
+public class ChatStats {
+    
+    private final RollingCounter chats = new RollingCounter();
+    private final RollingCounter failures = new RollingCounter();
+    private final RollingHistogram latency = new RollingHistogram();
+    private final ConcurrentMap<UUID, PlayerUsage> players = new ConcurrentHashMap<>();
+    
+    /**
+     * Record a finished chat
+     * @param nanos Time from the player's command until the reply arrived
+     * @param response The reply, or null if the request failed with an exception
+     */
+    public void recordChat(UUID playerId, String playerName, long nanos, AIResponse response) {
+        chats.increment();
+        latency.record(nanos);
+        if (response == null || !response.isSuccess()) {
+            failures.increment();
+            return;
+        }
+        
+        if (response.getTokensUsed() > 0) {
+            PlayerUsage usage = players.get(playerId);
+            if (usage == null) {
+                usage = players.computeIfAbsent(playerId, id -> new PlayerUsage(playerName));
+            }
+            usage.tokens.add(response.getTokensUsed());
+        }
+    }
+    
+    /**
+     * Get the players who used the most tokens within the window, most first
+     * Only players with usage in the window are considered, so this is bounded by recent activity
+     */
+    public List<PlayerTokens> getTopPlayers(int limit) {
+        List<PlayerTokens> active = new ArrayList<>();
+        for (PlayerUsage usage : players.values()) {
+            long tokens = usage.tokens.sum();
+            if (tokens > 0) {
+                active.add(new PlayerTokens(usage.name, tokens));
+            }
+        }
+        active.sort(Comparator.comparingLong(PlayerTokens::getTokens).reversed());
+        return active.size() > limit ? active.subList(0, limit) : active;
+    }
+    
+    /**
+     * Drop players with no token use left in the window
+     * A chat finishing at the same moment may lose its tokens from the figures; they are estimates anyway
+     * @return Number of players removed
+     */
+    public int sweep() {
+        int before = players.size();
+        players.values().removeIf(usage -> usage.tokens.sum() == 0);
+        return before - players.size();
+    }
+    
+    public RollingCounter getChats() {
+        return chats;
+    }
+    
+    public RollingCounter getFailures() {
+        return failures;
+    }
+    
+    public RollingHistogram getLatency() {
+        return latency;
+    }
+    
+    /**
+     * One player's recent token use
+     */
+    private static final class PlayerUsage {
+        private final String name;
+        private final RollingCounter tokens = new RollingCounter();
+        
+        private PlayerUsage(String name) {
+            this.name = name;
+        }
+    }
+    
+    /**
+     * Tokens a player used within the window, as read by {@link #getTopPlayers}
+     */
+    public static final class PlayerTokens {
+        
+        private final String name;
+        private final long tokens;
+        
+        private PlayerTokens(String name, long tokens) {
+            this.name = name;
+            this.tokens = tokens;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public long getTokens() {
+            return tokens;
+        }
+    }
+}
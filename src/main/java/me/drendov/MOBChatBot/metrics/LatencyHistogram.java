@@ -0,0 +1,157 @@
+package me.drendov.MOBChatBot.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets
+ * Values are kept in microseconds. Each power of two is split into 32 equal buckets, so any percentile read back
+ * is within about 3% of the true value, from one microsecond up to several days. Recording is a couple of atomic
+ * increments and never allocates.
+ */
+public final class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values above 2^39 microseconds (about six days) share the last bucket
+    private static final int MAX_EXPONENT = 39;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+    
+    /**
+     * Record one latency
+     * @param nanos Elapsed time in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        sumMicros.add(micros);
+        
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+    
+    /**
+     * Copy the current counts, so several percentiles can be read from the same moment
+     * Recording carries on while the copy is taken; a value recorded meanwhile may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sumMicros.sum(), maxMicros.get());
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Copy the counts of several histograms added together, e.g. the slots of a sliding window
+     */
+    public static Snapshot combine(Iterable<LatencyHistogram> histograms) {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        long sum = 0;
+        long max = 0;
+        for (LatencyHistogram histogram : histograms) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long bucket = histogram.counts.get(i);
+                copy[i] += bucket;
+                total += bucket;
+            }
+            sum += histogram.sumMicros.sum();
+            max = Math.max(max, histogram.maxMicros.get());
+        }
+        return new Snapshot(copy, total, sum, max);
+    }
+    
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+    
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+    
+    static long bucketWidth(int index) {
+        return index < SUB_BUCKETS ? 1 : 1L << (index / SUB_BUCKETS - 1);
+    }
+    
+    /**
+     * Counts of a histogram at one moment
+     */
+    public static final class Snapshot {
+        
+        private final long[] counts;
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+        
+        private Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public double getSumSeconds() {
+            return sumMicros / 1e6;
+        }
+        
+        public double getMaxMillis() {
+            return maxMicros / 1e3;
+        }
+        
+        public double getMeanMillis() {
+            return count > 0 ? sumMicros / 1e3 / count : 0;
+        }
+        
+        /**
+         * Get the latency below which the given fraction of recorded values fall
+         * @param quantile Fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+         * @return Latency in milliseconds, or 0 if nothing was recorded
+         */
+        public double getPercentileMillis(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // Report the middle of the bucket, but never more than the largest value recorded
+                    long micros = bucketLowerBound(i) + bucketWidth(i) / 2;
+                    return Math.min(micros, maxMicros) / 1e3;
+                }
+            }
+            return maxMicros / 1e3;
+        }
+    }
+}
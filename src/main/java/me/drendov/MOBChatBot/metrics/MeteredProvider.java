@@ -0,0 +1,104 @@
+package me.drendov.MOBChatBot.metrics;
+
+import me.drendov.MOBChatBot.ai.AIProvider;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.ai.ConversationMessage;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * AIProvider decorator that counts a backend's requests, failures by type and tokens, and times its calls
+ * Streamed calls also record the time until their first text arrives
+ */
+public class MeteredProvider implements AIProvider {
+    
+    private final AIProvider delegate;
+    private final ProviderMetrics metrics;
+    
+    public MeteredProvider(AIProvider delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.metrics = registry.forProvider(delegate.getProviderName(), delegate.getModelName());
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> sendMessage(String message, List<ConversationMessage> conversationHistory) {
+        return execute(() -> delegate.sendMessage(message, conversationHistory), System.nanoTime());
+    }
+    
+    @Override
+    public CompletableFuture<AIResponse> streamMessage(String message, List<ConversationMessage> conversationHistory,
+                                                       Consumer<String> onDelta) {
+        long startNanos = System.nanoTime();
+        AtomicBoolean firstToken = new AtomicBoolean();
+        Consumer<String> timedDelta = delta -> {
+            if (!firstToken.get() && firstToken.compareAndSet(false, true)) {
+                metrics.recordSince(Stage.FIRST_TOKEN, startNanos);
+            }
+            onDelta.accept(delta);
+        };
+        return execute(() -> delegate.streamMessage(message, conversationHistory, timedDelta), startNanos);
+    }
+    
+    private CompletableFuture<AIResponse> execute(Supplier<CompletableFuture<AIResponse>> call, long startNanos) {
+        metrics.requestStarted();
+        CompletableFuture<AIResponse> upstream;
+        try {
+            upstream = call.get();
+        } catch (Throwable t) {
+            upstream = CompletableFuture.failedFuture(t);
+        }
+        
+        upstream.whenComplete((response, throwable) -> {
+            metrics.recordSince(Stage.REQUEST, startNanos);
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+                metrics.requestFailed(cause instanceof CancellationException
+                    ? AIResponse.ErrorType.CANCELLED
+                    : AIResponse.ErrorType.UNKNOWN);
+            } else if (response.isSuccess()) {
+                metrics.requestSucceeded(response.getTokensUsed());
+            } else {
+                metrics.requestFailed(response.getErrorType());
+            }
+        });
+        return upstream;
+    }
+    
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+    
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+    
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+    
+    @Override
+    public String getSystemPrompt() {
+        return delegate.getSystemPrompt();
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,105 @@
+package me.drendov.MOBChatBot.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Home of the plugin's metrics
+ * Per-provider counters and latencies are created on first use and kept for the life of the plugin, so they carry
+ * on across reloads. Values owned by other services, such as cache hits or queue depth, are registered as gauges
+ * and read only when metrics are exported.
+ */
+public class MetricsRegistry {
+    
+    private final ConcurrentMap<String, ProviderMetrics> providers = new ConcurrentHashMap<>();
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram delivery = new LatencyHistogram();
+    
+    /**
+     * Get the metrics of a provider and model, creating them on first use
+     * Callers on the request path should look them up once and keep them.
+     */
+    public ProviderMetrics forProvider(String provider, String model) {
+        String modelName = model != null ? model : "";
+        return providers.computeIfAbsent(provider + '\n' + modelName, key -> new ProviderMetrics(provider, modelName));
+    }
+    
+    /**
+     * Get the metrics of every provider and model seen so far, ordered by name
+     */
+    public List<ProviderMetrics> getProviders() {
+        List<ProviderMetrics> list = new ArrayList<>(providers.values());
+        list.sort(Comparator.comparing(ProviderMetrics::getProvider).thenComparing(ProviderMetrics::getModel));
+        return list;
+    }
+    
+    /**
+     * Get the time spent sending finished replies to players and recording them in the conversation
+     * Kept apart from the providers because a reply may have come from any of them
+     */
+    public LatencyHistogram getDelivery() {
+        return delivery;
+    }
+    
+    /**
+     * Register a value that can go up and down, such as a queue depth
+     * @param name Metric name, e.g. "mobchatbot_executor_queued_requests"
+     * @param help One line describing the value
+     */
+    public void registerGauge(String name, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(name, help, false, value));
+    }
+    
+    /**
+     * Register a running total that only goes up, such as cache hits
+     * @param name Metric name ending in "_total"
+     * @param help One line describing the value
+     */
+    public void registerCounter(String name, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(name, help, true, value));
+    }
+    
+    public List<Gauge> getGauges() {
+        return Collections.unmodifiableList(gauges);
+    }
+    
+    /**
+     * A value read from another service when metrics are exported
+     */
+    public static final class Gauge {
+        
+        private final String name;
+        private final String help;
+        private final boolean counter;
+        private final DoubleSupplier value;
+        
+        private Gauge(String name, String help, boolean counter, DoubleSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.counter = counter;
+            this.value = value;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getHelp() {
+            return help;
+        }
+        
+        public boolean isCounter() {
+            return counter;
+        }
+        
+        public double getValue() {
+            return value.getAsDouble();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package me.drendov.MOBChatBot.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.drendov.MOBChatBot.ai.AIResponse;
+import me.drendov.MOBChatBot.config.ConfigManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes the metrics registry in the Prometheus text format
+ * Metrics can be written to a file at a fixed interval, served over HTTP, or both. All work happens on the
+ * exporter's own background threads, so a slow disk or scraper never holds up chat requests.
+ */
+public class PrometheusExporter {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+    
+    private final Logger logger;
+    private final MetricsRegistry registry;
+    private final File dataFolder;
+    private final ScheduledExecutorService scheduler;
+    
+    private ScheduledFuture<?> fileTask;
+    private File file;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String serverAddress;
+    
+    /**
+     * @param dataFolder Plugin folder that relative file paths are resolved against
+     */
+    public PrometheusExporter(Logger logger, MetricsRegistry registry, File dataFolder, ConfigManager config) {
+        this.logger = logger;
+        this.registry = registry;
+        this.dataFolder = dataFolder;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MOBChatBot-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        configure(config);
+    }
+    
+    /**
+     * Apply settings from a reloaded configuration
+     * The HTTP server is only restarted when its address changes
+     */
+    public synchronized void configure(ConfigManager config) {
+        if (fileTask != null) {
+            fileTask.cancel(false);
+            fileTask = null;
+        }
+        if (config.isMetricsFileEnabled()) {
+            File configured = new File(config.getMetricsFilePath());
+            file = configured.isAbsolute() ? configured : new File(dataFolder, config.getMetricsFilePath());
+            int interval = config.getMetricsFileIntervalSeconds();
+            fileTask = scheduler.scheduleWithFixedDelay(this::writeFileQuietly, 0, interval, TimeUnit.SECONDS);
+        } else {
+            file = null;
+        }
+        
+        String address = config.isMetricsHttpEnabled()
+            ? config.getMetricsHttpBind() + ":" + config.getMetricsHttpPort()
+            : null;
+        if (address != null && address.equals(serverAddress)) {
+            return;
+        }
+        stopServer();
+        if (address != null) {
+            startServer(config.getMetricsHttpBind(), config.getMetricsHttpPort());
+        }
+    }
+    
+    private void startServer(String bind, int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+        } catch (IOException e) {
+            logger.warning("Failed to start metrics endpoint on " + bind + ":" + port + ": " + e.getMessage());
+            return;
+        }
+        serverExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MOBChatBot-Metrics-HTTP");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(serverExecutor);
+        server.createContext("/metrics", this::handleScrape);
+        server.start();
+        serverAddress = bind + ":" + port;
+        logger.info("Serving metrics at http://" + serverAddress + "/metrics");
+    }
+    
+    private void stopServer() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            server = null;
+            serverExecutor = null;
+            serverAddress = null;
+        }
+    }
+    
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+    
+    private void writeFileQuietly() {
+        try {
+            writeFile();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write metrics file", e);
+        }
+    }
+    
+    /**
+     * Write the metrics file now
+     * The write runs on the exporter's thread, in turn with the scheduled writes that share its temporary file
+     * @return Future completing with the file written, or null if the metrics file is disabled
+     */
+    public CompletableFuture<File> exportFile() {
+        CompletableFuture<File> result = new CompletableFuture<>();
+        try {
+            scheduler.execute(() -> {
+                try {
+                    result.complete(writeFile());
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("Metrics exporter is shut down", e));
+        }
+        return result;
+    }
+    
+    /**
+     * Write the metrics file; only called on the exporter's thread
+     * The file is replaced in one step, so readers never see it half written
+     * @return The file written, or null if the metrics file is disabled
+     */
+    private File writeFile() throws IOException {
+        File target;
+        synchronized (this) {
+            target = file;
+        }
+        if (target == null) {
+            return null;
+        }
+        
+        File temp = new File(target.getPath() + ".tmp");
+        File parent = target.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.write(temp.toPath(), scrape().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+    
+    /**
+     * Render every metric in the Prometheus text exposition format
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        List<ProviderMetrics> providers = registry.getProviders();
+        
+        header(out, "mobchatbot_requests_total", "counter", "Requests sent to each provider backend");
+        for (ProviderMetrics metrics : providers) {
+            sample(out, "mobchatbot_requests_total", labels(metrics), metrics.getRequests());
+        }
+        
+        header(out, "mobchatbot_request_failures_total", "counter", "Failed backend requests by error type");
+        for (ProviderMetrics metrics : providers) {
+            for (AIResponse.ErrorType type : AIResponse.ErrorType.values()) {
+                if (type != AIResponse.ErrorType.NONE) {
+                    String labels = labels(metrics) + ",type=\"" + type.name().toLowerCase(Locale.ROOT) + "\"";
+                    sample(out, "mobchatbot_request_failures_total", labels, metrics.getErrors(type));
+                }
+            }
+        }
+        
+        header(out, "mobchatbot_tokens_total", "counter", "Tokens used by successful backend requests");
+        for (ProviderMetrics metrics : providers) {
+            sample(out, "mobchatbot_tokens_total", labels(metrics), metrics.getTokens());
+        }
+        
+        header(out, "mobchatbot_backend_requests_in_flight", "gauge", "Backend requests started and not yet finished");
+        for (ProviderMetrics metrics : providers) {
+            sample(out, "mobchatbot_backend_requests_in_flight", labels(metrics), metrics.getInFlight());
+        }
+        
+        header(out, "mobchatbot_stage_seconds", "summary", "Time spent in each stage of a backend request");
+        for (ProviderMetrics metrics : providers) {
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram.Snapshot snapshot = metrics.getHistogram(stage).snapshot();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                summary(out, "mobchatbot_stage_seconds", labels(metrics) + ",stage=\"" + stage.getLabel() + "\"",
+                    snapshot);
+            }
+        }
+        
+        header(out, "mobchatbot_delivery_seconds", "summary",
+            "Time spent sending finished replies to players and recording them");
+        summary(out, "mobchatbot_delivery_seconds", null, registry.getDelivery().snapshot());
+        
+        for (MetricsRegistry.Gauge gauge : registry.getGauges()) {
+            header(out, gauge.getName(), gauge.isCounter() ? "counter" : "gauge", gauge.getHelp());
+            sample(out, gauge.getName(), null, gauge.getValue());
+        }
+        return out.toString();
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        String prefix = labels != null ? labels + "," : "";
+        for (double quantile : QUANTILES) {
+            sample(out, name, prefix + "quantile=\"" + quantile + "\"", snapshot.getPercentileMillis(quantile) / 1000);
+        }
+        sample(out, name + "_sum", labels, snapshot.getSumSeconds());
+        sample(out, name + "_count", labels, snapshot.getCount());
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+    
+    private static String labels(ProviderMetrics metrics) {
+        return "provider=\"" + escape(metrics.getProvider()) + "\",model=\"" + escape(metrics.getModel()) + "\"";
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    /**
+     * Stop writing and serving metrics
+     */
+    public synchronized void shutdown() {
+        stopServer();
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,140 @@
+package me.drendov.MOBChatBot.metrics;
+
+import me.drendov.MOBChatBot.ai.AIResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and stage latencies of one provider and model
+ * Totals since the plugin started are kept alongside rolling counts over the last few minutes.
+ * Every recording method is lock-free and safe to call from any thread.
+ */
+public final class ProviderMetrics {
+    
+    private static final AIResponse.ErrorType[] ERROR_TYPES = AIResponse.ErrorType.values();
+    
+    private final String provider;
+    private final String model;
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder[] errors = new LongAdder[ERROR_TYPES.length];
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final RollingCounter recentRequests = new RollingCounter();
+    private final RollingCounter recentFailures = new RollingCounter();
+    private final RollingCounter recentTokens = new RollingCounter();
+    
+    ProviderMetrics(String provider, String model) {
+        this.provider = provider;
+        this.model = model;
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Record how long a stage took
+     */
+    public void record(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+    
+    /**
+     * Record a stage that started at the given time and ends now
+     * @param startNanos {@link System#nanoTime()} when the stage started
+     * @return The current time, so the next stage can start from it
+     */
+    public long recordSince(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stages[stage.ordinal()].record(now - startNanos);
+        return now;
+    }
+    
+    void requestStarted() {
+        requests.increment();
+        recentRequests.increment();
+        inFlight.incrementAndGet();
+    }
+    
+    void requestSucceeded(int tokensUsed) {
+        inFlight.decrementAndGet();
+        successes.increment();
+        tokens.add(tokensUsed);
+        recentTokens.add(tokensUsed);
+    }
+    
+    void requestFailed(AIResponse.ErrorType type) {
+        inFlight.decrementAndGet();
+        errors[type.ordinal()].increment();
+        recentFailures.increment();
+    }
+    
+    public String getProvider() {
+        return provider;
+    }
+    
+    public String getModel() {
+        return model;
+    }
+    
+    public LatencyHistogram getHistogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+    
+    public long getRequests() {
+        return requests.sum();
+    }
+    
+    public long getSuccesses() {
+        return successes.sum();
+    }
+    
+    public long getTokens() {
+        return tokens.sum();
+    }
+    
+    public long getErrors(AIResponse.ErrorType type) {
+        return errors[type.ordinal()].sum();
+    }
+    
+    /**
+     * Get the number of failed requests of every type together
+     */
+    public long getErrors() {
+        long total = 0;
+        for (LongAdder count : errors) {
+            total += count.sum();
+        }
+        return total;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * Get requests started within the rolling window
+     */
+    public RollingCounter getRecentRequests() {
+        return recentRequests;
+    }
+    
+    /**
+     * Get requests that failed within the rolling window
+     */
+    public RollingCounter getRecentFailures() {
+        return recentFailures;
+    }
+    
+    /**
+     * Get tokens used by requests that finished within the rolling window
+     */
+    public RollingCounter getRecentTokens() {
+        return recentTokens;
+    }
+}
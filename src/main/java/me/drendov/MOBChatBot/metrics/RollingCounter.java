@@ -0,0 +1,51 @@
+package me.drendov.MOBChatBot.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running total over a sliding window of time, e.g. requests in the last five minutes
+ */
+public final class RollingCounter {
+    
+    private final SlidingWindow<LongAdder> window;
+    
+    /**
+     * Create a counter over the default five-minute window
+     */
+    public RollingCounter() {
+        this.window = new SlidingWindow<>(SlidingWindow.DEFAULT_SLOTS, SlidingWindow.DEFAULT_SLOT_MILLIS, LongAdder::new);
+    }
+    
+    public void increment() {
+        window.current().increment();
+    }
+    
+    public void add(long amount) {
+        window.current().add(amount);
+    }
+    
+    /**
+     * Get the total within the window
+     */
+    public long sum() {
+        long total = 0;
+        for (LongAdder slot : window.values()) {
+            total += slot.sum();
+        }
+        return total;
+    }
+    
+    /**
+     * Get the average rate per minute over the time the window covers
+     */
+    public double perMinute() {
+        return sum() / window.getCoveredMinutes();
+    }
+    
+    /**
+     * Get the length of the full window, in minutes
+     */
+    public double getWindowMinutes() {
+        return window.getWindowMinutes();
+    }
+}
@@ -0,0 +1,32 @@
+package me.drendov.MOBChatBot.metrics;
+
+/**
+ * Latency histogram over a sliding window of time, so percentiles reflect recent requests only
+ */
+public final class RollingHistogram {
+    
+    private final SlidingWindow<LatencyHistogram> window;
+    
+    /**
+     * Create a histogram over the default five-minute window
+     */
+    public RollingHistogram() {
+        this.window = new SlidingWindow<>(SlidingWindow.DEFAULT_SLOTS, SlidingWindow.DEFAULT_SLOT_MILLIS,
+            LatencyHistogram::new);
+    }
+    
+    /**
+     * Record one latency
+     * @param nanos Elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        window.current().record(nanos);
+    }
+    
+    /**
+     * Copy the counts of every value recorded within the window
+     */
+    public LatencyHistogram.Snapshot snapshot() {
+        return LatencyHistogram.combine(window.values());
+    }
+}
@@ -0,0 +1,103 @@
+package me.drendov.MOBChatBot.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Ring of time slots that together cover a recent stretch of time, such as the last five minutes
+ * Values are added to the slot for the current moment; a slot is replaced with a fresh one when time comes
+ * round to it again, so old values drop out without ever being scanned. Replacing a slot is a single
+ * compare-and-set, so adding stays lock-free.
+ * @param <T> Thread-safe accumulator kept in each slot
+ */
+public final class SlidingWindow<T> {
+    
+    /** Slots in a default window */
+    public static final int DEFAULT_SLOTS = 30;
+    /** Length of a default slot; with the default slot count a window covers five minutes */
+    public static final long DEFAULT_SLOT_MILLIS = 10_000;
+    
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final long slotNanos;
+    private final Supplier<T> factory;
+    private final long createdNanos = System.nanoTime();
+    
+    /**
+     * @param slotCount Number of slots; the oldest is dropped as each new one starts
+     * @param slotMillis Time each slot covers
+     * @param factory Creates the empty accumulator of a new slot
+     */
+    public SlidingWindow(int slotCount, long slotMillis, Supplier<T> factory) {
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.slotNanos = TimeUnit.MILLISECONDS.toNanos(slotMillis);
+        this.factory = factory;
+    }
+    
+    /**
+     * Get the accumulator for the current slot, starting a fresh slot if its time has come
+     */
+    public T current() {
+        long epoch = epoch(System.nanoTime());
+        int index = (int) Math.floorMod(epoch, (long) slots.length());
+        Slot<T> slot = slots.get(index);
+        // A slot already moved on by a thread that read the clock later is used as is
+        while (slot == null || slot.epoch < epoch) {
+            Slot<T> fresh = new Slot<>(epoch, factory.get());
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh.value;
+            }
+            slot = slots.get(index);
+        }
+        return slot.value;
+    }
+    
+    /**
+     * Get the accumulators of every slot still inside the window
+     */
+    public List<T> values() {
+        long oldest = epoch(System.nanoTime()) - slots.length() + 1;
+        List<T> live = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            Slot<T> slot = slots.get(i);
+            if (slot != null && slot.epoch >= oldest) {
+                live.add(slot.value);
+            }
+        }
+        return live;
+    }
+    
+    /**
+     * Get the length of time the window currently covers, in minutes
+     * Shorter than the full window until the window has been running that long, but never under one slot
+     */
+    public double getCoveredMinutes() {
+        long now = System.nanoTime();
+        long full = (slots.length() - 1) * slotNanos + Math.floorMod(now, slotNanos);
+        long covered = Math.min(full, now - createdNanos);
+        return Math.max(covered, slotNanos) / (double) TimeUnit.MINUTES.toNanos(1);
+    }
+    
+    /**
+     * Get the length of the full window, in minutes
+     */
+    public double getWindowMinutes() {
+        return slots.length() * slotNanos / (double) TimeUnit.MINUTES.toNanos(1);
+    }
+    
+    private long epoch(long nanos) {
+        return Math.floorDiv(nanos, slotNanos);
+    }
+    
+    private static final class Slot<T> {
+        private final long epoch;
+        private final T value;
+        
+        private Slot(long epoch, T value) {
+            this.epoch = epoch;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.drendov.MOBChatBot.metrics;
+
+/**
+ * Steps of a backend request whose latency is measured separately for each provider
+ * Delivery to the player happens after the provider is done and is measured by the registry as a whole
+ */
+public enum Stage {
+    
+    /** Waiting in the request executor for a free slot on the provider */
+    QUEUE_WAIT("queue_wait"),
+    /** Building the request; HTTP providers write their JSON while sending, which counts as network time */
+    REQUEST_BUILD("request_build"),
+    /** From sending the request until the response starts; a whole reply for Bedrock's buffered calls */
+    NETWORK("network"),
+    /** From the provider accepting a streamed request until its first text arrives */
+    FIRST_TOKEN("first_token"),
+    /** Reading the reply JSON; for streams, the time spent on every chunk added together */
+    PARSE("parse"),
+    /** Whole backend call as seen from the plugin, waiting for admission and a worker slot included */
+    REQUEST("request");
+    
+    private final String label;
+    
+    Stage(String label) {
+        this.label = label;
+    }
+    
+    /**
+     * Get the name used for this stage in exported metrics
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,222 @@
+package me.drendov.MOBChatBot.ratelimit;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+import me.drendov.MOBChatBot.metrics.RollingCounter;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-player limits checked before any AI request is dispatched
+ * Combines a cooldown with a burst allowance and a daily message quota
+ *
+ * The cooldown and burst form one token bucket, stored as a single theoretical arrival time
+ * (the generic cell rate algorithm), and the quota is a day number and count packed into one long.
+ * Both are updated with compare-and-set, so a check takes no locks and allocates nothing once a
+ * player has an entry.
+ */
+public class PlayerRateLimiter {
+    
+    /** Returned by {@link #tryAcquire} when the request may go ahead */
+    public static final long ALLOWED = 0;
+    
+    /** Returned by {@link #tryAcquire} when the player has used up today's quota */
+    public static final long QUOTA_EXHAUSTED = -1;
+    
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    
+    private final Map<UUID, PlayerBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder cooldownRejections = new LongAdder();
+    private final LongAdder quotaRejections = new LongAdder();
+    private final RollingCounter recentRejections = new RollingCounter();
+    
+    private volatile boolean enabled;
+    private volatile long intervalNanos;
+    private volatile long burstToleranceNanos;
+    private volatile int dailyQuota;
+    private volatile long zoneOffsetMillis;
+    
+    public PlayerRateLimiter(ConfigManager config) {
+        configure(config);
+    }
+    
+    /**
+     * Apply limits from a reloaded configuration
+     * Players keep their current position in the bucket and today's count
+     */
+    public void configure(ConfigManager config) {
+        this.enabled = config.isRateLimitEnabled();
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(config.getCooldownSeconds());
+        this.burstToleranceNanos = intervalNanos * (config.getRateLimitBurst() - 1);
+        this.dailyQuota = config.getRateLimitDailyQuota();
+        refreshZoneOffset();
+    }
+    
+    /**
+     * Try to take one request from a player's allowance
+     * Nothing is consumed when the request is refused
+     * @param playerUUID The player's UUID
+     * @return {@link #ALLOWED}, {@link #QUOTA_EXHAUSTED}, or the nanoseconds to wait before the cooldown allows another request
+     */
+    public long tryAcquire(UUID playerUUID) {
+        if (!enabled) {
+            return ALLOWED;
+        }
+        
+        PlayerBucket bucket = buckets.computeIfAbsent(playerUUID, uuid -> new PlayerBucket());
+        long today = currentDay();
+        int quota = dailyQuota;
+        
+        if (quota > 0 && !bucket.countRequest(today, quota)) {
+            quotaRejections.increment();
+            recentRejections.increment();
+            return QUOTA_EXHAUSTED;
+        }
+        
+        long wait = bucket.takeToken(System.nanoTime(), intervalNanos, burstToleranceNanos);
+        if (wait > 0) {
+            // Give back the request counted above so a cooldown refusal costs no quota
+            if (quota > 0) {
+                bucket.uncountRequest(today);
+            }
+            cooldownRejections.increment();
+            recentRejections.increment();
+            return wait;
+        }
+        return ALLOWED;
+    }
+    
+    /**
+     * Drop entries whose cooldown has passed and that hold no count for today
+     * @return Number of entries removed
+     */
+    public int sweep() {
+        refreshZoneOffset();
+        long now = System.nanoTime();
+        long today = currentDay();
+        
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, today));
+        return before - buckets.size();
+    }
+    
+    /**
+     * Forget a player's limits, e.g. after an admin reset
+     */
+    public void reset(UUID playerUUID) {
+        buckets.remove(playerUUID);
+    }
+    
+    public int getDailyQuota() {
+        return dailyQuota;
+    }
+    
+    public int getTrackedPlayers() {
+        return buckets.size();
+    }
+    
+    public long getCooldownRejections() {
+        return cooldownRejections.sum();
+    }
+    
+    public long getQuotaRejections() {
+        return quotaRejections.sum();
+    }
+    
+    /**
+     * Get requests refused by the cooldown or quota within the rolling window
+     */
+    public RollingCounter getRecentRejections() {
+        return recentRejections;
+    }
+    
+    /**
+     * Quota days follow the server's local midnight
+     */
+    private long currentDay() {
+        return Math.floorDiv(System.currentTimeMillis() + zoneOffsetMillis, DAY_MILLIS);
+    }
+    
+    private void refreshZoneOffset() {
+        long now = System.currentTimeMillis();
+        this.zoneOffsetMillis = TimeUnit.SECONDS.toMillis(
+            ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(now)).getTotalSeconds()
+        );
+    }
+    
+    /**
+     * One player's limiter state
+     */
+    private static final class PlayerBucket {
+        // Earliest time the bucket is empty again; a request is allowed while now >= tat - burst tolerance
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        // Day number in the high 32 bits, requests counted that day in the low 32 bits
+        private final AtomicLong dailyUsage = new AtomicLong();
+        
+        /**
+         * @return 0 if a token was taken, otherwise nanoseconds until one is available
+         */
+        private long takeToken(long now, long interval, long burstTolerance) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                // nanoTime values may wrap, so they are only compared through their difference
+                long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+                long allowAt = base - burstTolerance;
+                if (tat != Long.MIN_VALUE && now - allowAt < 0) {
+                    return allowAt - now;
+                }
+                if (theoreticalArrival.compareAndSet(tat, base + interval)) {
+                    return 0;
+                }
+            }
+        }
+        
+        private int usedOn(long day) {
+            long packed = dailyUsage.get();
+            return (packed >>> 32) == day ? (int) packed : 0;
+        }
+        
+        /**
+         * @return false if the quota was used up before the request could be counted
+         */
+        private boolean countRequest(long day, int quota) {
+            while (true) {
+                long packed = dailyUsage.get();
+                int used = (packed >>> 32) == day ? (int) packed : 0;
+                if (used >= quota) {
+                    return false;
+                }
+                if (dailyUsage.compareAndSet(packed, (day << 32) | (used + 1))) {
+                    return true;
+                }
+            }
+        }
+        
+        /**
+         * Undo {@link #countRequest} for a request that was refused afterwards
+         */
+        private void uncountRequest(long day) {
+            while (true) {
+                long packed = dailyUsage.get();
+                int used = (int) packed;
+                if ((packed >>> 32) != day || used == 0) {
+                    return;
+                }
+                if (dailyUsage.compareAndSet(packed, (day << 32) | (used - 1))) {
+                    return;
+                }
+            }
+        }
+        
+        private boolean isIdle(long now, long day) {
+            long tat = theoreticalArrival.get();
+            return (tat == Long.MIN_VALUE || tat - now <= 0) && usedOn(day) == 0;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package me.drendov.MOBChatBot.utils;
 
 import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 /**
@@ -37,6 +38,24 @@ public class MessageUtils {
         player.sendMessage(PREFIX + ChatColor.GREEN + message);
     }
     
+    /**
+     * Reply to a command sender: players get a formatted message, the console gets plain text
+     * @param sender The player or console that ran the command
+     * @param message The reply
+     * @param error Whether to format the reply as an error rather than a success
+     */
+    public static void reply(CommandSender sender, String message, boolean error) {
+        if (sender instanceof Player) {
+            if (error) {
+                sendError((Player) sender, message);
+            } else {
+                sendSuccess((Player) sender, message);
+            }
+        } else {
+            sender.sendMessage(message);
+        }
+    }
+    
     /**
      * Format an AI response for display
      * @param response The AI's response
@@ -0,0 +1,93 @@
+package me.drendov.MOBChatBot.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Collects streamed text and releases it in sentence-sized chunks
+ * so players see whole sentences instead of single tokens
+ */
+public class SentenceChunker {
+    
+    private static final int MIN_CHUNK_LENGTH = 40;
+    private static final int MAX_CHUNK_LENGTH = 240;
+    
+    private final Consumer<String> sink;
+    private final StringBuilder buffer = new StringBuilder();
+    
+    /**
+     * @param sink Receives each completed chunk
+     */
+    public SentenceChunker(Consumer<String> sink) {
+        this.sink = sink;
+    }
+    
+    /**
+     * Add streamed text and emit any chunks it completes
+     * @param text The next piece of text
+     */
+    public synchronized void append(String text) {
+        buffer.append(text);
+        
+        int end;
+        while ((end = findChunkEnd()) > 0) {
+            emit(end);
+        }
+    }
+    
+    /**
+     * Emit whatever text is still buffered
+     */
+    public synchronized void flush() {
+        if (buffer.length() > 0) {
+            emit(buffer.length());
+        }
+    }
+    
+    /**
+     * Find where the next chunk ends, or 0 if more text is needed
+     */
+    private int findChunkEnd() {
+        int lastBoundary = 0;
+        
+        // A sentence ends at .!? followed by whitespace, or at a line break
+        for (int i = 0; i < buffer.length(); i++) {
+            char c = buffer.charAt(i);
+            if (c == '\n') {
+                return i + 1;
+            }
+            if ((c == '.' || c == '!' || c == '?') && i + 1 < buffer.length()
+                    && Character.isWhitespace(buffer.charAt(i + 1))) {
+                lastBoundary = i + 1;
+            }
+        }
+        
+        if (lastBoundary >= MIN_CHUNK_LENGTH) {
+            return lastBoundary;
+        }
+        
+        // No usable sentence break in a long run of text; split at the last space
+        if (buffer.length() > MAX_CHUNK_LENGTH) {
+            int space = buffer.lastIndexOf(" ", MAX_CHUNK_LENGTH);
+            return space > 0 ? space : MAX_CHUNK_LENGTH;
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * Send the first {@code end} characters and drop them from the buffer
+     */
+    private void emit(int end) {
+        String chunk = buffer.substring(0, end).trim();
+        buffer.delete(0, end);
+        
+        // Drop whitespace left at the start of the next chunk
+        while (buffer.length() > 0 && Character.isWhitespace(buffer.charAt(0))) {
+            buffer.deleteCharAt(0);
+        }
+        
+        if (!chunk.isEmpty()) {
+            sink.accept(chunk);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CacheKeyTest {
+    
+    @Test
+    void ignoresCaseSpacingAndSentencePunctuation() {
+        assertEquals("what is a creeper", CacheKey.normalize("What is a Creeper?"));
+        assertEquals("what is a creeper", CacheKey.normalize("  what   is a creeper!!  "));
+        assertEquals(CacheKey.normalize("How do I craft a bed?"), CacheKey.normalize("how do i craft a bed"));
+    }
+    
+    @Test
+    void dropsApostrophes() {
+        assertEquals("whats up", CacheKey.normalize("What's up?"));
+        assertEquals("whats up", CacheKey.normalize("What’s up?"));
+    }
+    
+    @Test
+    void keepsOperators() {
+        assertEquals("what is 2+2", CacheKey.normalize("What is 2 + 2?"));
+        assertEquals(CacheKey.normalize("2+2"), CacheKey.normalize("2 + 2"));
+        assertNotEquals(CacheKey.normalize("2+2"), CacheKey.normalize("22"));
+        assertNotEquals(CacheKey.normalize("5 + 3"), CacheKey.normalize("5 - 3"));
+        assertNotEquals(CacheKey.normalize("1/2"), CacheKey.normalize("12"));
+    }
+    
+    @Test
+    void keepsSeparatorsInsideWordsOnly() {
+        assertEquals("1.5", CacheKey.normalize("1.5"));
+        assertEquals("10:30", CacheKey.normalize("10:30"));
+        assertNotEquals(CacheKey.normalize("1.5"), CacheKey.normalize("15"));
+        assertEquals("hello world", CacheKey.normalize("Hello. World."));
+        assertEquals("zombies skeletons", CacheKey.normalize("zombies, skeletons"));
+    }
+    
+    @Test
+    void emptyAndPunctuationOnlyMessagesNormalizeToEmpty() {
+        assertEquals("", CacheKey.normalize(""));
+        assertEquals("", CacheKey.normalize("?!..."));
+    }
+}
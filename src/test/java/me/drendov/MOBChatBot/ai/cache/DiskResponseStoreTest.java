@@ -0,0 +1,131 @@
+package me.drendov.MOBChatBot.ai.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskResponseStoreTest {
+    
+    private static final long MAX_BYTES = 1024 * 1024;
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    
+    @TempDir
+    File directory;
+    
+    @Test
+    void keepsResponsesAcrossRestarts() throws Exception {
+        DiskResponseStore store = open();
+        store.write("creeper", "A creeper explodes.", System.currentTimeMillis());
+        store.write("bed", "Three wool and three planks.", System.currentTimeMillis());
+        store.close(CLOSE_TIMEOUT_MILLIS);
+        
+        DiskResponseStore reopened = open();
+        assertEquals("A creeper explodes.", read(reopened, "creeper").getContent());
+        assertEquals("Three wool and three planks.", read(reopened, "bed").getContent());
+        assertTrue(reopened.contains("bed"));
+        assertNull(read(reopened, "missing"));
+        reopened.close(CLOSE_TIMEOUT_MILLIS);
+    }
+    
+    @Test
+    void truncatesTornRecordAtTheEnd() throws Exception {
+        DiskResponseStore store = open();
+        store.write("creeper", "A creeper explodes.", System.currentTimeMillis());
+        store.write("bed", "Three wool and three planks.", System.currentTimeMillis());
+        store.close(CLOSE_TIMEOUT_MILLIS);
+        
+        // A record cut short by a crash while it was being appended
+        File log = logFile();
+        long validBytes = log.length();
+        byte[] partial = Arrays.copyOf(Files.readAllBytes(log.toPath()), 30);
+        Files.write(log.toPath(), partial, StandardOpenOption.APPEND);
+        
+        DiskResponseStore reopened = open();
+        assertEquals("A creeper explodes.", read(reopened, "creeper").getContent());
+        assertEquals("Three wool and three planks.", read(reopened, "bed").getContent());
+        assertEquals(validBytes, reopened.getFileBytes());
+        assertEquals(validBytes, log.length());
+        
+        // New records go right after the last whole one and can be read after another restart
+        reopened.write("torch", "A stick and coal.", System.currentTimeMillis());
+        reopened.close(CLOSE_TIMEOUT_MILLIS);
+        DiskResponseStore restarted = open();
+        assertEquals(3, waitForLoad(restarted).size());
+        assertEquals("A stick and coal.", read(restarted, "torch").getContent());
+        restarted.close(CLOSE_TIMEOUT_MILLIS);
+    }
+    
+    @Test
+    void dropsRecordWithBadChecksum() throws Exception {
+        DiskResponseStore store = open();
+        store.write("creeper", "A creeper explodes.", System.currentTimeMillis());
+        store.close(CLOSE_TIMEOUT_MILLIS);
+        long firstRecordBytes = logFile().length();
+        
+        store = open();
+        store.write("bed", "Three wool and three planks.", System.currentTimeMillis());
+        store.close(CLOSE_TIMEOUT_MILLIS);
+        
+        // Damage the checksum of the last record
+        try (RandomAccessFile file = new RandomAccessFile(logFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+        
+        DiskResponseStore reopened = open();
+        assertNotNull(read(reopened, "creeper"));
+        assertNull(read(reopened, "bed"));
+        assertEquals(firstRecordBytes, logFile().length());
+        reopened.close(CLOSE_TIMEOUT_MILLIS);
+    }
+    
+    @Test
+    void ignoresExpiredRecords() throws Exception {
+        DiskResponseStore store = open();
+        store.write("old", "Stale answer.", System.currentTimeMillis() - TTL_MILLIS - 1000);
+        store.write("new", "Fresh answer.", System.currentTimeMillis());
+        store.close(CLOSE_TIMEOUT_MILLIS);
+        
+        DiskResponseStore reopened = open();
+        assertNull(read(reopened, "old"));
+        assertEquals("Fresh answer.", read(reopened, "new").getContent());
+        assertEquals(1, reopened.size());
+        reopened.close(CLOSE_TIMEOUT_MILLIS);
+    }
+    
+    private DiskResponseStore open() {
+        return new DiskResponseStore(Logger.getLogger("DiskResponseStoreTest"), directory, MAX_BYTES, TTL_MILLIS);
+    }
+    
+    private File logFile() {
+        return new File(directory, "responses.log");
+    }
+    
+    /**
+     * Reads run on the I/O thread after the index has loaded, so this also waits for the load
+     */
+    private static DiskResponseStore.StoredResponse read(DiskResponseStore store, String key) throws Exception {
+        return store.read(key).get(5, TimeUnit.SECONDS);
+    }
+    
+    private static DiskResponseStore waitForLoad(DiskResponseStore store) throws Exception {
+        read(store, "");
+        assertTrue(store.isLoaded());
+        return store;
+    }
+}
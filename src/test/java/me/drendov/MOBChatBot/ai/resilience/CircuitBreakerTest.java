@@ -0,0 +1,196 @@
+package me.drendov.MOBChatBot.ai.resilience;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static me.drendov.MOBChatBot.ai.resilience.CircuitBreaker.REJECTED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CircuitBreakerTest {
+    
+    private static final int WINDOW_SIZE = 4;
+    private static final int OPEN_SECONDS = 1;
+    private static final int HALF_OPEN_CALLS = 2;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+    
+    private CircuitBreaker breaker;
+    
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker("Test", new BreakerConfig(), Logger.getLogger("CircuitBreakerTest"));
+    }
+    
+    @Test
+    void staysClosedUntilMinimumCallsAreSeen() {
+        for (int i = 0; i < WINDOW_SIZE - 1; i++) {
+            call(true, FAST);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(WINDOW_SIZE - 1, breaker.getWindowCount());
+    }
+    
+    @Test
+    void opensWhenFailureRateIsReached() {
+        call(false, FAST);
+        call(false, FAST);
+        call(true, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        call(true, FAST);
+        
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpenedCount());
+        assertEquals(REJECTED, breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+    
+    @Test
+    void opensWhenSlowCallRateIsReached() {
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            call(false, SLOW);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+    
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        call(true, FAST);
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            call(false, FAST);
+        }
+        call(true, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.25, breaker.getFailureRate(), 1e-9);
+    }
+    
+    @Test
+    void closesAfterSuccessfulTrialCalls() throws InterruptedException {
+        trip();
+        awaitHalfOpenPeriod();
+        
+        long first = breaker.tryAcquire();
+        assertNotEquals(REJECTED, first);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        long second = breaker.tryAcquire();
+        assertNotEquals(REJECTED, second);
+        assertEquals(REJECTED, breaker.tryAcquire());
+        
+        breaker.onResult(first, false, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(second, false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getWindowCount());
+    }
+    
+    @Test
+    void reopensWhenTrialCallsFail() throws InterruptedException {
+        trip();
+        awaitHalfOpenPeriod();
+        
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        breaker.onResult(first, false, FAST);
+        breaker.onResult(second, true, FAST);
+        
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenedCount());
+    }
+    
+    @Test
+    void releasedTrialPermitCanBeReused() throws InterruptedException {
+        trip();
+        awaitHalfOpenPeriod();
+        
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        assertEquals(REJECTED, breaker.tryAcquire());
+        breaker.release(first);
+        long third = breaker.tryAcquire();
+        assertNotEquals(REJECTED, third);
+        
+        breaker.onResult(second, false, FAST);
+        breaker.onResult(third, false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void ignoresResultsOfCallsStartedInAnEarlierState() throws InterruptedException {
+        long stale = breaker.tryAcquire();
+        trip();
+        awaitHalfOpenPeriod();
+        
+        long trial = breaker.tryAcquire();
+        breaker.onResult(stale, true, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(trial, false, FAST);
+        breaker.onResult(breaker.tryAcquire(), false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    private void call(boolean failed, long durationNanos) {
+        long permit = breaker.tryAcquire();
+        assertNotEquals(REJECTED, permit);
+        breaker.onResult(permit, failed, durationNanos);
+    }
+    
+    private void trip() {
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            call(true, FAST);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+    
+    private static void awaitHalfOpenPeriod() throws InterruptedException {
+        Thread.sleep(TimeUnit.SECONDS.toMillis(OPEN_SECONDS) + 100);
+    }
+    
+    /**
+     * Breaker settings fixed in code instead of loaded from config.yml
+     */
+    private static final class BreakerConfig extends ConfigManager {
+        
+        private BreakerConfig() {
+            super(null);
+        }
+        
+        @Override
+        public int getCircuitBreakerWindowSize() {
+            return WINDOW_SIZE;
+        }
+        
+        @Override
+        public int getCircuitBreakerMinimumCalls() {
+            return WINDOW_SIZE;
+        }
+        
+        @Override
+        public int getCircuitBreakerFailureRateThreshold() {
+            return 50;
+        }
+        
+        @Override
+        public int getCircuitBreakerSlowCallSeconds() {
+            return (int) TimeUnit.NANOSECONDS.toSeconds(SLOW);
+        }
+        
+        @Override
+        public int getCircuitBreakerSlowCallRateThreshold() {
+            return 80;
+        }
+        
+        @Override
+        public int getCircuitBreakerOpenSeconds() {
+            return OPEN_SECONDS;
+        }
+        
+        @Override
+        public int getCircuitBreakerHalfOpenCalls() {
+            return HALF_OPEN_CALLS;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package me.drendov.MOBChatBot.ratelimit;
+
+import me.drendov.MOBChatBot.config.ConfigManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static me.drendov.MOBChatBot.ratelimit.PlayerRateLimiter.ALLOWED;
+import static me.drendov.MOBChatBot.ratelimit.PlayerRateLimiter.QUOTA_EXHAUSTED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerRateLimiterTest {
+    
+    private final UUID player = UUID.randomUUID();
+    
+    @Test
+    void allowsBurstThenAppliesCooldown() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 60, 2, 0));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        long wait = limiter.tryAcquire(player);
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(59) && wait <= TimeUnit.SECONDS.toNanos(60), "wait was " + wait);
+        assertEquals(1, limiter.getCooldownRejections());
+        assertEquals(0, limiter.getQuotaRejections());
+    }
+    
+    @Test
+    void tracksPlayersSeparately() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 60, 1, 0));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player) > 0);
+        assertEquals(ALLOWED, limiter.tryAcquire(UUID.randomUUID()));
+        assertEquals(2, limiter.getTrackedPlayers());
+    }
+    
+    @Test
+    void refusesOnceDailyQuotaIsUsed() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 0, 1, 2));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(QUOTA_EXHAUSTED, limiter.tryAcquire(player));
+        assertEquals(1, limiter.getQuotaRejections());
+    }
+    
+    @Test
+    void cooldownRefusalDoesNotUseQuota() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 60, 1, 2));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player) > 0);
+        
+        // A larger burst lets the next request past the cooldown; only one request may have been counted
+        limiter.configure(new LimitConfig(true, 60, 2, 2));
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(QUOTA_EXHAUSTED, limiter.tryAcquire(player));
+    }
+    
+    @Test
+    void quotaRefusalDoesNotUseCooldownToken() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 60, 2, 1));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(QUOTA_EXHAUSTED, limiter.tryAcquire(player));
+        
+        // The second burst token must still be there once the quota allows another request
+        limiter.configure(new LimitConfig(true, 60, 2, 2));
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(0, limiter.getCooldownRejections());
+    }
+    
+    @Test
+    void resetForgetsPlayer() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 60, 1, 0));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player) > 0);
+        limiter.reset(player);
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+    }
+    
+    @Test
+    void sweepKeepsPlayersWithCountsForToday() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(true, 0, 1, 5));
+        
+        assertEquals(ALLOWED, limiter.tryAcquire(player));
+        assertEquals(0, limiter.sweep());
+        assertEquals(1, limiter.getTrackedPlayers());
+    }
+    
+    @Test
+    void allowsEverythingWhenDisabled() {
+        PlayerRateLimiter limiter = new PlayerRateLimiter(new LimitConfig(false, 60, 1, 1));
+        
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ALLOWED, limiter.tryAcquire(player));
+        }
+        assertEquals(0, limiter.getTrackedPlayers());
+    }
+    
+    /**
+     * Rate limit settings fixed in code instead of loaded from config.yml
+     */
+    private static final class LimitConfig extends ConfigManager {
+        private final boolean enabled;
+        private final int cooldownSeconds;
+        private final int burst;
+        private final int dailyQuota;
+        
+        private LimitConfig(boolean enabled, int cooldownSeconds, int burst, int dailyQuota) {
+            super(null);
+            this.enabled = enabled;
+            this.cooldownSeconds = cooldownSeconds;
+            this.burst = burst;
+            this.dailyQuota = dailyQuota;
+        }
+        
+        @Override
+        public boolean isRateLimitEnabled() {
+            return enabled;
+        }
+        
+        @Override
+        public int getCooldownSeconds() {
+            return cooldownSeconds;
+        }
+        
+        @Override
+        public int getRateLimitBurst() {
+            return burst;
+        }
+        
+        @Override
+        public int getRateLimitDailyQuota() {
+            return dailyQuota;
+        }
+    }
+}